@@ -0,0 +1,118 @@
+package com.example.inventario.application.service;
+
+import com.example.inventario.domain.ports.out.StockHistoricoPort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Guarda cada día la instantánea de stock del día anterior (ver {@link StockHistoricoPort}). Al
+ * arrancar completa los días que falten desde la última instantánea, hasta un máximo, y después se
+ * programa a la hora configurada de cada día. Guardar dos veces el mismo día no tiene efecto, así
+ * que varias instancias pueden ejecutarlo a la vez.
+ */
+@Component
+public class InstantaneasStock implements SchedulingConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(InstantaneasStock.class);
+
+    private final StockHistoricoPort stockHistorico;
+    private final boolean activas;
+    private final LocalTime hora;
+    private final int diasMaximos;
+    private final Clock reloj;
+
+    private final Counter filas;
+    private final Timer duracion;
+
+    @Autowired
+    public InstantaneasStock(StockHistoricoPort stockHistorico, MeterRegistry registry,
+                             @Value("${app.stock.instantaneas.activas:true}") boolean activas,
+                             @Value("${app.stock.instantaneas.hora:00:05}") LocalTime hora,
+                             @Value("${app.stock.instantaneas.dias-maximos:31}") int diasMaximos) {
+        this(stockHistorico, registry, activas, hora, diasMaximos, Clock.systemDefaultZone());
+    }
+
+    // Con un reloj fijo en las pruebas
+    public InstantaneasStock(StockHistoricoPort stockHistorico, MeterRegistry registry, boolean activas,
+                             LocalTime hora, int diasMaximos, Clock reloj) {
+        this.stockHistorico = stockHistorico;
+        this.activas = activas;
+        this.hora = hora;
+        this.diasMaximos = diasMaximos;
+        this.reloj = reloj;
+
+        this.filas = Counter.builder("inventario.stock.instantaneas.filas")
+                .description("Filas escritas en las instantáneas diarias de stock")
+                .register(registry);
+        this.duracion = Timer.builder("inventario.stock.instantaneas.duracion")
+                .description("Duración de la instantánea de un día")
+                .register(registry);
+    }
+
+    // La primera vez nada más arrancar, para completar los días que falten; después a la hora configurada
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        if (activas) {
+            registrar.addTriggerTask(this::ejecutar,
+                    contexto -> contexto.lastCompletion() == null ? reloj.instant() : proxima());
+        }
+    }
+
+    /**
+     * Guarda los días cerrados que aún no tienen instantánea, en orden: cada uno se compara con la
+     * instantánea anterior. Sin ninguna previa sólo se guarda ayer. Devuelve los días guardados.
+     */
+    public int completarPendientes() {
+        LocalDate ayer = LocalDate.now(reloj).minusDays(1);
+        LocalDate desde = stockHistorico.ultimaInstantanea()
+                .map(ultima -> ultima.plusDays(1))
+                .orElse(ayer);
+        if (desde.isBefore(ayer.minusDays(diasMaximos - 1L))) {
+            log.warn("Faltan instantáneas de stock desde {}; sólo se guardan los últimos {} días", desde, diasMaximos);
+            desde = ayer.minusDays(diasMaximos - 1L);
+        }
+
+        int dias = 0;
+        for (LocalDate dia = desde; !dia.isAfter(ayer); dia = dia.plusDays(1)) {
+            LocalDate cierre = dia;
+            int escritas = duracion.record(() -> stockHistorico.guardarInstantanea(cierre));
+            filas.increment(escritas);
+            log.info("Instantánea de stock del {}: {} productos con cambios", cierre, escritas);
+            dias++;
+        }
+        return dias;
+    }
+
+    private void ejecutar() {
+        try {
+            completarPendientes();
+        } catch (RuntimeException e) {
+            // Los días que falten se completan en la próxima ejecución
+            log.warn("No se pudo guardar la instantánea de stock", e);
+        }
+    }
+
+    // Se recalcula cada vez para no derivar con los cambios de hora
+    private Instant proxima() {
+        LocalDateTime ahora = LocalDateTime.now(reloj);
+        LocalDateTime proxima = ahora.toLocalDate().atTime(hora);
+        if (!proxima.isAfter(ahora)) {
+            proxima = proxima.plusDays(1);
+        }
+        return proxima.atZone(reloj.getZone()).toInstant();
+    }
+}
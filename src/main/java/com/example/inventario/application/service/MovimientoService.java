@@ -1,19 +1,33 @@
 package com.example.inventario.application.service;
 
-import com.example.inventario.domain.exceptions.InvalidStockException;
 import com.example.inventario.domain.exceptions.MovimientoNotFoundException;
-import com.example.inventario.domain.exceptions.ProductoNotFoundException;
+import com.example.inventario.domain.model.AjusteStock;
+import com.example.inventario.domain.model.CursorMovimiento;
+import com.example.inventario.domain.model.FiltroMovimientos;
 import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Pagina;
 import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.model.ResultadoMovimiento;
+import com.example.inventario.domain.model.StockLog;
 import com.example.inventario.domain.ports.in.MovimientoUseCase;
 import com.example.inventario.domain.ports.out.MovimientoRepositoryPort;
 import com.example.inventario.domain.ports.out.ProductoRepositoryPort;
-import com.example.inventario.infrastructure.adapters.out.MovimientoEntity;
+import com.example.inventario.domain.ports.out.RegistrarAuditoriaStockPort;
+import com.example.inventario.domain.ports.out.ResumenMovimientosPort;
+import com.example.inventario.domain.ports.out.StockHistoricoPort;
+import com.example.inventario.infrastructure.config.ControlConcurrencia;
 import com.example.inventario.infrastructure.config.mapper.MovimientoMapper;
+import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 /**
  * Servicio que gestiona la lógica de negocio relacionada con movimientos de productos.
@@ -25,34 +39,149 @@ public class MovimientoService implements MovimientoUseCase {
     private final ProductoRepositoryPort productoRepository;
     private final ProductoService productoService;
     private final MovimientoMapper mapper;
-
-    public MovimientoService(MovimientoRepositoryPort movimientoRepository, ProductoRepositoryPort productoRepository, ProductoService productoService, MovimientoMapper mapper) {
+    private final RegistrarAuditoriaStockPort auditoriaStockPort;
+    private final ResumenMovimientosPort resumenMovimientos;
+    private final StockHistoricoPort stockHistorico;
+    private final ControlConcurrencia control;
+
+    public MovimientoService(MovimientoRepositoryPort movimientoRepository, ProductoRepositoryPort productoRepository, ProductoService productoService, MovimientoMapper mapper,
+                             RegistrarAuditoriaStockPort auditoriaStockPort, ResumenMovimientosPort resumenMovimientos,
+                             StockHistoricoPort stockHistorico, ControlConcurrencia control) {
         this.movimientoRepository = movimientoRepository;
         this.productoRepository = productoRepository;
         this.productoService = productoService;
         this.mapper = mapper;
+        this.auditoriaStockPort = auditoriaStockPort;
+        this.resumenMovimientos = resumenMovimientos;
+        this.stockHistorico = stockHistorico;
+        this.control = control;
     }
 
     /**
      * Crea un nuevo movimiento y actualiza el stock del producto correspondiente.
+     * Ajuste de stock, rotación, auditoría, resumen diario, instantáneas de stock (si la fecha es de un
+     * día ya cerrado) y alta del movimiento forman una única transacción; el producto se lee una sola
+     * vez, ya con el stock resultante.
      */
     @Override
+    @Transactional
     public Movimiento crearMovimiento(Movimiento movimiento) {
-        // Obtener el producto relacionado con el movimiento
-        Producto producto = productoRepository.buscarPorId(movimiento.getProducto().getId())
-                .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado"));
-
-        // Aplicar el cambio de stock según el tipo de movimiento
-        if (movimiento.getTipo() == Movimiento.TipoMovimiento.ENTRADA) {
-            productoService.entradaStock(producto.getId(), movimiento.getCantidad());
-        } else if (movimiento.getTipo() == Movimiento.TipoMovimiento.SALIDA) {
-            productoService.salidaStock(producto.getId(), movimiento.getCantidad());
+        // La fecha forma parte del orden de paginación, así que nunca se guarda vacía
+        if (movimiento.getFecha() == null) {
+            movimiento.setFecha(LocalDateTime.now());
         }
 
+        // Aplicar el cambio de stock según el tipo de movimiento (queda auditado); el ajuste falla si el producto no existe
+        Producto producto = aplicarEnStock(movimiento);
+
+        // El movimiento devuelto lleva el producto actualizado para que el llamador no tenga que releerlo
+        movimiento.setProducto(producto);
+
+        // Sumarlo al resumen diario de los informes, ya con el producto bloqueado por el ajuste
+        resumenMovimientos.acumular(List.of(movimiento), List.of());
+        stockHistorico.corregirInstantaneas(List.of(movimiento), List.of());
+
         // Guardar el movimiento en la base de datos
         return movimientoRepository.guardar(movimiento);
     }
 
+    /**
+     * Crea un lote de movimientos en una única transacción. Las entradas y salidas se suman por
+     * producto y cada producto recibe un solo UPDATE de stock; si el neto de un producto dejaría
+     * el stock en negativo se rechazan todos sus movimientos del lote. Movimientos y auditoría
+     * se insertan con lotes JDBC.
+     */
+    @Override
+    @Transactional
+    public List<ResultadoMovimiento> crearMovimientos(List<Movimiento> movimientos) {
+        ResultadoMovimiento[] resultados = new ResultadoMovimiento[movimientos.size()];
+
+        // Validar el lote completo y agrupar por producto; el orden por ID evita interbloqueos entre lotes concurrentes
+        Map<Long, List<Integer>> indicesPorProducto = new TreeMap<>();
+        for (int i = 0; i < movimientos.size(); i++) {
+            Movimiento movimiento = movimientos.get(i);
+            String error = validar(movimiento);
+            if (error != null) {
+                resultados[i] = ResultadoMovimiento.rechazado(movimiento, error);
+            } else {
+                indicesPorProducto.computeIfAbsent(movimiento.getProducto().getId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<Movimiento> nuevos = new ArrayList<>();
+        List<StockLog> logs = new ArrayList<>();
+        LocalDateTime ahora = LocalDateTime.now();
+
+        for (Map.Entry<Long, List<Integer>> grupo : indicesPorProducto.entrySet()) {
+            Long idProducto = grupo.getKey();
+            List<Integer> indices = grupo.getValue();
+
+            int delta = 0;
+            int vendidas = 0;
+            for (int i : indices) {
+                delta += efectoEnStock(movimientos.get(i));
+                vendidas += unidadesVendidas(movimientos.get(i));
+            }
+
+            Optional<AjusteStock> ajuste = productoRepository.ajustarStock(idProducto, delta, vendidas);
+            if (ajuste.isEmpty()) {
+                String error = productoRepository.buscarPorId(idProducto).isPresent()
+                        ? "Stock insuficiente para los movimientos del producto en el lote."
+                        : "Producto no encontrado";
+                for (int i : indices) {
+                    resultados[i] = ResultadoMovimiento.rechazado(movimientos.get(i), error);
+                }
+                continue;
+            }
+
+            Producto producto = productoService.recalcularFactorDeRotacion(idProducto, ajuste.get());
+
+            // Una fila de auditoría por movimiento, con las entradas antes que las salidas: el UPDATE sólo
+            // comprobó el delta neto y, en el orden del lote, un stock intermedio podría quedar negativo
+            int stock = ajuste.get().getStockAnterior();
+            for (Movimiento.TipoMovimiento tipo : List.of(Movimiento.TipoMovimiento.ENTRADA, Movimiento.TipoMovimiento.SALIDA)) {
+                for (int i : indices) {
+                    Movimiento movimiento = movimientos.get(i);
+                    if (movimiento.getTipo() == tipo) {
+                        int anterior = stock;
+                        stock += efectoEnStock(movimiento);
+                        logs.add(crearLog(idProducto, anterior, stock, tipo));
+                    }
+                }
+            }
+
+            for (int i : indices) {
+                Movimiento movimiento = movimientos.get(i);
+                movimiento.setProducto(producto);
+                if (movimiento.getFecha() == null) {
+                    movimiento.setFecha(ahora);
+                }
+                nuevos.add(movimiento);
+                resultados[i] = ResultadoMovimiento.exitoso(movimiento);
+            }
+        }
+
+        movimientoRepository.guardarTodos(nuevos);
+        auditoriaStockPort.registrarLogs(logs);
+        resumenMovimientos.acumular(nuevos, List.of());
+        stockHistorico.corregirInstantaneas(nuevos, List.of());
+
+        return Arrays.asList(resultados);
+    }
+
+    private String validar(Movimiento movimiento) {
+        if (movimiento.getProducto() == null || movimiento.getProducto().getId() == null) {
+            return "El ID del producto es obligatorio";
+        }
+        if (movimiento.getTipo() == null) {
+            return "El tipo de movimiento es obligatorio";
+        }
+        if (movimiento.getCantidad() < 1) {
+            return "La cantidad debe ser al menos 1";
+        }
+        return null;
+    }
+
     /**
      * Busca un movimiento por su ID.
      */
@@ -66,17 +195,30 @@ public class MovimientoService implements MovimientoUseCase {
      * Registra un movimiento y actualiza el stock del producto.
      */
     @Override
+    @Transactional
     public Movimiento registrarMovimiento(Movimiento movimiento) {
-        Producto producto = productoRepository.buscarPorId(movimiento.getProducto().getId())
-                .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado"));
+        return crearMovimiento(movimiento);
+    }
+
+    private Producto aplicarEnStock(Movimiento movimiento) {
+        Long idProducto = movimiento.getProducto().getId();
 
         if (movimiento.getTipo() == Movimiento.TipoMovimiento.ENTRADA) {
-            productoService.entradaStock(producto.getId(), movimiento.getCantidad());
+            return productoService.entradaStock(idProducto, movimiento.getCantidad());
         } else if (movimiento.getTipo() == Movimiento.TipoMovimiento.SALIDA) {
-            productoService.salidaStock(producto.getId(), movimiento.getCantidad());
+            return productoService.salidaStock(idProducto, movimiento.getCantidad());
         }
+        throw new IllegalArgumentException("Tipo de movimiento no válido.");
+    }
 
-        return movimientoRepository.guardar(movimiento);
+    private StockLog crearLog(Long idProducto, int cantidadAnterior, int cantidadNueva, Movimiento.TipoMovimiento tipo) {
+        StockLog log = new StockLog();
+        log.setProductoId(idProducto);
+        log.setCantidadAnterior(cantidadAnterior);
+        log.setCantidadNueva(cantidadNueva);
+        log.setOperacion(tipo.name());
+        log.setFecha(LocalDateTime.now());
+        return log;
     }
 
     /**
@@ -100,84 +242,117 @@ public class MovimientoService implements MovimientoUseCase {
      */
     @Override
     public List<Movimiento> buscarMovimientos(Long productoId, String tipo) {
-        List<MovimientoEntity> resultados;
-
-        if (productoId != null && tipo != null) {
-            Movimiento.TipoMovimiento tipoMovimiento = Movimiento.TipoMovimiento.valueOf(tipo.toUpperCase());
-            resultados = movimientoRepository.findByProductoIdAndTipo(productoId, tipoMovimiento);
-        } else if (productoId != null) {
-            resultados = movimientoRepository.findByProductoId(productoId);
-        } else if (tipo != null) {
-            Movimiento.TipoMovimiento tipoMovimiento = Movimiento.TipoMovimiento.valueOf(tipo.toUpperCase());
-            resultados = movimientoRepository.findByTipo(tipoMovimiento);
-        } else {
-            resultados = movimientoRepository.findAll();
+        return movimientoRepository.buscarMovimientos(productoId, tipo);
+    }
+
+    /**
+     * Devuelve una página de movimientos a continuación del cursor recibido. El tamaño de la
+     * respuesta depende sólo del límite, no del volumen del histórico.
+     */
+    @Override
+    public Pagina<Movimiento> buscarPaginaMovimientos(FiltroMovimientos filtro, String cursor, int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser al menos 1.");
+        }
+        if (filtro.getDesde() != null && filtro.getHasta() != null && !filtro.getDesde().isBefore(filtro.getHasta())) {
+            throw new IllegalArgumentException("La fecha 'desde' debe ser anterior a 'hasta'.");
         }
+        CursorMovimiento despuesDe = cursor == null || cursor.isBlank() ? null : CursorMovimiento.decodificar(cursor);
+        return movimientoRepository.buscarPagina(filtro, despuesDe, limite);
+    }
 
-        // Convertir las entidades a modelos de dominio
-        return resultados.stream()
-                .map(mapper::toDomain)
-                .collect(Collectors.toList());
+    /**
+     * Entrega los movimientos uno a uno al consumidor, en orden de ID, para exportaciones que no caben en memoria.
+     */
+    @Override
+    public void exportarMovimientos(Long despuesDeId, Consumer<Movimiento> consumidor) {
+        movimientoRepository.recorrerMovimientos(despuesDeId, consumidor);
     }
 
     /**
-     * Elimina un movimiento y revierte su efecto en el stock del producto asociado.
+     * Elimina un movimiento y revierte su efecto en el stock del producto asociado. El borrado se
+     * condiciona a la versión leída: si otra operación modificó o eliminó el movimiento entretanto,
+     * se relee y se reintenta (estrategia optimista); con la pesimista la lectura ya lo bloqueó.
      */
     @Override
+    @Transactional
     public void eliminarMovimiento(Long idMovimiento) {
-        Movimiento movimiento = movimientoRepository.buscarPorId(idMovimiento)
-                .orElseThrow(() -> new RuntimeException("Movimiento no encontrado"));
+        control.reintentar(() -> {
+            Movimiento movimiento = movimientoRepository.buscarParaModificar(idMovimiento)
+                    .orElseThrow(() -> new RuntimeException("Movimiento no encontrado"));
 
-        // Eliminar el movimiento
-        movimientoRepository.eliminarPorId(idMovimiento);
+            // Eliminar el movimiento
+            if (!movimientoRepository.eliminarSiNoCambio(movimiento)) {
+                return null;
+            }
 
-        // Recuperar el producto afectado
-        Producto producto = productoRepository.buscarPorId(movimiento.getProducto().getId())
-                .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado"));
+            // Revertir el efecto del movimiento sobre el stock y sobre el acumulado de ventas
+            productoService.ajustarStock(movimiento.getProducto().getId(), -efectoEnStock(movimiento), -unidadesVendidas(movimiento),
+                    StockLog.ELIMINACION);
 
-        // Revertir el efecto del movimiento sobre el stock
-        if (movimiento.getTipo() == Movimiento.TipoMovimiento.ENTRADA) {
-            productoService.salidaStock(producto.getId(), movimiento.getCantidad());
-        } else if (movimiento.getTipo() == Movimiento.TipoMovimiento.SALIDA) {
-            productoService.entradaStock(producto.getId(), movimiento.getCantidad());
-        }
+            resumenMovimientos.acumular(List.of(), List.of(movimiento));
+            stockHistorico.corregirInstantaneas(List.of(), List.of(movimiento));
+            return movimiento;
+        });
     }
 
     /**
-     * Actualiza un movimiento existente y ajusta el stock del producto.
+     * Actualiza un movimiento existente y ajusta el stock del producto. El delta de stock se calcula
+     * sobre el movimiento tal como estaba al escribirlo: la escritura se condiciona a la versión leída
+     * y, si otra edición se adelantó, se relee y se reintenta, así dos ediciones simultáneas no
+     * revierten dos veces la misma cantidad.
      */
     @Override
+    @Transactional
     public Movimiento actualizarMovimiento(Long id, Movimiento movimientoActualizado) {
-        Movimiento movimientoExistente = movimientoRepository.buscarPorId(id)
-                .orElseThrow(() -> new MovimientoNotFoundException("Movimiento no encontrado con id: " + id));
-
-        Producto producto = productoRepository.buscarPorId(movimientoExistente.getProducto().getId())
-                .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado"));
+        return control.reintentar(() -> {
+            Movimiento movimientoExistente = movimientoRepository.buscarParaModificar(id)
+                    .orElseThrow(() -> new MovimientoNotFoundException("Movimiento no encontrado con id: " + id));
+
+            // El resumen diario y las instantáneas pierden el movimiento anterior y ganan el nuevo (fecha y producto no cambian)
+            Movimiento anterior = new Movimiento(movimientoExistente.getId(), movimientoExistente.getProducto(), movimientoExistente.getTipo(),
+                    movimientoExistente.getCantidad(), movimientoExistente.getFecha(), movimientoExistente.getDescripcion());
+
+            // Guardar los cambios en el movimiento; primero, para no tocar el stock si hay que reintentar
+            movimientoExistente.setCantidad(movimientoActualizado.getCantidad());
+            movimientoExistente.setTipo(movimientoActualizado.getTipo());
+            movimientoExistente.setDescripcion(movimientoActualizado.getDescripcion());
+            if (!movimientoRepository.actualizarSiNoCambio(movimientoExistente)) {
+                return null;
+            }
 
-        // Revertir el efecto del movimiento anterior
-        if (movimientoExistente.getTipo() == Movimiento.TipoMovimiento.ENTRADA) {
-            producto.setStock(producto.getStock() - movimientoExistente.getCantidad());
-        } else if (movimientoExistente.getTipo() == Movimiento.TipoMovimiento.SALIDA) {
-            producto.setStock(producto.getStock() + movimientoExistente.getCantidad());
-        }
+            Long idProducto = movimientoExistente.getProducto().getId();
 
-        // Aplicar el nuevo movimiento
-        if (movimientoActualizado.getTipo() == Movimiento.TipoMovimiento.ENTRADA) {
-            producto.setStock(producto.getStock() + movimientoActualizado.getCantidad());
-        } else if (movimientoActualizado.getTipo() == Movimiento.TipoMovimiento.SALIDA) {
-            if (producto.getStock() < movimientoActualizado.getCantidad()) {
-                throw new InvalidStockException("Stock insuficiente para actualizar la salida.");
+            // Revertir el movimiento anterior y aplicar el nuevo como un único delta atómico
+            int delta = efectoEnStock(movimientoExistente) - efectoEnStock(anterior);
+            int deltaVendidas = unidadesVendidas(movimientoExistente) - unidadesVendidas(anterior);
+            if (delta != 0 || deltaVendidas != 0) {
+                productoService.ajustarStock(idProducto, delta, deltaVendidas, StockLog.ACTUALIZACION);
             }
-            producto.setStock(producto.getStock() - movimientoActualizado.getCantidad());
-        }
 
-        // Guardar los cambios en el producto y el movimiento
-        productoRepository.guardar(producto);
-        movimientoExistente.setCantidad(movimientoActualizado.getCantidad());
-        movimientoExistente.setTipo(movimientoActualizado.getTipo());
-        movimientoExistente.setDescripcion(movimientoActualizado.getDescripcion());
+            resumenMovimientos.acumular(List.of(movimientoExistente), List.of(anterior));
+            stockHistorico.corregirInstantaneas(List.of(movimientoExistente), List.of(anterior));
+            return movimientoExistente;
+        });
+    }
 
-        return movimientoRepository.guardar(movimientoExistente);
+    /**
+     * Variación que un movimiento produce sobre el stock: positiva para entradas, negativa para salidas.
+     */
+    private int efectoEnStock(Movimiento movimiento) {
+        if (movimiento.getTipo() == Movimiento.TipoMovimiento.ENTRADA) {
+            return movimiento.getCantidad();
+        } else if (movimiento.getTipo() == Movimiento.TipoMovimiento.SALIDA) {
+            return -movimiento.getCantidad();
+        }
+        return 0;
+    }
+
+    /**
+     * Unidades que un movimiento suma al acumulado de ventas del producto: sólo cuentan las salidas.
+     */
+    private int unidadesVendidas(Movimiento movimiento) {
+        return movimiento.getTipo() == Movimiento.TipoMovimiento.SALIDA ? movimiento.getCantidad() : 0;
     }
 
     /**
@@ -185,26 +360,7 @@ public class MovimientoService implements MovimientoUseCase {
      */
     @Override
     public void recalcularFactorDeRotacion(Long idProducto) {
-        Producto producto = productoRepository.buscarPorId(idProducto)
-                .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado"));
-
-        // Obtener todos los movimientos del producto
-        List<Movimiento> movimientos = movimientoRepository.buscarPorProductoId(idProducto);
-
-        // Calcular la cantidad total vendida (solo salidas)
-        int totalVendidas = 0;
-        for (Movimiento movimiento : movimientos) {
-            if (movimiento.getTipo() == Movimiento.TipoMovimiento.SALIDA) {
-                totalVendidas += movimiento.getCantidad();
-            }
-        }
-
-        // Calcular el factor de rotación simple
-        double stockPromedio = producto.getStock();  // En entornos reales, se debería calcular con base en históricos
-        double factorDeRotacion = stockPromedio != 0 ? totalVendidas / stockPromedio : 0;
-
-        // Guardar el nuevo factor de rotación
-        producto.setFactorDeRotacion(factorDeRotacion);
-        productoRepository.guardar(producto);
+        // Misma fórmula que tras cada movimiento; no recorre el histórico
+        productoService.recalcularFactorDeRotacion(idProducto);
     }
 }
@@ -1,15 +1,26 @@
 package com.example.inventario.application.service;
 
 import com.example.inventario.domain.exceptions.ProductoNotFoundException;
+import com.example.inventario.domain.model.AjusteStock;
+import com.example.inventario.domain.model.CursorKardex;
+import com.example.inventario.domain.model.CursorStockBajo;
+import com.example.inventario.domain.model.LineaKardex;
+import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Pagina;
 import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.model.StockEnFecha;
 import com.example.inventario.domain.ports.in.ProductoUseCase;
-import com.example.inventario.domain.ports.out.MovimientoRepositoryPort;
 import com.example.inventario.domain.ports.out.ProductoRepositoryPort;
+import com.example.inventario.domain.ports.out.RegistrarAuditoriaStockPort;
+import com.example.inventario.domain.ports.out.StockHistoricoPort;
 import com.example.inventario.infrastructure.adapters.in.dto.MovimientoDTO;
 import com.example.inventario.infrastructure.adapters.in.dto.ResultadoOperacionDTO;
+import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -19,14 +30,19 @@ import java.util.List;
 public class ProductoService implements ProductoUseCase {
 
     private final ProductoRepositoryPort repository;
-    private final MovimientoRepositoryPort movimientoRepositoryPort;
+    private final RotacionDiferida rotacionDiferida;
+    private final RegistrarAuditoriaStockPort auditoriaStockPort;
+    private final StockHistoricoPort stockHistorico;
 
     @Autowired
     private StockService stockService;
 
-    public ProductoService(ProductoRepositoryPort repository, MovimientoRepositoryPort movimientoRepositoryPort) {
+    public ProductoService(ProductoRepositoryPort repository, RotacionDiferida rotacionDiferida,
+                           RegistrarAuditoriaStockPort auditoriaStockPort, StockHistoricoPort stockHistorico) {
         this.repository = repository;
-        this.movimientoRepositoryPort = movimientoRepositoryPort;
+        this.rotacionDiferida = rotacionDiferida;
+        this.auditoriaStockPort = auditoriaStockPort;
+        this.stockHistorico = stockHistorico;
     }
 
     /**
@@ -55,24 +71,43 @@ public class ProductoService implements ProductoUseCase {
     }
 
     /**
-     * Busca productos por nombre, categoría y/o código.
+     * Busca productos por nombre, categoría y/o código, ordenados por relevancia y limitados a "limite".
      */
     @Override
-    public List<Producto> buscarProductos(String nombre, String categoria, String codigo) {
-        return repository.buscarPorCriterios(nombre, categoria, codigo);
+    public List<Producto> buscarProductos(String nombre, String categoria, String codigo, int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser al menos 1.");
+        }
+        return repository.buscarPorCriterios(nombre, categoria, codigo, limite);
     }
 
     /**
-     * Actualiza los datos de un producto, manteniendo su ID y fecha de creación.
+     * Actualiza los datos descriptivos de un producto. El stock no se edita aquí: sólo cambia con
+     * movimientos, que dejan auditoría y resumen diario y mantienen el kardex cuadrado (inventario
+     * inicial más movimientos). Se conservan también el ID, la fecha de creación, el inventario inicial,
+     * los datos derivados de las ventas y, si no se envía, el stock mínimo. Si el cliente envía la
+     * versión que leyó y el producto cambió desde entonces, el guardado falla con un conflicto; sin
+     * versión se toma la leída (y con la estrategia pesimista, bloqueada) en esta transacción.
      */
     @Override
+    @Transactional
     public Producto actualizarProducto(Long id, Producto producto) {
-        Producto productoExistente = repository.buscarPorId(id)
+        Producto productoExistente = repository.buscarPorIdParaModificar(id)
                 .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado"));
 
-        // Mantener la fecha original de creación y el ID
+        // Mantener el ID, la fecha original de creación, el stock y lo que se calcula a partir de los movimientos
         producto.setId(id);
         producto.setFechaCreacion(productoExistente.getFechaCreacion());
+        producto.setStock(productoExistente.getStock());
+        producto.setInventarioInicial(productoExistente.getInventarioInicial());
+        producto.setUnidadesVendidas(productoExistente.getUnidadesVendidas());
+        producto.setFactorDeRotacion(productoExistente.getFactorDeRotacion());
+        if (producto.getStockMinimo() == null) {
+            producto.setStockMinimo(productoExistente.getStockMinimo());
+        }
+        if (producto.getVersion() == null) {
+            producto.setVersion(productoExistente.getVersion());
+        }
 
         return repository.guardar(producto);
     }
@@ -93,16 +128,11 @@ public class ProductoService implements ProductoUseCase {
      */
     @Override
     public Producto entradaStock(Long idProducto, int cantidad) {
-        Producto producto = obtenerProductoPorId(idProducto);
-
         if (cantidad <= 0) {
             throw new IllegalArgumentException("La cantidad de entrada debe ser positiva.");
         }
 
-        producto.setStock(producto.getStock() + cantidad);
-        repository.guardar(producto);
-
-        return recalcularFactorDeRotacion(idProducto);
+        return ajustarStock(idProducto, cantidad, 0, Movimiento.TipoMovimiento.ENTRADA.name());
     }
 
     /**
@@ -110,34 +140,145 @@ public class ProductoService implements ProductoUseCase {
      */
     @Override
     public Producto salidaStock(Long idProducto, int cantidad) {
-        Producto producto = obtenerProductoPorId(idProducto);
-
         if (cantidad <= 0) {
             throw new IllegalArgumentException("La cantidad de salida debe ser positiva.");
         }
 
-        if (producto.getStock() < cantidad) {
-            throw new IllegalArgumentException("No hay suficiente stock para esta salida.");
+        return ajustarStock(idProducto, -cantidad, cantidad, Movimiento.TipoMovimiento.SALIDA.name());
+    }
+
+    /**
+     * Aplica los deltas en la base de datos con una única sentencia condicional,
+     * de modo que escrituras concurrentes sobre el mismo producto no se pisen.
+     * La auditoría toma el stock anterior y el nuevo de esa misma sentencia.
+     */
+    @Override
+    public Producto ajustarStock(Long idProducto, int deltaStock, int deltaVendidas, String operacion) {
+        AjusteStock ajuste = repository.ajustarStock(idProducto, deltaStock, deltaVendidas)
+                .orElseThrow(() -> stockNoAjustable(idProducto));
+
+        auditoriaStockPort.registrarLog(ajuste.registro(idProducto, operacion));
+
+        return recalcularFactorDeRotacion(idProducto, ajuste);
+    }
+
+    /**
+     * El UPDATE condicional no distingue un producto inexistente de uno sin stock;
+     * sólo en ese caso (poco frecuente) se consulta el producto.
+     */
+    private RuntimeException stockNoAjustable(Long idProducto) {
+        if (repository.buscarPorId(idProducto).isEmpty()) {
+            return new ProductoNotFoundException("Producto no encontrado");
+        }
+        return new IllegalArgumentException("No hay suficiente stock para esta salida.");
+    }
+
+    /**
+     * Devuelve una página de productos con stock bajo a continuación del cursor recibido. La consulta
+     * sólo recorre el índice parcial de productos bajos, no el catálogo completo.
+     */
+    @Override
+    public Pagina<Producto> buscarProductosStockBajo(String cursor, int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser al menos 1.");
+        }
+        CursorStockBajo despuesDe = cursor == null || cursor.isBlank() ? null : CursorStockBajo.decodificar(cursor);
+        return repository.buscarStockBajo(despuesDe, limite);
+    }
+
+    /**
+     * Stock de un producto al cierre de un día pasado (o lo que va de hoy).
+     */
+    @Override
+    public StockEnFecha obtenerStockEnFecha(Long idProducto, LocalDate fecha) {
+        validarFecha(fecha);
+        return stockHistorico.buscarStockAlCierre(idProducto, fecha)
+                .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado"));
+    }
+
+    /**
+     * Stock de todo el catálogo al cierre de un día, por orden de ID. El cursor es el ID del último
+     * producto de la página anterior.
+     */
+    @Override
+    public Pagina<StockEnFecha> obtenerStockCatalogoEnFecha(LocalDate fecha, String cursor, int limite) {
+        validarFecha(fecha);
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser al menos 1.");
+        }
+        Long despuesDe = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                despuesDe = Long.valueOf(cursor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor no válido: " + cursor);
+            }
+        }
+
+        // Se pide uno más para saber si hay otra página
+        List<StockEnFecha> filas = stockHistorico.buscarStockCatalogoAlCierre(fecha, despuesDe, limite + 1);
+        if (filas.size() <= limite) {
+            return new Pagina<>(filas, null);
         }
+        List<StockEnFecha> elementos = filas.subList(0, limite);
+        return new Pagina<>(elementos, String.valueOf(elementos.get(limite - 1).getIdProducto()));
+    }
 
-        producto.setStock(producto.getStock() - cantidad);
-        repository.guardar(producto);
+    /**
+     * Kardex del producto: sus movimientos en orden (fecha, id) con el saldo tras cada uno. La primera
+     * página calcula el saldo de apertura en "desde"; las siguientes lo reciben en el cursor, así que
+     * cada página cuesta lo mismo sea cual sea su posición en el histórico.
+     */
+    @Override
+    public Pagina<LineaKardex> obtenerKardex(Long idProducto, LocalDateTime desde, LocalDateTime hasta, String cursor, int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser al menos 1.");
+        }
+        if (desde != null && hasta != null && !desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("La fecha 'desde' debe ser anterior a 'hasta'.");
+        }
+        CursorKardex despuesDe = cursor != null && !cursor.isBlank() ? CursorKardex.decodificar(cursor)
+                : stockHistorico.buscarInicioKardex(idProducto, desde)
+                        .orElseThrow(() -> new ProductoNotFoundException("Producto no encontrado"));
+
+        // Se pide uno más para saber si hay otra página
+        List<LineaKardex> lineas = stockHistorico.buscarKardex(idProducto, despuesDe, hasta, limite + 1);
+        if (lineas.size() <= limite) {
+            return new Pagina<>(lineas, null);
+        }
+        List<LineaKardex> elementos = lineas.subList(0, limite);
+        return new Pagina<>(elementos, CursorKardex.de(elementos.get(limite - 1)).codificar());
+    }
 
-        return recalcularFactorDeRotacion(idProducto);
+    private static void validarFecha(LocalDate fecha) {
+        if (fecha == null) {
+            throw new IllegalArgumentException("La fecha es obligatoria.");
+        }
+        if (fecha.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("La fecha no puede ser futura.");
+        }
     }
 
     /**
-     * Verifica si el producto está por debajo del stock mínimo definido.
+     * Verifica si el producto está por debajo de su stock mínimo.
      */
     @Override
     public ResultadoOperacionDTO verificarStockMinimo(Long idProducto, MovimientoDTO movimiento) {
+        return verificarStockMinimo(obtenerProductoPorId(idProducto), movimiento);
+    }
+
+    /**
+     * Igual que {@link #verificarStockMinimo(Long, MovimientoDTO)} pero sobre un producto ya cargado,
+     * p. ej. el que devuelve la creación de un movimiento, evitando otra lectura.
+     */
+    @Override
+    public ResultadoOperacionDTO verificarStockMinimo(Producto producto, MovimientoDTO movimiento) {
         ResultadoOperacionDTO resultado = new ResultadoOperacionDTO();
-        Producto producto = obtenerProductoPorId(idProducto);
 
-        int umbralStockBajo = 10; // Umbral definido para notificar stock bajo
+        int umbralStockBajo = producto.stockMinimoAplicado(); // Umbral propio de cada producto
 
         resultado.setMovimiento(movimiento);
-        resultado.setStockBajo(producto.getStock() < umbralStockBajo);
+        resultado.setStockBajo(producto.esStockBajo());
         resultado.setCantidad(producto.getStock());
         resultado.setNombreProducto(producto.getNombre());
 
@@ -152,20 +293,34 @@ public class ProductoService implements ProductoUseCase {
      */
     @Override
     public Producto recalcularFactorDeRotacion(Long idProducto) {
-        Producto producto = obtenerProductoPorId(idProducto);
+        return actualizarFactorDeRotacion(obtenerProductoPorId(idProducto));
+    }
 
-        // Costo de ventas acumulado (salidas * precio/costo unitario)
-        double costoVentas = movimientoRepositoryPort.sumarCostoVentasPorProducto(idProducto);
+    /**
+     * Parte de la copia del producto con los valores que devolvió el UPDATE: si el producto ya se
+     * había leído en esta transacción, la lectura podría traer el stock y las ventas anteriores.
+     */
+    @Override
+    public Producto recalcularFactorDeRotacion(Long idProducto, AjusteStock ajuste) {
+        return actualizarFactorDeRotacion(ajuste.aplicarA(obtenerProductoPorId(idProducto)));
+    }
 
-        // Valores requeridos para el cálculo del inventario promedio
-        double inventarioInicial = producto.getInventarioInicial();
-        double inventarioFinal = producto.getStock();
-        double inventarioPromedio = (inventarioInicial + inventarioFinal) / 2.0;
+    /**
+     * O(1): parte del acumulado de unidades vendidas que mantiene el propio UPDATE de stock,
+     * sin recorrer el histórico de movimientos. Con la rotación diferida activa sólo se marca el
+     * producto y se devuelve con el último factor calculado.
+     */
+    private Producto actualizarFactorDeRotacion(Producto producto) {
+        if (rotacionDiferida.isActiva()) {
+            rotacionDiferida.marcar(producto.getId());
+            return producto;
+        }
 
-        // Cálculo del factor de rotación
-        double rotacion = inventarioPromedio > 0 ? costoVentas / inventarioPromedio : 0.0;
+        double rotacion = producto.calcularFactorDeRotacion();
 
+        // Sólo se escribe la columna del factor para no sobrescribir el stock con un valor leído antes
         producto.setFactorDeRotacion(rotacion);
-        return repository.guardar(producto);
+        repository.actualizarFactorDeRotacion(producto.getId(), rotacion);
+        return producto;
     }
 }
@@ -0,0 +1,231 @@
+package com.example.inventario.application.service;
+
+import com.example.inventario.domain.model.CursorStockBajo;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.model.VentasRecientes;
+import com.example.inventario.domain.ports.out.MovimientoRepositoryPort;
+import com.example.inventario.domain.ports.out.ProductoRepositoryPort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decide qué verificaciones de stock bajo llegan a los observadores. Un producto entra en alerta
+ * cuando su stock baja del mínimo o cuando, al ritmo de venta reciente, le quedan menos días de
+ * cobertura de los configurados; sólo ese cambio de estado genera un aviso. Para salir de la alerta
+ * tiene que superar el mínimo con un margen (histéresis), y un producto que entra y sale no avisa
+ * de nuevo hasta pasado el tiempo de enfriamiento. Así el número de avisos depende de los cambios
+ * de estado y no del número de movimientos.
+ *
+ * <p>El estado vive en memoria, una entrada pequeña por producto, y se reconstruye al arrancar a
+ * partir de las salidas recientes y de los productos que ya están por debajo de su mínimo.
+ */
+@Component
+public class ReglasAlertaStock {
+
+    private static final Logger log = LoggerFactory.getLogger(ReglasAlertaStock.class);
+
+    private static final double DIA_MS = 24 * 60 * 60 * 1000.0;
+    private static final int PAGINA_RECUPERACION = 1000;
+
+    private final ProductoRepositoryPort productoRepository;
+    private final MovimientoRepositoryPort movimientoRepository;
+    private final double margenRecuperacion;
+    private final long enfriamientoMs;
+    private final double diasCobertura;
+    private final long ventanaVentasMs;
+
+    private final Map<Long, EstadoAlerta> estados = new ConcurrentHashMap<>();
+    private final AtomicInteger activas = new AtomicInteger();
+    private final Counter emitidas;
+    private final Counter suprimidas;
+
+    public ReglasAlertaStock(ProductoRepositoryPort productoRepository, MovimientoRepositoryPort movimientoRepository,
+                             MeterRegistry registry,
+                             @Value("${app.alertas.margen-recuperacion:0.2}") double margenRecuperacion,
+                             @Value("${app.alertas.enfriamiento-ms:3600000}") long enfriamientoMs,
+                             @Value("${app.alertas.dias-cobertura:3}") double diasCobertura,
+                             @Value("${app.alertas.ventana-ventas-ms:86400000}") long ventanaVentasMs) {
+        this.productoRepository = productoRepository;
+        this.movimientoRepository = movimientoRepository;
+        this.margenRecuperacion = margenRecuperacion;
+        this.enfriamientoMs = enfriamientoMs;
+        this.diasCobertura = diasCobertura;
+        this.ventanaVentasMs = ventanaVentasMs;
+
+        Gauge.builder("inventario.alertas.activas", activas, AtomicInteger::get)
+                .description("Productos en alerta de stock")
+                .register(registry);
+        Gauge.builder("inventario.alertas.estados", estados, Map::size)
+                .description("Productos con estado de alerta en memoria")
+                .register(registry);
+        this.emitidas = Counter.builder("inventario.alertas.emitidas")
+                .description("Avisos de stock bajo enviados a los observadores")
+                .register(registry);
+        this.suprimidas = Counter.builder("inventario.alertas.suprimidas")
+                .description("Verificaciones en alerta que no generaron aviso (ya avisado o en enfriamiento)")
+                .register(registry);
+    }
+
+    /**
+     * Evalúa el producto tras un movimiento y devuelve true si hay que avisar a los observadores.
+     */
+    public boolean evaluar(Producto producto, int umbral) {
+        return evaluar(producto, umbral, System.currentTimeMillis());
+    }
+
+    // Igual, con el instante (epoch ms) indicado
+    public boolean evaluar(Producto producto, int umbral, long ahora) {
+        EstadoAlerta estado = estados.computeIfAbsent(producto.getId(), id -> new EstadoAlerta(producto.getUnidadesVendidas(), ahora));
+        boolean avisar;
+        // Bloqueo por producto, sólo en memoria y sin E/S: movimientos de productos distintos no compiten
+        synchronized (estado) {
+            estado.registrarVentas(producto.getUnidadesVendidas(), ahora, ventanaVentasMs);
+            avisar = decidir(estado, producto.getStock(), umbral, ahora);
+        }
+        if (avisar) {
+            emitidas.increment();
+        } else if (estado.enAlerta) {
+            suprimidas.increment();
+        }
+        return avisar;
+    }
+
+    private boolean decidir(EstadoAlerta estado, int stock, int umbral, long ahora) {
+        if (!estado.enAlerta) {
+            if (!enAlerta(estado, stock, umbral)) {
+                return false;
+            }
+            estado.enAlerta = true;
+            estado.avisada = false;
+            activas.incrementAndGet();
+        } else if (recuperado(estado, stock, umbral)) {
+            estado.enAlerta = false;
+            activas.decrementAndGet();
+            return false;
+        }
+
+        // Un aviso por episodio, y nunca dos seguidos dentro del enfriamiento aunque el producto oscile
+        if (estado.avisada || ahora - estado.ultimoAvisoMs < enfriamientoMs) {
+            return false;
+        }
+        estado.avisada = true;
+        estado.ultimoAvisoMs = ahora;
+        return true;
+    }
+
+    private boolean enAlerta(EstadoAlerta estado, int stock, int umbral) {
+        return stock < umbral || (diasCobertura > 0 && diasDeCobertura(estado, stock) < diasCobertura);
+    }
+
+    private boolean recuperado(EstadoAlerta estado, int stock, int umbral) {
+        int marcaRecuperacion = umbral + Math.max(1, (int) Math.ceil(umbral * margenRecuperacion));
+        return stock >= marcaRecuperacion
+                && (diasCobertura <= 0 || diasDeCobertura(estado, stock) >= diasCobertura * (1 + margenRecuperacion));
+    }
+
+    private double diasDeCobertura(EstadoAlerta estado, int stock) {
+        double porDia = estado.ventas / ventanaVentasMs * DIA_MS;
+        return porDia > 0 ? stock / porDia : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Reconstruye el estado al arrancar. Los productos que ya estaban en alerta se dan por avisados,
+     * para no repetir tras cada reinicio los avisos de todo el catálogo bajo. Una evaluación en curso
+     * tiene prioridad sobre lo recuperado.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recuperarEstado() {
+        try {
+            long ahora = System.currentTimeMillis();
+            int recuperados = 0;
+
+            LocalDateTime desde = LocalDateTime.now().minusNanos(ventanaVentasMs * 1_000_000);
+            for (VentasRecientes ventas : movimientoRepository.buscarVentasDesde(desde)) {
+                EstadoAlerta estado = new EstadoAlerta(ventas.getUnidadesVendidas(), ahora);
+                estado.ventas = ventas.getUnidades();
+                if (enAlerta(estado, ventas.getStock(), ventas.getStockMinimo())) {
+                    estado.marcarAvisada(ahora - enfriamientoMs);
+                }
+                recuperados += recuperar(ventas.getIdProducto(), estado);
+            }
+
+            CursorStockBajo cursor = null;
+            Pagina<Producto> pagina;
+            do {
+                pagina = productoRepository.buscarStockBajo(cursor, PAGINA_RECUPERACION);
+                for (Producto producto : pagina.getElementos()) {
+                    EstadoAlerta estado = new EstadoAlerta(producto.getUnidadesVendidas(), ahora);
+                    estado.marcarAvisada(ahora - enfriamientoMs);
+                    recuperados += recuperar(producto.getId(), estado);
+                }
+                cursor = pagina.hayMas() ? CursorStockBajo.decodificar(pagina.getSiguienteCursor()) : null;
+            } while (cursor != null);
+
+            log.info("Estado de alertas de stock recuperado: {} productos, {} en alerta", recuperados, activas.get());
+        } catch (RuntimeException e) {
+            // Sin estado previo sólo se repite algún aviso; la aplicación puede seguir
+            log.warn("No se pudo recuperar el estado de las alertas de stock", e);
+        }
+    }
+
+    private int recuperar(Long idProducto, EstadoAlerta estado) {
+        if (estados.putIfAbsent(idProducto, estado) != null) {
+            return 0;
+        }
+        if (estado.enAlerta) {
+            activas.incrementAndGet();
+        }
+        return 1;
+    }
+
+    /**
+     * Estado de un producto. Las ventas se acumulan con decaimiento exponencial (constante de tiempo
+     * ventanaVentasMs): su valor se aproxima a las unidades salidas en la última ventana sin guardar
+     * el histórico de movimientos.
+     */
+    private static final class EstadoAlerta {
+
+        private boolean enAlerta;
+        private boolean avisada;
+        private long ultimoAvisoMs = Long.MIN_VALUE / 2;
+        private long unidadesVendidas;
+        private double ventas;
+        private long actualizadoMs;
+
+        private EstadoAlerta(long unidadesVendidas, long ahora) {
+            this.unidadesVendidas = unidadesVendidas;
+            this.actualizadoMs = ahora;
+        }
+
+        private void marcarAvisada(long ultimoAvisoMs) {
+            this.enAlerta = true;
+            this.avisada = true;
+            this.ultimoAvisoMs = ultimoAvisoMs;
+        }
+
+        // Los movimientos concurrentes pueden llegar desordenados: sólo cuenta lo que supera el máximo visto
+        private void registrarVentas(long vendidasAhora, long ahora, long ventanaMs) {
+            if (ahora > actualizadoMs) {
+                ventas *= Math.exp(-(double) (ahora - actualizadoMs) / ventanaMs);
+                actualizadoMs = ahora;
+            }
+            if (vendidasAhora > unidadesVendidas) {
+                ventas += vendidasAhora - unidadesVendidas;
+                unidadesVendidas = vendidasAhora;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.inventario.application.service;
+
+import com.example.inventario.domain.model.CursorResumen;
+import com.example.inventario.domain.model.FiltroResumen;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.ResumenDiario;
+import com.example.inventario.domain.ports.in.ReporteUseCase;
+import com.example.inventario.domain.ports.out.ResumenMovimientosPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Informes de movimientos, calculados sobre el resumen diario que MovimientoService mantiene con
+ * cada alta, cambio o baja (ver {@link ResumenMovimientosPort}); nunca recorren movimiento.
+ */
+@Service
+public class ReporteService implements ReporteUseCase {
+
+    private static final Logger log = LoggerFactory.getLogger(ReporteService.class);
+
+    private final ResumenMovimientosPort resumenMovimientos;
+    private final int diasMaximos;
+
+    public ReporteService(ResumenMovimientosPort resumenMovimientos,
+                          @Value("${app.reportes.dias-maximos:366}") int diasMaximos) {
+        this.resumenMovimientos = resumenMovimientos;
+        this.diasMaximos = diasMaximos;
+    }
+
+    /**
+     * Página del resumen diario. Sin fechas se devuelven los últimos 30 días; el rango se limita al
+     * máximo configurado para que un informe no recorra años de resumen.
+     */
+    @Override
+    public Pagina<ResumenDiario> buscarMovimientosDiarios(FiltroResumen filtro, String cursor, int limite) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser al menos 1.");
+        }
+        LocalDate hasta = filtro.getHasta() != null ? filtro.getHasta() : LocalDate.now();
+        LocalDate desde = filtro.getDesde() != null ? filtro.getDesde() : hasta.minusDays(29);
+        validarRango(desde, hasta);
+        if (ChronoUnit.DAYS.between(desde, hasta) >= diasMaximos) {
+            throw new IllegalArgumentException("El rango no puede superar " + diasMaximos + " días.");
+        }
+        ResumenDiario.Agrupacion agrupacion = filtro.getAgrupacion() != null ? filtro.getAgrupacion() : ResumenDiario.Agrupacion.PRODUCTO;
+
+        CursorResumen despuesDe = cursor == null || cursor.isBlank() ? null : CursorResumen.decodificar(cursor);
+        return resumenMovimientos.buscarPagina(
+                new FiltroResumen(filtro.getProductoId(), filtro.getCategoria(), desde, hasta, agrupacion), despuesDe, limite);
+    }
+
+    /**
+     * Reconstruye el resumen mes a mes, cada mes en su propia transacción: los movimientos nuevos
+     * sólo esperan a que termine el mes en curso, no la reconstrucción completa.
+     */
+    @Override
+    public int reconstruirMovimientosDiarios(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null) {
+            throw new IllegalArgumentException("Las fechas 'desde' y 'hasta' son obligatorias.");
+        }
+        validarRango(desde, hasta);
+
+        int filas = 0;
+        for (LocalDate inicio = desde; !inicio.isAfter(hasta); inicio = inicio.withDayOfMonth(1).plusMonths(1)) {
+            LocalDate finDeMes = inicio.withDayOfMonth(inicio.lengthOfMonth());
+            LocalDate fin = finDeMes.isBefore(hasta) ? finDeMes : hasta;
+            int escritas = resumenMovimientos.reconstruir(inicio, fin);
+            log.info("Resumen diario de movimientos reconstruido del {} al {}: {} filas", inicio, fin, escritas);
+            filas += escritas;
+        }
+        return filas;
+    }
+
+    private static void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha 'desde' no puede ser posterior a 'hasta'.");
+        }
+    }
+}
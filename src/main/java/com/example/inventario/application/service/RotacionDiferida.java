@@ -0,0 +1,124 @@
+package com.example.inventario.application.service;
+
+import com.example.inventario.domain.ports.out.ProductoRepositoryPort;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recalcula el factor de rotación en segundo plano. Cada cambio de stock sólo marca el producto;
+ * al cerrar cada ventana se recalcula una vez cada producto marcado, por muchos movimientos que
+ * haya recibido. Desactivada por defecto (app.rotacion.diferida=false): entonces la rotación se
+ * escribe en el propio movimiento.
+ */
+@Component
+public class RotacionDiferida implements SchedulingConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(RotacionDiferida.class);
+
+    private final ProductoRepositoryPort repository;
+    private final boolean activa;
+    private final long ventanaMs;
+
+    // Producto pendiente -> instante (System.nanoTime) en que se marcó por primera vez en la ventana
+    private final Map<Long, Long> pendientes = new ConcurrentHashMap<>();
+    private final Timer retraso;
+
+    public RotacionDiferida(ProductoRepositoryPort repository, MeterRegistry registry,
+                            @Value("${app.rotacion.diferida:false}") boolean activa,
+                            @Value("${app.rotacion.ventana-ms:1000}") long ventanaMs) {
+        this.repository = repository;
+        this.activa = activa;
+        this.ventanaMs = ventanaMs;
+
+        Gauge.builder("inventario.rotacion.pendientes", pendientes, Map::size)
+                .description("Productos con la rotación pendiente de recalcular")
+                .register(registry);
+        Gauge.builder("inventario.rotacion.retraso.maximo", this, RotacionDiferida::retrasoMaximoSegundos)
+                .description("Antigüedad del producto que más tiempo lleva pendiente")
+                .baseUnit("seconds")
+                .register(registry);
+        this.retraso = Timer.builder("inventario.rotacion.retraso")
+                .description("Tiempo entre el primer cambio de stock y el recálculo de la rotación")
+                .register(registry);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        if (activa) {
+            registrar.addFixedDelayTask(this::procesarPendientes, Duration.ofMillis(ventanaMs));
+        }
+    }
+
+    public boolean isActiva() {
+        return activa;
+    }
+
+    /**
+     * Marca el producto como pendiente. Dentro de una transacción la marca se aplica al confirmarla:
+     * antes, el recálculo podría leer el stock anterior y el cambio se perdería hasta el siguiente movimiento.
+     */
+    public void marcar(Long idProducto) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendientes.putIfAbsent(idProducto, System.nanoTime());
+                }
+            });
+        } else {
+            pendientes.putIfAbsent(idProducto, System.nanoTime());
+        }
+    }
+
+    /**
+     * Recalcula una vez cada producto pendiente. Un producto marcado de nuevo durante el recálculo
+     * queda para la ventana siguiente. Se lee sin caché: la marca se pone al confirmar, pero la caché
+     * sólo se descarta al completar la transacción, y entre ambos momentos guarda el stock anterior.
+     */
+    public void procesarPendientes() {
+        for (Long idProducto : pendientes.keySet()) {
+            Long marcado = pendientes.remove(idProducto);
+            if (marcado == null) {
+                continue;
+            }
+            try {
+                repository.buscarPorIdSinCache(idProducto).ifPresent(producto ->
+                        repository.actualizarFactorDeRotacion(idProducto, producto.calcularFactorDeRotacion()));
+                retraso.record(System.nanoTime() - marcado, TimeUnit.NANOSECONDS);
+            } catch (RuntimeException e) {
+                log.warn("No se pudo recalcular la rotación del producto {}", idProducto, e);
+            }
+        }
+    }
+
+    /**
+     * Al apagar se vacía la cola para no perder los productos marcados en la última ventana.
+     */
+    @PreDestroy
+    void detener() {
+        procesarPendientes();
+    }
+
+    private double retrasoMaximoSegundos() {
+        long ahora = System.nanoTime();
+        return pendientes.values().stream()
+                .mapToLong(marcado -> ahora - marcado)
+                .max()
+                .orElse(0L) / 1e9;
+    }
+}
@@ -21,6 +21,9 @@ public class StockService {
     // Servicio encargado de enviar notificaciones (correo, SMS, etc.)
     private NotificationService notificationService;
 
+    // Reglas que filtran los avisos repetidos; null para avisar en cada verificación bajo el umbral
+    private ReglasAlertaStock reglas;
+
     /**
      * Constructor que inyecta las dependencias necesarias.
      *
@@ -32,15 +35,29 @@ public class StockService {
         this.notificationService = notificationService;
     }
 
+    /**
+     * Constructor con reglas de alerta: sólo se notifica cuando el producto entra en alerta.
+     *
+     * @param stockSubject objeto que gestiona los observadores
+     * @param notificationService servicio de notificaciones
+     * @param reglas reglas de histéresis, enfriamiento y días de cobertura
+     */
+    public StockService(StockSubject stockSubject, NotificationService notificationService, ReglasAlertaStock reglas) {
+        this(stockSubject, notificationService);
+        this.reglas = reglas;
+    }
+
     /**
      * Verifica si el stock de un producto está por debajo de un umbral determinado.
-     * Si el stock es bajo, se dispara una notificación a los observadores registrados.
+     * Si el stock es bajo, se dispara una notificación a los observadores registrados;
+     * con reglas de alerta, sólo cuando el producto pasa a estar en alerta.
      *
      * @param producto el producto a evaluar
      * @param umbral el valor mínimo aceptable de stock
      */
     public void verificarStockBajo(Producto producto, int umbral) {
-        if (producto.esStockBajo(umbral)) {
+        boolean avisar = reglas != null ? reglas.evaluar(producto, umbral) : producto.esStockBajo(umbral);
+        if (avisar) {
             stockSubject.notificarObservadores(
                     producto.getId(),
                     producto.getNombre(),
@@ -0,0 +1,13 @@
+package com.example.inventario.domain.exceptions;
+
+/**
+ * Otra operación cambió el mismo producto o movimiento a la vez y no se pudo aplicar el cambio:
+ * se agotaron los reintentos (estrategia optimista), se superó la espera por el bloqueo (estrategia
+ * pesimista) o la versión enviada por el cliente ya no es la actual.
+ */
+public class ConflictoConcurrenciaException extends RuntimeException {
+
+    public ConflictoConcurrenciaException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.inventario.domain.exceptions;
+
+/**
+ * Ya hay en curso tantas exportaciones como permite app.movimientos.export.maximo-simultaneas: cada
+ * una ocupa una conexión del pool mientras dura, así que las demás deben esperar y reintentarlo.
+ */
+public class ExportacionesOcupadasException extends RuntimeException {
+
+    public ExportacionesOcupadasException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.inventario.domain.exceptions;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -12,4 +14,24 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
+
+    // Cambio concurrente sobre la misma fila: el cliente puede releer y volver a intentarlo
+    @ExceptionHandler({ConflictoConcurrenciaException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<String> handleConflicto(RuntimeException ex) {
+        String mensaje = ex instanceof ConflictoConcurrenciaException ? ex.getMessage()
+                : "El recurso fue modificado por otra operación; vuelva a leerlo e inténtelo de nuevo.";
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(mensaje);
+    }
+
+    @ExceptionHandler(ExportacionesOcupadasException.class)
+    public ResponseEntity<String> handleExportacionesOcupadas(ExportacionesOcupadasException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(ex.getMessage());
+    }
+
+    // Se superó app.concurrencia.espera-bloqueo-ms esperando a que otra operación liberara la fila
+    @ExceptionHandler(PessimisticLockingFailureException.class)
+    public ResponseEntity<String> handleBloqueo(PessimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body("El recurso está bloqueado por otra operación; inténtelo de nuevo.");
+    }
 }
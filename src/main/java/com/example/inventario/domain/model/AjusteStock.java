@@ -0,0 +1,50 @@
+package com.example.inventario.domain.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock antes y después del UPDATE atómico de stock, y acumulado de ventas resultante. Se devuelven
+ * con RETURNING porque una copia del producto leída antes en la misma transacción no los refleja, y
+ * el stock anterior sale de la misma sentencia que aplicó el cambio: es exacto aunque otros
+ * movimientos del mismo producto se ejecuten a la vez.
+ */
+public class AjusteStock {
+
+    private final int stockAnterior;
+    private final int stock;
+    private final long unidadesVendidas;
+
+    public AjusteStock(int stockAnterior, int stock, long unidadesVendidas) {
+        this.stockAnterior = stockAnterior;
+        this.stock = stock;
+        this.unidadesVendidas = unidadesVendidas;
+    }
+
+    public int getStockAnterior() { return stockAnterior; }
+
+    public int getStock() { return stock; }
+
+    public long getUnidadesVendidas() { return unidadesVendidas; }
+
+    /**
+     * Aplica los valores resultantes sobre una copia del producto.
+     */
+    public Producto aplicarA(Producto producto) {
+        producto.setStock(stock);
+        producto.setUnidadesVendidas(unidadesVendidas);
+        return producto;
+    }
+
+    /**
+     * Fila de auditoría del cambio, con el stock anterior y el nuevo tal como los dejó el UPDATE.
+     */
+    public StockLog registro(Long idProducto, String operacion) {
+        StockLog log = new StockLog();
+        log.setProductoId(idProducto);
+        log.setCantidadAnterior(stockAnterior);
+        log.setCantidadNueva(stock);
+        log.setOperacion(operacion);
+        log.setFecha(LocalDateTime.now());
+        return log;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.inventario.domain.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición en el kardex de un producto según el orden (fecha, id), con el saldo acumulado hasta
+ * ella: la página siguiente continúa la suma sin volver a leer los movimientos anteriores. Se envía
+ * al cliente como un token opaco.
+ */
+public class CursorKardex {
+
+    private final LocalDateTime fecha;
+    private final Long id;
+    private final long saldo;
+
+    public CursorKardex(LocalDateTime fecha, Long id, long saldo) {
+        this.fecha = fecha;
+        this.id = id;
+        this.saldo = saldo;
+    }
+
+    // Justo antes del primer movimiento con esa fecha (los IDs de secuencia empiezan en 1)
+    public static CursorKardex inicio(LocalDateTime fecha, long saldo) {
+        return new CursorKardex(fecha, 0L, saldo);
+    }
+
+    public static CursorKardex de(LineaKardex linea) {
+        return new CursorKardex(linea.getFecha(), linea.getIdMovimiento(), linea.getSaldo());
+    }
+
+    public String codificar() {
+        String valor = fecha + "|" + id + "|" + saldo;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorKardex decodificar(String token) {
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (partes.length != 3) {
+                throw new IllegalArgumentException(token);
+            }
+            return new CursorKardex(LocalDateTime.parse(partes[0]), Long.valueOf(partes[1]), Long.parseLong(partes[2]));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Cursor no válido: " + token);
+        }
+    }
+
+    public LocalDateTime getFecha() { return fecha; }
+
+    public Long getId() { return id; }
+
+    public long getSaldo() { return saldo; }
+}
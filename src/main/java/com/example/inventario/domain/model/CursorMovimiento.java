@@ -0,0 +1,45 @@
+package com.example.inventario.domain.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición del último movimiento de una página, según el orden (fecha, id). Se envía al cliente
+ * como un token opaco para que no dependa del formato interno.
+ */
+public class CursorMovimiento {
+
+    private final LocalDateTime fecha;
+    private final Long id;
+
+    public CursorMovimiento(LocalDateTime fecha, Long id) {
+        this.fecha = fecha;
+        this.id = id;
+    }
+
+    public static CursorMovimiento de(Movimiento movimiento) {
+        return new CursorMovimiento(movimiento.getFecha(), movimiento.getId());
+    }
+
+    public String codificar() {
+        String valor = fecha + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorMovimiento decodificar(String token) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = valor.indexOf('|');
+            return new CursorMovimiento(LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.valueOf(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Cursor no válido: " + token);
+        }
+    }
+
+    public LocalDateTime getFecha() { return fecha; }
+
+    public Long getId() { return id; }
+}
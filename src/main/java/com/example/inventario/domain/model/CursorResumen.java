@@ -0,0 +1,46 @@
+package com.example.inventario.domain.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de la última fila de una página del resumen diario, según el orden (día, clave). La clave
+ * es el ID del producto o la categoría, según la agrupación. Se envía como un token opaco.
+ */
+public class CursorResumen {
+
+    private final LocalDate dia;
+    private final String clave;
+
+    public CursorResumen(LocalDate dia, String clave) {
+        this.dia = dia;
+        this.clave = clave;
+    }
+
+    public static CursorResumen de(ResumenDiario resumen) {
+        String clave = resumen.getIdProducto() != null ? String.valueOf(resumen.getIdProducto())
+                : resumen.getCategoria() != null ? resumen.getCategoria() : "";
+        return new CursorResumen(resumen.getDia(), clave);
+    }
+
+    public String codificar() {
+        String valor = dia + "|" + clave;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorResumen decodificar(String token) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = valor.indexOf('|');
+            return new CursorResumen(LocalDate.parse(valor.substring(0, separador)), valor.substring(separador + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Cursor no válido: " + token);
+        }
+    }
+
+    public LocalDate getDia() { return dia; }
+
+    public String getClave() { return clave; }
+}
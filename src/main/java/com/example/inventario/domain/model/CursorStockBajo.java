@@ -0,0 +1,43 @@
+package com.example.inventario.domain.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición del último producto de una página de stock bajo, según el orden (faltante, id)
+ * descendente. Se envía al cliente como un token opaco, igual que {@link CursorMovimiento}.
+ */
+public class CursorStockBajo {
+
+    private final int faltante;
+    private final Long id;
+
+    public CursorStockBajo(int faltante, Long id) {
+        this.faltante = faltante;
+        this.id = id;
+    }
+
+    public static CursorStockBajo de(Producto producto) {
+        return new CursorStockBajo(producto.getFaltante(), producto.getId());
+    }
+
+    public String codificar() {
+        String valor = faltante + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorStockBajo decodificar(String token) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = valor.indexOf('|');
+            return new CursorStockBajo(Integer.parseInt(valor.substring(0, separador)),
+                    Long.valueOf(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Cursor no válido: " + token);
+        }
+    }
+
+    public int getFaltante() { return faltante; }
+
+    public Long getId() { return id; }
+}
@@ -0,0 +1,30 @@
+package com.example.inventario.domain.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Criterios opcionales para listar movimientos. Un campo null no filtra;
+ * el rango de fechas incluye "desde" y excluye "hasta".
+ */
+public class FiltroMovimientos {
+
+    private final Long productoId;
+    private final Movimiento.TipoMovimiento tipo;
+    private final LocalDateTime desde;
+    private final LocalDateTime hasta;
+
+    public FiltroMovimientos(Long productoId, Movimiento.TipoMovimiento tipo, LocalDateTime desde, LocalDateTime hasta) {
+        this.productoId = productoId;
+        this.tipo = tipo;
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    public Long getProductoId() { return productoId; }
+
+    public Movimiento.TipoMovimiento getTipo() { return tipo; }
+
+    public LocalDateTime getDesde() { return desde; }
+
+    public LocalDateTime getHasta() { return hasta; }
+}
@@ -0,0 +1,34 @@
+package com.example.inventario.domain.model;
+
+import java.time.LocalDate;
+
+/**
+ * Criterios del resumen diario de movimientos. Producto y categoría son opcionales (null no filtra);
+ * el rango de días incluye "desde" y "hasta".
+ */
+public class FiltroResumen {
+
+    private final Long productoId;
+    private final String categoria;
+    private final LocalDate desde;
+    private final LocalDate hasta;
+    private final ResumenDiario.Agrupacion agrupacion;
+
+    public FiltroResumen(Long productoId, String categoria, LocalDate desde, LocalDate hasta, ResumenDiario.Agrupacion agrupacion) {
+        this.productoId = productoId;
+        this.categoria = categoria;
+        this.desde = desde;
+        this.hasta = hasta;
+        this.agrupacion = agrupacion;
+    }
+
+    public Long getProductoId() { return productoId; }
+
+    public String getCategoria() { return categoria; }
+
+    public LocalDate getDesde() { return desde; }
+
+    public LocalDate getHasta() { return hasta; }
+
+    public ResumenDiario.Agrupacion getAgrupacion() { return agrupacion; }
+}
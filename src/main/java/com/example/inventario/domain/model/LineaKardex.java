@@ -0,0 +1,39 @@
+package com.example.inventario.domain.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Un movimiento del kardex de un producto junto con el saldo de stock que dejó, acumulado desde el
+ * inventario inicial en el orden (fecha, id).
+ */
+public class LineaKardex {
+
+    private final Long idMovimiento;
+    private final LocalDateTime fecha;
+    private final Movimiento.TipoMovimiento tipo;
+    private final int cantidad;
+    private final String descripcion;
+    private final long saldo;
+
+    public LineaKardex(Long idMovimiento, LocalDateTime fecha, Movimiento.TipoMovimiento tipo, int cantidad,
+                       String descripcion, long saldo) {
+        this.idMovimiento = idMovimiento;
+        this.fecha = fecha;
+        this.tipo = tipo;
+        this.cantidad = cantidad;
+        this.descripcion = descripcion;
+        this.saldo = saldo;
+    }
+
+    public Long getIdMovimiento() { return idMovimiento; }
+
+    public LocalDateTime getFecha() { return fecha; }
+
+    public Movimiento.TipoMovimiento getTipo() { return tipo; }
+
+    public int getCantidad() { return cantidad; }
+
+    public String getDescripcion() { return descripcion; }
+
+    public long getSaldo() { return saldo; }
+}
@@ -15,6 +15,7 @@ public class Movimiento {
     private int cantidad;
     private LocalDateTime fecha;
     private String descripcion;
+    private Long version;
 public Movimiento(){
 
 }
@@ -46,4 +47,7 @@ public Movimiento(){
 
     public String getDescripcion() { return descripcion; }
     public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
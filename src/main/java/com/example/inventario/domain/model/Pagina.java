@@ -0,0 +1,23 @@
+package com.example.inventario.domain.model;
+
+import java.util.List;
+
+/**
+ * Página de resultados recorrida por cursor (keyset). El cursor siguiente es null en la última página.
+ */
+public class Pagina<T> {
+
+    private final List<T> elementos;
+    private final String siguienteCursor;
+
+    public Pagina(List<T> elementos, String siguienteCursor) {
+        this.elementos = elementos;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public List<T> getElementos() { return elementos; }
+
+    public String getSiguienteCursor() { return siguienteCursor; }
+
+    public boolean hayMas() { return siguienteCursor != null; }
+}
@@ -8,8 +8,12 @@ import java.time.LocalDateTime;
 @Table(name = "producto",schema = "public")
 public class Producto {
 
+    // Mínimo que se aplica a los productos creados sin indicar el suyo
+    public static final int STOCK_MINIMO_POR_DEFECTO = 10;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "producto_seq")
+    @SequenceGenerator(name = "producto_seq", sequenceName = "producto_seq", schema = "public", allocationSize = 50)
     private Long id;
     private String nombre;
     private String descripcion;
@@ -21,6 +25,17 @@ public class Producto {
     private String codigo;
     private LocalDateTime fechaCreacion;
     private double factorDeRotacion;
+    // Acumulado de unidades salidas; sólo lo modifica el UPDATE de stock, nunca el guardado de la entidad
+    @Column(nullable = false, updatable = false, columnDefinition = "bigint not null default 0")
+    private long unidadesVendidas;
+    // Por debajo de este stock el producto se considera bajo (GET /api/productos/stock-bajo).
+    // Null mientras no se indique: al crear se aplica el mínimo por defecto y al actualizar se conserva el guardado
+    @Column(nullable = false, columnDefinition = "integer not null default " + STOCK_MINIMO_POR_DEFECTO)
+    private Integer stockMinimo;
+    // Control de concurrencia: sube con cada escritura, también con los ajustes de stock (ver ControlConcurrencia)
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
 
     public Producto(Long id, String nombre, String descripcion, BigDecimal precio, int stock,
                     String categoria, String codigo, LocalDateTime fechaCreacion) {
@@ -111,6 +126,9 @@ public class Producto {
         if (fechaCreacion == null) {
             fechaCreacion = LocalDateTime.now();  // Establecer la fecha de creación si es nula
         }
+        if (stockMinimo == null) {
+            stockMinimo = STOCK_MINIMO_POR_DEFECTO;
+        }
     }
 
     public void setFechaCreacion(LocalDateTime fechaCreacion) {
@@ -125,8 +143,62 @@ public class Producto {
         this.factorDeRotacion = factorDeRotacion;
     }
 
+    public long getUnidadesVendidas() {
+        return unidadesVendidas;
+    }
+
+    public void setUnidadesVendidas(long unidadesVendidas) {
+        this.unidadesVendidas = unidadesVendidas;
+    }
+
+    public Integer getStockMinimo() {
+        return stockMinimo;
+    }
+
+    // El mínimo propio o, si aún no se ha indicado, el por defecto
+    public int stockMinimoAplicado() {
+        return stockMinimo != null ? stockMinimo : STOCK_MINIMO_POR_DEFECTO;
+    }
+
+    public void setStockMinimo(Integer stockMinimo) {
+        this.stockMinimo = stockMinimo;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Costo de ventas acumulado: unidades vendidas valoradas al precio actual del producto.
+     */
+    public double getCostoVentas() {
+        return precio != null ? precio.doubleValue() * unidadesVendidas : 0.0;
+    }
+
+    /**
+     * Factor de rotación: costo de ventas sobre el inventario promedio entre el inicial y el actual.
+     */
+    public double calcularFactorDeRotacion() {
+        double inventarioPromedio = (inventarioInicial + stock) / 2.0;
+        return inventarioPromedio > 0 ? getCostoVentas() / inventarioPromedio : 0.0;
+    }
+
     public boolean esStockBajo(int umbral) {
         return this.stock < umbral;
     }
 
+    // Según el mínimo propio del producto
+    public boolean esStockBajo() {
+        return esStockBajo(stockMinimoAplicado());
+    }
+
+    // Unidades que faltan para llegar al mínimo; 0 si no está bajo
+    public int getFaltante() {
+        return Math.max(0, stockMinimoAplicado() - stock);
+    }
+
 }
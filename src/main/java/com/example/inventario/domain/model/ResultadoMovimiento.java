@@ -0,0 +1,29 @@
+package com.example.inventario.domain.model;
+
+/**
+ * Resultado de procesar un movimiento dentro de un lote: el movimiento registrado o el motivo del rechazo.
+ */
+public class ResultadoMovimiento {
+
+    private final Movimiento movimiento;
+    private final String error;
+
+    private ResultadoMovimiento(Movimiento movimiento, String error) {
+        this.movimiento = movimiento;
+        this.error = error;
+    }
+
+    public static ResultadoMovimiento exitoso(Movimiento movimiento) {
+        return new ResultadoMovimiento(movimiento, null);
+    }
+
+    public static ResultadoMovimiento rechazado(Movimiento movimiento, String error) {
+        return new ResultadoMovimiento(movimiento, error);
+    }
+
+    public Movimiento getMovimiento() { return movimiento; }
+
+    public String getError() { return error; }
+
+    public boolean isExitoso() { return error == null; }
+}
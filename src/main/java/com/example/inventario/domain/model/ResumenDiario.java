@@ -0,0 +1,40 @@
+package com.example.inventario.domain.model;
+
+import java.time.LocalDate;
+
+/**
+ * Unidades que entraron y salieron en un día, de un producto o de una categoría completa. Agrupado
+ * por categoría, idProducto y nombreProducto son null.
+ */
+public class ResumenDiario {
+
+    public enum Agrupacion { PRODUCTO, CATEGORIA }
+
+    private final LocalDate dia;
+    private final Long idProducto;
+    private final String nombreProducto;
+    private final String categoria;
+    private final long entradas;
+    private final long salidas;
+
+    public ResumenDiario(LocalDate dia, Long idProducto, String nombreProducto, String categoria, long entradas, long salidas) {
+        this.dia = dia;
+        this.idProducto = idProducto;
+        this.nombreProducto = nombreProducto;
+        this.categoria = categoria;
+        this.entradas = entradas;
+        this.salidas = salidas;
+    }
+
+    public LocalDate getDia() { return dia; }
+
+    public Long getIdProducto() { return idProducto; }
+
+    public String getNombreProducto() { return nombreProducto; }
+
+    public String getCategoria() { return categoria; }
+
+    public long getEntradas() { return entradas; }
+
+    public long getSalidas() { return salidas; }
+}
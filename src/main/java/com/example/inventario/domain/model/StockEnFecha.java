@@ -0,0 +1,34 @@
+package com.example.inventario.domain.model;
+
+import java.time.LocalDate;
+
+/**
+ * Stock de un producto al cierre de un día: la instantánea diaria más cercana anterior más los
+ * movimientos posteriores a ella hasta el final del día.
+ */
+public class StockEnFecha {
+
+    private final Long idProducto;
+    private final String codigo;
+    private final String nombre;
+    private final LocalDate fecha;
+    private final int stock;
+
+    public StockEnFecha(Long idProducto, String codigo, String nombre, LocalDate fecha, int stock) {
+        this.idProducto = idProducto;
+        this.codigo = codigo;
+        this.nombre = nombre;
+        this.fecha = fecha;
+        this.stock = stock;
+    }
+
+    public Long getIdProducto() { return idProducto; }
+
+    public String getCodigo() { return codigo; }
+
+    public String getNombre() { return nombre; }
+
+    public LocalDate getFecha() { return fecha; }
+
+    public int getStock() { return stock; }
+}
@@ -3,6 +3,11 @@ package com.example.inventario.domain.model;
 import java.time.LocalDateTime;
 
 public class StockLog {
+
+    // Operaciones que no son la entrada o salida de un movimiento (ésas usan el nombre de su tipo)
+    public static final String ELIMINACION = "ELIMINACION";
+    public static final String ACTUALIZACION = "ACTUALIZACION";
+
     private Long productoId;
     private int cantidadAnterior;
     private int cantidadNueva;
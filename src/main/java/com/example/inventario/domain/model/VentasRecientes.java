@@ -0,0 +1,34 @@
+package com.example.inventario.domain.model;
+
+/**
+ * Unidades salidas de un producto en una ventana reciente, junto con su stock actual. Con ellas se
+ * reconstruye al arrancar el estado de las alertas de stock (velocidad de venta y días de cobertura).
+ */
+public class VentasRecientes {
+
+    private final Long idProducto;
+    private final int stock;
+    private final int stockMinimo;
+    private final long unidadesVendidas;
+    private final long unidades;
+
+    public VentasRecientes(Long idProducto, int stock, int stockMinimo, long unidadesVendidas, long unidades) {
+        this.idProducto = idProducto;
+        this.stock = stock;
+        this.stockMinimo = stockMinimo;
+        this.unidadesVendidas = unidadesVendidas;
+        this.unidades = unidades;
+    }
+
+    public Long getIdProducto() { return idProducto; }
+
+    public int getStock() { return stock; }
+
+    public int getStockMinimo() { return stockMinimo; }
+
+    // Acumulado total del producto, no sólo el de la ventana
+    public long getUnidadesVendidas() { return unidadesVendidas; }
+
+    // Unidades salidas dentro de la ventana
+    public long getUnidades() { return unidades; }
+}
@@ -1,14 +1,21 @@
 package com.example.inventario.domain.ports.in;
 
+import com.example.inventario.domain.model.FiltroMovimientos;
 import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.ResultadoMovimiento;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface MovimientoUseCase {
 
     // Crear un movimiento (entrada o salida)
     Movimiento crearMovimiento(Movimiento movimiento);
 
+    // Crear varios movimientos en una sola transacción; devuelve un resultado por movimiento, en el mismo orden
+    List<ResultadoMovimiento> crearMovimientos(List<Movimiento> movimientos);
+
     // Obtener un movimiento por su ID
     Movimiento obtenerMovimientoPorId(Long id);
 
@@ -20,6 +27,10 @@ public interface MovimientoUseCase {
     // Obtener todos los movimientos (útil para visualizar el historial completo)
     List<Movimiento> obtenerTodosLosMovimientos();
     List<Movimiento> buscarMovimientos(Long productoId, String tipo);
+    // Listar movimientos por páginas; el cursor es el devuelto por la página anterior (null para empezar)
+    Pagina<Movimiento> buscarPaginaMovimientos(FiltroMovimientos filtro, String cursor, int limite);
+    // Exportar el histórico completo, o continuar una exportación a partir del último ID recibido
+    void exportarMovimientos(Long despuesDeId, Consumer<Movimiento> consumidor);
     // Eliminar un movimiento (por si se requiere anulación)
     void eliminarMovimiento(Long id);
     Movimiento actualizarMovimiento(Long id, Movimiento movimiento);
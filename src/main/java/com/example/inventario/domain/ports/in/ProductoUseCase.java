@@ -1,9 +1,15 @@
 package com.example.inventario.domain.ports.in;
 
+import com.example.inventario.domain.model.AjusteStock;
+import com.example.inventario.domain.model.LineaKardex;
+import com.example.inventario.domain.model.Pagina;
 import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.model.StockEnFecha;
 import com.example.inventario.infrastructure.adapters.in.dto.MovimientoDTO;
 import com.example.inventario.infrastructure.adapters.in.dto.ResultadoOperacionDTO;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ProductoUseCase {
@@ -12,7 +18,7 @@ public interface ProductoUseCase {
 
     Producto obtenerProductoPorId(Long id);
 
-    List<Producto> buscarProductos(String nombre, String categoria, String codigo);
+    List<Producto> buscarProductos(String nombre, String categoria, String codigo, int limite);
 
     Producto actualizarProducto(Long id, Producto producto);
 
@@ -23,8 +29,28 @@ public interface ProductoUseCase {
 
     Producto salidaStock(Long idProducto, int cantidad);
 
+    // Aplica a la vez una variación de stock y de unidades vendidas (negativas para revertir un movimiento)
+    // y la registra en la auditoría con la operación indicada
+    Producto ajustarStock(Long idProducto, int deltaStock, int deltaVendidas, String operacion);
+
     // Verificación y lógica de negocio
+    // Productos por debajo de su stock mínimo, del mayor faltante al menor; el cursor es el de la página anterior (null para empezar)
+    Pagina<Producto> buscarProductosStockBajo(String cursor, int limite);
+
+    // Stock histórico: el que había al cierre del día indicado, de un producto o del catálogo (paginado por ID)
+    StockEnFecha obtenerStockEnFecha(Long idProducto, LocalDate fecha);
+
+    Pagina<StockEnFecha> obtenerStockCatalogoEnFecha(LocalDate fecha, String cursor, int limite);
+
+    // Kardex: movimientos del producto en orden con el saldo acumulado; "hasta" excluido y el cursor es el de la página anterior
+    Pagina<LineaKardex> obtenerKardex(Long idProducto, LocalDateTime desde, LocalDateTime hasta, String cursor, int limite);
+
     ResultadoOperacionDTO verificarStockMinimo(Long idProducto, MovimientoDTO movimiento);
 
+    ResultadoOperacionDTO verificarStockMinimo(Producto producto, MovimientoDTO movimiento);
+
     Producto recalcularFactorDeRotacion(Long idProducto);
+
+    // Igual, pero con el stock y las ventas devueltos por un ajuste ya aplicado en esta transacción
+    Producto recalcularFactorDeRotacion(Long idProducto, AjusteStock ajuste);
 }
@@ -0,0 +1,16 @@
+package com.example.inventario.domain.ports.in;
+
+import com.example.inventario.domain.model.FiltroResumen;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.ResumenDiario;
+
+import java.time.LocalDate;
+
+public interface ReporteUseCase {
+
+    // Entradas y salidas por día y producto (o categoría); el cursor es el de la página anterior (null para empezar)
+    Pagina<ResumenDiario> buscarMovimientosDiarios(FiltroResumen filtro, String cursor, int limite);
+
+    // Reconstruye el resumen diario de un rango de días a partir de movimiento; devuelve las filas escritas
+    int reconstruirMovimientosDiarios(LocalDate desde, LocalDate hasta);
+}
@@ -1,10 +1,11 @@
 package com.example.inventario.domain.ports.observer;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class StockSubject {
-    private List<StockObserver> observers = new ArrayList<>();
+    // Copia en escritura: se notifica desde varios hilos y los observadores casi nunca cambian
+    private final List<StockObserver> observers = new CopyOnWriteArrayList<>();
 
     public void agregarObserver(StockObserver observer) {
         observers.add(observer);
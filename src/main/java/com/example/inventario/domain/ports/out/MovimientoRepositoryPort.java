@@ -1,20 +1,38 @@
 package com.example.inventario.domain.ports.out;
 
+import com.example.inventario.domain.model.CursorMovimiento;
+import com.example.inventario.domain.model.FiltroMovimientos;
 import com.example.inventario.domain.model.Movimiento;
-import com.example.inventario.infrastructure.adapters.out.MovimientoEntity;
-import org.springframework.data.repository.query.Param;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.VentasRecientes;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface MovimientoRepositoryPort {
 
     // Guardar un movimiento (entrada o salida)
     Movimiento guardar(Movimiento movimiento);
 
+    // Insertar varios movimientos nuevos con inserciones JDBC por lotes
+    List<Movimiento> guardarTodos(List<Movimiento> movimientos);
+
     // Obtener un movimiento por su ID
     Optional<Movimiento> buscarPorId(Long id);
 
+    // Lectura previa a modificar o eliminar: siempre de la base de datos, con la versión actual y, con la
+    // estrategia pesimista, bloqueando la fila hasta el fin de la transacción
+    Optional<Movimiento> buscarParaModificar(Long id);
+
+    // Guarda tipo, cantidad y descripción sólo si la versión no cambió desde la lectura (y la incrementa);
+    // false si otra operación se adelantó
+    boolean actualizarSiNoCambio(Movimiento movimiento);
+
+    // Elimina el movimiento sólo si la versión no cambió desde la lectura; false si otra operación se adelantó
+    boolean eliminarSiNoCambio(Movimiento movimiento);
+
     // Obtener todos los movimientos
     List<Movimiento> obtenerTodos();
 
@@ -25,18 +43,15 @@ public interface MovimientoRepositoryPort {
 
     List<Movimiento> buscarMovimientos(Long productoId, String tipo);
 
-    // Eliminar un movimiento
-    void eliminarPorId(Long id);
+    // Página de movimientos en orden (fecha, id) descendente, a continuación del cursor (null para la primera página)
+    Pagina<Movimiento> buscarPagina(FiltroMovimientos filtro, CursorMovimiento despuesDe, int limite);
 
-    List<Movimiento> buscarTodos();
+    // Recorre en orden de ID los movimientos posteriores a "despuesDeId" (null para todos) sin cargarlos en memoria
+    void recorrerMovimientos(Long despuesDeId, Consumer<Movimiento> consumidor);
 
-    List<MovimientoEntity> findByProductoIdAndTipo(Long productoId, Movimiento.TipoMovimiento tipoMovimiento);
+    // Unidades salidas desde "desde" por producto, con el stock actual de cada uno (sólo productos con salidas)
+    List<VentasRecientes> buscarVentasDesde(LocalDateTime desde);
 
-    List<MovimientoEntity> findByProductoId(Long productoId);
-
-    List<MovimientoEntity> findByTipo(Movimiento.TipoMovimiento tipoMovimiento);
-
-    List<MovimientoEntity> findAll();
-
-    Double sumarCostoVentasPorProducto(@Param("productoId") Long productoId);
+    // Eliminar un movimiento
+    void eliminarPorId(Long id);
 }
@@ -1,5 +1,8 @@
 package com.example.inventario.domain.ports.out;
 
+import com.example.inventario.domain.model.AjusteStock;
+import com.example.inventario.domain.model.CursorStockBajo;
+import com.example.inventario.domain.model.Pagina;
 import com.example.inventario.domain.model.Producto;
 
 import java.util.List;
@@ -11,11 +14,29 @@ public interface ProductoRepositoryPort {
 
     Optional<Producto> buscarPorId(Long id);
 
+    // Lectura previa a modificar el producto: sin caché y, con la estrategia pesimista, bloqueando la fila
+    Optional<Producto> buscarPorIdParaModificar(Long id);
+
+    // Siempre de la base de datos, sin bloquear: para quien no puede fiarse de que la caché ya se haya descartado
+    Optional<Producto> buscarPorIdSinCache(Long id);
+
     Optional<Producto> buscarPorCodigo(String codigo);
 
-    List<Producto> buscarPorCriterios(String nombre, String categoria, String codigo);
+    // Como mucho "limite" productos, los más relevantes para el nombre buscado primero
+    List<Producto> buscarPorCriterios(String nombre, String categoria, String codigo, int limite);
 
     List<Producto> obtenerTodos();
 
+    // Productos con stock por debajo de su mínimo, del mayor faltante al menor, a continuación del cursor
+    // (null para la primera página)
+    Pagina<Producto> buscarStockBajo(CursorStockBajo despuesDe, int limite);
+
     void eliminarPorId(Long id);
+
+    // Suma "delta" al stock y "vendidas" al acumulado de ventas en una sola sentencia y devuelve el stock
+    // anterior y el nuevo; vacío si el producto no existe o el stock quedaría negativo
+    Optional<AjusteStock> ajustarStock(Long id, int delta, int vendidas);
+
+    // Actualiza sólo el factor de rotación, sin reescribir el resto de la fila
+    void actualizarFactorDeRotacion(Long id, double factorDeRotacion);
 }
@@ -2,6 +2,10 @@ package com.example.inventario.domain.ports.out;
 
 import com.example.inventario.domain.model.StockLog;
 
+import java.util.List;
+
 public interface RegistrarAuditoriaStockPort {
     void registrarLog(StockLog log);
+
+    void registrarLogs(List<StockLog> logs);
 }
@@ -0,0 +1,26 @@
+package com.example.inventario.domain.ports.out;
+
+import com.example.inventario.domain.model.CursorResumen;
+import com.example.inventario.domain.model.FiltroResumen;
+import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.ResumenDiario;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Resumen diario de movimientos por producto (entradas y salidas de cada día), mantenido junto con
+ * cada alta, cambio o baja de movimientos para que los informes no recorran movimiento.
+ */
+public interface ResumenMovimientosPort {
+
+    // Suma al resumen los movimientos dados de alta y resta los dados de baja, en la transacción en curso
+    void acumular(List<Movimiento> altas, List<Movimiento> bajas);
+
+    // Página del resumen en orden (día, producto o categoría), a continuación del cursor (null para la primera)
+    Pagina<ResumenDiario> buscarPagina(FiltroResumen filtro, CursorResumen despuesDe, int limite);
+
+    // Vuelve a calcular desde movimiento los días del rango (ambos incluidos); devuelve las filas escritas
+    int reconstruir(LocalDate desde, LocalDate hasta);
+}
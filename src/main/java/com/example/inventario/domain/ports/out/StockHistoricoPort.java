@@ -0,0 +1,44 @@
+package com.example.inventario.domain.ports.out;
+
+import com.example.inventario.domain.model.CursorKardex;
+import com.example.inventario.domain.model.LineaKardex;
+import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.StockEnFecha;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stock histórico a partir de instantáneas diarias (tabla stock_diario). Sólo se guarda una fila
+ * cuando el stock de cierre de un producto cambia respecto a su instantánea anterior, así que una
+ * consulta lee la última instantánea hasta el día pedido y suma los movimientos posteriores, sin
+ * recorrer el histórico completo. Las altas, cambios y bajas de movimientos de días ya cerrados
+ * corrigen las instantáneas posteriores en la misma transacción.
+ */
+public interface StockHistoricoPort {
+
+    // Stock del producto al cierre del día (vacío si el producto no existe)
+    Optional<StockEnFecha> buscarStockAlCierre(Long idProducto, LocalDate dia);
+
+    // Stock al cierre del día de los productos con ID mayor que "despuesDeId" (null para empezar), en orden de ID
+    List<StockEnFecha> buscarStockCatalogoAlCierre(LocalDate dia, Long despuesDeId, int limite);
+
+    // Último día con instantánea guardada
+    Optional<LocalDate> ultimaInstantanea();
+
+    // Guarda la instantánea del cierre del día para los productos cuyo stock cambió; devuelve las filas escritas
+    int guardarInstantanea(LocalDate dia);
+
+    // Corrige las instantáneas ya guardadas desde el día de cada movimiento dado de alta (suma su efecto) o de
+    // baja (lo resta), en la transacción en curso: un movimiento con fecha pasada, editado o eliminado las cambia
+    void corregirInstantaneas(List<Movimiento> altas, List<Movimiento> bajas);
+
+    // Punto de partida del kardex en "desde" (null para el principio) con el saldo que había justo antes
+    // (vacío si el producto no existe)
+    Optional<CursorKardex> buscarInicioKardex(Long idProducto, LocalDateTime desde);
+
+    // Movimientos del producto posteriores al cursor y anteriores a "hasta" (null sin límite), con su saldo
+    List<LineaKardex> buscarKardex(Long idProducto, CursorKardex despuesDe, LocalDateTime hasta, int limite);
+}
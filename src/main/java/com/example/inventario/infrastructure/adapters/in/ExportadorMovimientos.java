@@ -0,0 +1,105 @@
+package com.example.inventario.infrastructure.adapters.in;
+
+import com.example.inventario.infrastructure.adapters.in.dto.MovimientoDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escribe movimientos de uno en uno sobre la respuesta HTTP, en NDJSON (un objeto JSON por línea)
+ * o en CSV. No acumula filas: cada movimiento se serializa y se descarta.
+ */
+abstract class ExportadorMovimientos implements AutoCloseable {
+
+    /**
+     * Se llama antes de empezar a transmitir, cuando todavía se puede responder con un 400.
+     */
+    static ExportadorMovimientos para(String formato, OutputStream salida, ObjectMapper objectMapper) throws IOException {
+        return formato.equalsIgnoreCase("csv") ? new Csv(salida) : new Ndjson(salida, objectMapper);
+    }
+
+    static MediaType tipoContenido(String formato) {
+        return formato.equalsIgnoreCase("csv") ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+    }
+
+    static void validarFormato(String formato) {
+        if (!formato.equalsIgnoreCase("ndjson") && !formato.equalsIgnoreCase("csv")) {
+            throw new IllegalArgumentException("Formato de exportación no válido: " + formato + " (ndjson o csv)");
+        }
+    }
+
+    abstract void escribir(MovimientoDTO movimiento);
+
+    @Override
+    public abstract void close() throws IOException;
+
+    private static class Ndjson extends ExportadorMovimientos {
+
+        private final SequenceWriter escritor;
+
+        Ndjson(OutputStream salida, ObjectMapper objectMapper) throws IOException {
+            this.escritor = objectMapper.writerFor(MovimientoDTO.class).withRootValueSeparator("\n").writeValues(salida);
+        }
+
+        @Override
+        void escribir(MovimientoDTO movimiento) {
+            try {
+                escritor.write(movimiento);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            escritor.close();
+        }
+    }
+
+    private static class Csv extends ExportadorMovimientos {
+
+        private final Writer escritor;
+
+        Csv(OutputStream salida) throws IOException {
+            this.escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+            escritor.write("id,idProducto,nombreProducto,tipo,cantidad,descripcion,fecha\n");
+        }
+
+        @Override
+        void escribir(MovimientoDTO movimiento) {
+            try {
+                escritor.write(movimiento.getId() + "," + movimiento.getIdProducto() + ","
+                        + campo(movimiento.getNombreProducto()) + "," + movimiento.getTipo() + ","
+                        + movimiento.getCantidad() + "," + campo(movimiento.getDescripcion()) + ","
+                        + (movimiento.getFecha() != null ? movimiento.getFecha() : "") + "\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Entrecomilla sólo cuando hace falta (RFC 4180)
+        private static String campo(String valor) {
+            if (valor == null) {
+                return "";
+            }
+            if (valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0 || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0) {
+                return "\"" + valor.replace("\"", "\"\"") + "\"";
+            }
+            return valor;
+        }
+
+        @Override
+        public void close() throws IOException {
+            escritor.close();
+        }
+    }
+}
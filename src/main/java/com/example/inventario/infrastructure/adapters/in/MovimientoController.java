@@ -1,34 +1,75 @@
 package com.example.inventario.infrastructure.adapters.in;
 
 import com.example.inventario.application.service.ProductoService;
+import com.example.inventario.domain.exceptions.ExportacionesOcupadasException;
+import com.example.inventario.domain.model.FiltroMovimientos;
 import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.model.ResultadoMovimiento;
 import com.example.inventario.domain.ports.in.MovimientoUseCase;
+import com.example.inventario.infrastructure.adapters.in.dto.ResultadoLoteDTO;
 import com.example.inventario.infrastructure.adapters.in.dto.ResultadoOperacionDTO;
 import com.example.inventario.infrastructure.config.mapper.MovimientoMapper;
 import com.example.inventario.infrastructure.adapters.in.dto.MovimientoDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-@CrossOrigin
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+@CrossOrigin(exposedHeaders = MovimientoController.CABECERA_SIGUIENTE_CURSOR)
 @RestController
 @RequestMapping("/api/movimientos")
 public class MovimientoController {
 
+    // Cursor de la página siguiente; el cuerpo sigue siendo un array para no romper a los clientes existentes
+    static final String CABECERA_SIGUIENTE_CURSOR = "X-Next-Cursor";
+
     private final MovimientoUseCase movimientoUseCase;
     private final MovimientoMapper mapper;
     private final ProductoService productoService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int maximoLote;
+    private final int maximoPagina;
+    private final long tiempoMaximoExportacionMs;
+    // Cada exportación ocupa una conexión del pool mientras dura
+    private final Semaphore exportaciones;
 
-    public MovimientoController(MovimientoUseCase movimientoUseCase, MovimientoMapper mapper, ProductoService productoService) {
+    public MovimientoController(MovimientoUseCase movimientoUseCase, MovimientoMapper mapper, ProductoService productoService,
+                                Validator validator, ObjectMapper objectMapper,
+                                @Value("${app.movimientos.lote.maximo:1000}") int maximoLote,
+                                @Value("${app.movimientos.pagina.maximo:500}") int maximoPagina,
+                                @Value("${app.movimientos.export.tiempo-maximo-ms:3600000}") long tiempoMaximoExportacionMs,
+                                @Value("${app.movimientos.export.maximo-simultaneas:2}") int maximoExportaciones) {
         this.movimientoUseCase = movimientoUseCase;
         this.mapper = mapper;
         this.productoService = productoService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.maximoLote = maximoLote;
+        this.maximoPagina = maximoPagina;
+        this.tiempoMaximoExportacionMs = tiempoMaximoExportacionMs;
+        this.exportaciones = new Semaphore(maximoExportaciones);
     }
 
     @Operation(summary = "Crear un nuevo movimiento", description = "Crea un nuevo movimiento de entrada o salida")
@@ -40,10 +81,70 @@ public class MovimientoController {
     public ResponseEntity<ResultadoOperacionDTO> crearMovimiento(@Valid @RequestBody MovimientoDTO dto) {
         Movimiento movimiento = mapper.dtoToDomain(dto);
         Movimiento creado = movimientoUseCase.crearMovimiento(movimiento);
-        ResultadoOperacionDTO creadoMasStock = productoService.verificarStockMinimo(creado.getProducto().getId(), mapper.domainToDto(creado));
+        ResultadoOperacionDTO creadoMasStock = productoService.verificarStockMinimo(creado.getProducto(), mapper.domainToDto(creado));
         return ResponseEntity.status(HttpStatus.CREATED).body(creadoMasStock);
     }
 
+    @Operation(summary = "Crear movimientos en lote", description = "Registra varios movimientos en una sola transacción y devuelve el resultado de cada uno")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote procesado; cada elemento indica si se registró o el motivo del rechazo"),
+            @ApiResponse(responseCode = "400", description = "Lote vacío o demasiado grande")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<List<ResultadoLoteDTO>> crearMovimientosLote(@RequestBody List<MovimientoDTO> dtos) {
+        if (dtos.isEmpty() || dtos.size() > maximoLote) {
+            throw new IllegalArgumentException("El lote debe contener entre 1 y " + maximoLote + " movimientos.");
+        }
+
+        // Validar todo el lote antes de tocar la base de datos; sólo los válidos llegan al caso de uso
+        ResultadoLoteDTO[] respuesta = new ResultadoLoteDTO[dtos.size()];
+        List<Movimiento> validos = new ArrayList<>();
+        List<Integer> posiciones = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            String error = validar(dtos.get(i));
+            if (error != null) {
+                respuesta[i] = ResultadoLoteDTO.rechazado(i, error);
+            } else {
+                validos.add(mapper.dtoToDomain(dtos.get(i)));
+                posiciones.add(i);
+            }
+        }
+
+        List<ResultadoMovimiento> resultados = movimientoUseCase.crearMovimientos(validos);
+
+        // Una sola verificación de stock mínimo por producto afectado
+        Map<Long, Boolean> stockBajoPorProducto = new HashMap<>();
+        for (int j = 0; j < resultados.size(); j++) {
+            ResultadoMovimiento resultado = resultados.get(j);
+            int indice = posiciones.get(j);
+            if (resultado.isExitoso()) {
+                Producto producto = resultado.getMovimiento().getProducto();
+                boolean stockBajo = stockBajoPorProducto.computeIfAbsent(producto.getId(),
+                        id -> productoService.verificarStockMinimo(producto, null).isStockBajo());
+                respuesta[indice] = ResultadoLoteDTO.exitoso(indice, mapper.domainToDto(resultado.getMovimiento()), stockBajo);
+            } else {
+                respuesta[indice] = ResultadoLoteDTO.rechazado(indice, resultado.getError());
+            }
+        }
+        return ResponseEntity.ok(Arrays.asList(respuesta));
+    }
+
+    private String validar(MovimientoDTO dto) {
+        if (dto == null) {
+            return "El movimiento es obligatorio";
+        }
+        Set<ConstraintViolation<MovimientoDTO>> violaciones = validator.validate(dto);
+        if (!violaciones.isEmpty()) {
+            return violaciones.iterator().next().getMessage();
+        }
+        try {
+            Movimiento.TipoMovimiento.valueOf(dto.getTipo());
+        } catch (IllegalArgumentException ex) {
+            return "Tipo de movimiento no válido: " + dto.getTipo();
+        }
+        return null;
+    }
+
     @Operation(summary = "Obtener un movimiento por ID", description = "Devuelve el movimiento correspondiente al ID dado")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Movimiento encontrado"),
@@ -56,17 +157,66 @@ public class MovimientoController {
         return ResponseEntity.ok(mapper.domainToDto(movimiento));
     }
 
-    @Operation(summary = "Buscar movimientos", description = "Buscar movimientos por producto y tipo (opcional)")
+    @Operation(summary = "Buscar movimientos",
+            description = "Lista paginada por cursor, del más reciente al más antiguo, filtrando por producto, tipo y fechas (opcionales). "
+                    + "Si hay más resultados, la cabecera " + CABECERA_SIGUIENTE_CURSOR + " trae el cursor de la página siguiente")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Lista de movimientos encontrados")
+            @ApiResponse(responseCode = "200", description = "Página de movimientos encontrados"),
+            @ApiResponse(responseCode = "400", description = "Tipo, fechas o cursor no válidos")
     })
     @GetMapping
     public ResponseEntity<List<MovimientoDTO>> buscarMovimientos(
             @Parameter(description = "ID del producto") @RequestParam(required = false) Long productoId,
-            @Parameter(description = "Tipo de movimiento: ENTRADA o SALIDA") @RequestParam(required = false) String tipo) {
+            @Parameter(description = "Tipo de movimiento: ENTRADA o SALIDA") @RequestParam(required = false) String tipo,
+            @Parameter(description = "Fecha mínima, incluida (ISO-8601)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @Parameter(description = "Fecha máxima, excluida (ISO-8601)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @Parameter(description = "Cursor recibido en la cabecera " + CABECERA_SIGUIENTE_CURSOR + " de la página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (se limita al máximo configurado)") @RequestParam(defaultValue = "100") int limit) {
+
+        Movimiento.TipoMovimiento tipoMovimiento = tipo != null ? Movimiento.TipoMovimiento.valueOf(tipo.toUpperCase()) : null;
+        FiltroMovimientos filtro = new FiltroMovimientos(productoId, tipoMovimiento, desde, hasta);
+        Pagina<Movimiento> pagina = movimientoUseCase.buscarPaginaMovimientos(filtro, cursor, Math.min(limit, maximoPagina));
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.hayMas()) {
+            respuesta.header(CABECERA_SIGUIENTE_CURSOR, pagina.getSiguienteCursor());
+        }
+        return respuesta.body(mapper.domainListToDtoList(pagina.getElementos()));
+    }
+
+    @Operation(summary = "Exportar el histórico de movimientos",
+            description = "Transmite todos los movimientos en orden de ID, en NDJSON o CSV, sin cargarlos en memoria. "
+                    + "Para reanudar una exportación interrumpida se indica el último ID recibido en despuesDeId")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportación en curso"),
+            @ApiResponse(responseCode = "400", description = "Formato no válido"),
+            @ApiResponse(responseCode = "503", description = "Demasiadas exportaciones en curso; reintentar más tarde")
+    })
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportarMovimientos(
+            @Parameter(description = "Formato: ndjson o csv") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Exportar sólo los movimientos con ID mayor que éste") @RequestParam(required = false) Long despuesDeId,
+            HttpServletResponse response) {
+
+        ExportadorMovimientos.validarFormato(format);
+        if (!exportaciones.tryAcquire()) {
+            throw new ExportacionesOcupadasException("Hay demasiadas exportaciones en curso; inténtelo más tarde.");
+        }
+        response.setContentType(ExportadorMovimientos.tipoContenido(format).toString());
+        response.setHeader("Content-Disposition", "attachment; filename=\"movimientos." + format.toLowerCase() + "\"");
 
-        List<Movimiento> movimientos = movimientoUseCase.buscarMovimientos(productoId, tipo);
-        return ResponseEntity.ok(mapper.domainListToDtoList(movimientos));
+        // Con su propio tiempo máximo: el del resto de respuestas asíncronas cortaría una exportación larga
+        WebAsyncTask<Void> exportacion = new WebAsyncTask<>(tiempoMaximoExportacionMs, () -> {
+            try (ExportadorMovimientos exportador = ExportadorMovimientos.para(format, response.getOutputStream(), objectMapper)) {
+                movimientoUseCase.exportarMovimientos(despuesDeId, movimiento -> exportador.escribir(mapper.domainToDto(movimiento)));
+            }
+            return null;
+        });
+        exportacion.onCompletion(exportaciones::release);
+        return exportacion;
     }
 
     @Operation(summary = "Actualizar un movimiento", description = "Actualiza un movimiento existente por su ID")
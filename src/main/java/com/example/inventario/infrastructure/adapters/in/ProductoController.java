@@ -2,23 +2,33 @@ package com.example.inventario.infrastructure.adapters.in;
 
 import com.example.inventario.application.service.StockService;
 import com.example.inventario.domain.exceptions.ProductoNotFoundException;
+import com.example.inventario.domain.model.LineaKardex;
+import com.example.inventario.domain.model.Pagina;
 import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.model.StockEnFecha;
 import com.example.inventario.domain.ports.in.ProductoUseCase;
 import com.example.inventario.infrastructure.config.mapper.ProductoMapper;
+import com.example.inventario.infrastructure.adapters.in.dto.LineaKardexDTO;
 import com.example.inventario.infrastructure.adapters.in.dto.ProductoDTO;
+import com.example.inventario.infrastructure.adapters.in.dto.StockEnFechaDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 
+import io.swagger.v3.oas.annotations.Parameter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
-@CrossOrigin
+@CrossOrigin(exposedHeaders = MovimientoController.CABECERA_SIGUIENTE_CURSOR)
 @RestController
 @RequestMapping("/api/productos")
 @Validated
@@ -26,11 +36,17 @@ public class ProductoController {
 
     private final ProductoUseCase productoUseCase;
     private final ProductoMapper mapper;
+    private final int maximoBusqueda;
+    private final int maximoPagina;
 
 
-    public ProductoController(ProductoUseCase productoUseCase, ProductoMapper mapper) {
+    public ProductoController(ProductoUseCase productoUseCase, ProductoMapper mapper,
+                              @Value("${app.productos.busqueda.maximo:500}") int maximoBusqueda,
+                              @Value("${app.productos.pagina.maximo:500}") int maximoPagina) {
         this.productoUseCase = productoUseCase;
         this.mapper = mapper;
+        this.maximoBusqueda = maximoBusqueda;
+        this.maximoPagina = maximoPagina;
     }
 
     @PostMapping
@@ -62,17 +78,118 @@ public class ProductoController {
     }
 
     @GetMapping
-    @Operation(summary = "Obtener todos los productos por nombre, categoria,codigo")
+    @Operation(summary = "Obtener todos los productos por nombre, categoria,codigo",
+            description = "El nombre se busca como subcadena; primero el nombre exacto, después los que empiezan por el texto "
+                    + "y después los más parecidos")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Productos encontrados")
     })
     public ResponseEntity<List<ProductoDTO>> obtenerTodos(@RequestParam(required = false) String nombre,
                                                           @RequestParam(required = false) String categoria,
-                                                          @RequestParam(required = false) String codigo) {
-        List<Producto> productos = productoUseCase.buscarProductos(nombre, categoria, codigo);
+                                                          @RequestParam(required = false) String codigo,
+                                                          @Parameter(description = "Número máximo de resultados (se limita al máximo configurado)")
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        List<Producto> productos = productoUseCase.buscarProductos(nombre, categoria, codigo, Math.min(limit, maximoBusqueda));
         return ResponseEntity.ok(mapper.entitiesToDtos(productos));
     }
 
+    @GetMapping("/stock-bajo")
+    @Operation(summary = "Listar productos con stock bajo",
+            description = "Productos con stock por debajo de su stock mínimo, del que más unidades necesita al que menos, "
+                    + "paginados por cursor. Si hay más resultados, la cabecera " + MovimientoController.CABECERA_SIGUIENTE_CURSOR
+                    + " trae el cursor de la página siguiente")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Página de productos con stock bajo"),
+            @ApiResponse(responseCode = "400", description = "Cursor o límite no válidos")
+    })
+    public ResponseEntity<List<ProductoDTO>> obtenerStockBajo(
+            @Parameter(description = "Cursor recibido en la cabecera " + MovimientoController.CABECERA_SIGUIENTE_CURSOR + " de la página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (se limita al máximo configurado)") @RequestParam(defaultValue = "100") int limit) {
+        Pagina<Producto> pagina = productoUseCase.buscarProductosStockBajo(cursor, Math.min(limit, maximoPagina));
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.hayMas()) {
+            respuesta.header(MovimientoController.CABECERA_SIGUIENTE_CURSOR, pagina.getSiguienteCursor());
+        }
+        return respuesta.body(mapper.entitiesToDtos(pagina.getElementos()));
+    }
+
+    @GetMapping("/{id}/stock")
+    @Operation(summary = "Stock de un producto en una fecha",
+            description = "Stock al cierre del día indicado: la instantánea diaria más cercana anterior más los movimientos posteriores")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Stock al cierre del día"),
+            @ApiResponse(responseCode = "400", description = "Fecha no válida o futura"),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado")
+    })
+    public ResponseEntity<StockEnFechaDTO> obtenerStockEnFecha(
+            @PathVariable Long id,
+            @Parameter(description = "Día (ISO-8601, p. ej. 2024-12-31)") @RequestParam
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        try {
+            return ResponseEntity.ok(StockEnFechaDTO.de(productoUseCase.obtenerStockEnFecha(id, fecha)));
+        } catch (ProductoNotFoundException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    @GetMapping("/stock")
+    @Operation(summary = "Stock del catálogo en una fecha",
+            description = "Stock de cada producto al cierre del día indicado, por orden de ID y paginado por cursor. "
+                    + "Si hay más resultados, la cabecera " + MovimientoController.CABECERA_SIGUIENTE_CURSOR
+                    + " trae el cursor de la página siguiente")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Página del catálogo con su stock en la fecha"),
+            @ApiResponse(responseCode = "400", description = "Fecha, cursor o límite no válidos")
+    })
+    public ResponseEntity<List<StockEnFechaDTO>> obtenerStockCatalogoEnFecha(
+            @Parameter(description = "Día (ISO-8601, p. ej. 2024-12-31)") @RequestParam
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha,
+            @Parameter(description = "Cursor recibido en la cabecera " + MovimientoController.CABECERA_SIGUIENTE_CURSOR + " de la página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (se limita al máximo configurado)") @RequestParam(defaultValue = "100") int limit) {
+        Pagina<StockEnFecha> pagina = productoUseCase.obtenerStockCatalogoEnFecha(fecha, cursor, Math.min(limit, maximoPagina));
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.hayMas()) {
+            respuesta.header(MovimientoController.CABECERA_SIGUIENTE_CURSOR, pagina.getSiguienteCursor());
+        }
+        return respuesta.body(pagina.getElementos().stream().map(StockEnFechaDTO::de).toList());
+    }
+
+    @GetMapping("/{id}/kardex")
+    @Operation(summary = "Kardex de un producto",
+            description = "Movimientos del producto en orden cronológico con el saldo de stock tras cada uno, acumulado desde el "
+                    + "inventario inicial. Con 'desde' el saldo de apertura incluye todo lo anterior. Si hay más resultados, la cabecera "
+                    + MovimientoController.CABECERA_SIGUIENTE_CURSOR + " trae el cursor de la página siguiente")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Página del kardex"),
+            @ApiResponse(responseCode = "400", description = "Fechas, cursor o límite no válidos"),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado")
+    })
+    public ResponseEntity<List<LineaKardexDTO>> obtenerKardex(
+            @PathVariable Long id,
+            @Parameter(description = "Fecha mínima, incluida (ISO-8601)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @Parameter(description = "Fecha máxima, excluida (ISO-8601)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @Parameter(description = "Cursor recibido en la cabecera " + MovimientoController.CABECERA_SIGUIENTE_CURSOR + " de la página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (se limita al máximo configurado)") @RequestParam(defaultValue = "100") int limit) {
+        try {
+            Pagina<LineaKardex> pagina = productoUseCase.obtenerKardex(id, desde, hasta, cursor, Math.min(limit, maximoPagina));
+
+            ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+            if (pagina.hayMas()) {
+                respuesta.header(MovimientoController.CABECERA_SIGUIENTE_CURSOR, pagina.getSiguienteCursor());
+            }
+            return respuesta.body(pagina.getElementos().stream().map(LineaKardexDTO::de).toList());
+        } catch (ProductoNotFoundException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Actualizar un producto")
     @ApiResponses({
@@ -0,0 +1,81 @@
+package com.example.inventario.infrastructure.adapters.in;
+
+import com.example.inventario.domain.model.FiltroResumen;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.ResumenDiario;
+import com.example.inventario.domain.ports.in.ReporteUseCase;
+import com.example.inventario.infrastructure.adapters.in.dto.ResumenDiarioDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+@CrossOrigin(exposedHeaders = MovimientoController.CABECERA_SIGUIENTE_CURSOR)
+@RestController
+@RequestMapping("/api/reportes")
+public class ReporteController {
+
+    private final ReporteUseCase reporteUseCase;
+    private final int maximoPagina;
+
+    public ReporteController(ReporteUseCase reporteUseCase,
+                             @Value("${app.reportes.pagina.maximo:1000}") int maximoPagina) {
+        this.reporteUseCase = reporteUseCase;
+        this.maximoPagina = maximoPagina;
+    }
+
+    @Operation(summary = "Entradas y salidas por día",
+            description = "Unidades que entraron y salieron cada día, por producto o por categoría, leídas del resumen diario. "
+                    + "Sin fechas se devuelven los últimos 30 días. Si hay más resultados, la cabecera "
+                    + MovimientoController.CABECERA_SIGUIENTE_CURSOR + " trae el cursor de la página siguiente")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página del resumen, por día y producto o categoría"),
+            @ApiResponse(responseCode = "400", description = "Fechas, agrupación o cursor no válidos")
+    })
+    @GetMapping("/movimientos-diarios")
+    public ResponseEntity<List<ResumenDiarioDTO>> movimientosDiarios(
+            @Parameter(description = "ID del producto") @RequestParam(required = false) Long productoId,
+            @Parameter(description = "Categoría de los productos") @RequestParam(required = false) String categoria,
+            @Parameter(description = "Primer día, incluido (ISO-8601)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @Parameter(description = "Último día, incluido (ISO-8601)") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @Parameter(description = "Agrupación: PRODUCTO o CATEGORIA") @RequestParam(defaultValue = "PRODUCTO") String agrupacion,
+            @Parameter(description = "Cursor recibido en la cabecera " + MovimientoController.CABECERA_SIGUIENTE_CURSOR + " de la página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (se limita al máximo configurado)") @RequestParam(defaultValue = "500") int limit) {
+
+        FiltroResumen filtro = new FiltroResumen(productoId, categoria, desde, hasta,
+                ResumenDiario.Agrupacion.valueOf(agrupacion.toUpperCase()));
+        Pagina<ResumenDiario> pagina = reporteUseCase.buscarMovimientosDiarios(filtro, cursor, Math.min(limit, maximoPagina));
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+        if (pagina.hayMas()) {
+            respuesta.header(MovimientoController.CABECERA_SIGUIENTE_CURSOR, pagina.getSiguienteCursor());
+        }
+        return respuesta.body(pagina.getElementos().stream().map(ResumenDiarioDTO::de).toList());
+    }
+
+    @Operation(summary = "Reconstruir el resumen diario de movimientos",
+            description = "Vuelve a calcular el resumen de los días indicados a partir de los movimientos, mes a mes. "
+                    + "Sirve para cargar el histórico o corregir el resumen después de cambios hechos fuera de la API")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resumen reconstruido; devuelve las filas escritas"),
+            @ApiResponse(responseCode = "400", description = "Fechas no válidas")
+    })
+    @PostMapping("/movimientos-diarios/reconstruccion")
+    public ResponseEntity<Map<String, Integer>> reconstruirMovimientosDiarios(
+            @Parameter(description = "Primer día, incluido (ISO-8601)") @RequestParam
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @Parameter(description = "Último día, incluido (ISO-8601)") @RequestParam
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return ResponseEntity.ok(Map.of("filas", reporteUseCase.reconstruirMovimientosDiarios(desde, hasta)));
+    }
+}
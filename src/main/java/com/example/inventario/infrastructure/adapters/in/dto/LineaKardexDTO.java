@@ -0,0 +1,77 @@
+package com.example.inventario.infrastructure.adapters.in.dto;
+
+import com.example.inventario.domain.model.LineaKardex;
+
+import java.time.LocalDateTime;
+
+public class LineaKardexDTO {
+
+    private Long idMovimiento;
+    private LocalDateTime fecha;
+    private String tipo;
+    private int cantidad;
+    private String descripcion;
+    private long saldo;
+
+    public LineaKardexDTO() {
+    }
+
+    public static LineaKardexDTO de(LineaKardex linea) {
+        LineaKardexDTO dto = new LineaKardexDTO();
+        dto.setIdMovimiento(linea.getIdMovimiento());
+        dto.setFecha(linea.getFecha());
+        dto.setTipo(linea.getTipo().name());
+        dto.setCantidad(linea.getCantidad());
+        dto.setDescripcion(linea.getDescripcion());
+        dto.setSaldo(linea.getSaldo());
+        return dto;
+    }
+
+    public Long getIdMovimiento() {
+        return idMovimiento;
+    }
+
+    public void setIdMovimiento(Long idMovimiento) {
+        this.idMovimiento = idMovimiento;
+    }
+
+    public LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDateTime fecha) {
+        this.fecha = fecha;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    public void setCantidad(int cantidad) {
+        this.cantidad = cantidad;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    public void setDescripcion(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    public long getSaldo() {
+        return saldo;
+    }
+
+    public void setSaldo(long saldo) {
+        this.saldo = saldo;
+    }
+}
@@ -26,11 +26,26 @@ public class ProductoDTO {
     @NotBlank(message = "La categoría es obligatoria")
     private String categoria;
 
+    // Opcional: si no se indica, al crear se aplica Producto.STOCK_MINIMO_POR_DEFECTO y al actualizar se conserva el actual
+    @Min(value = 0, message = "El stock mínimo no puede ser negativo")
+    private Integer stockMinimo;
+
     @NotBlank(message = "El código es obligatorio")
     @Size(max = 20, message = "El código no debe exceder 20 caracteres")
     private String codigo;
     private LocalDateTime fechaCreacion;
 
+    // Opcional en PUT: si se envía la versión leída y el producto cambió desde entonces, responde 409
+    private Long version;
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public LocalDateTime getFechaCreacion() {
         return fechaCreacion;
     }
@@ -88,6 +103,14 @@ public class ProductoDTO {
         this.categoria = categoria;
     }
 
+    public Integer getStockMinimo() {
+        return stockMinimo;
+    }
+
+    public void setStockMinimo(Integer stockMinimo) {
+        this.stockMinimo = stockMinimo;
+    }
+
     public @NotBlank(message = "El código es obligatorio") @Size(max = 20, message = "El código no debe exceder 20 caracteres") String getCodigo() {
         return codigo;
     }
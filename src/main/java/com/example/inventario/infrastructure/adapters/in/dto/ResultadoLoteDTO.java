@@ -0,0 +1,69 @@
+package com.example.inventario.infrastructure.adapters.in.dto;
+
+public class ResultadoLoteDTO {
+
+    private int indice;
+    private boolean exitoso;
+    private String error;
+    private MovimientoDTO movimiento;
+    private boolean stockBajo;
+
+    public ResultadoLoteDTO() {
+    }
+
+    public static ResultadoLoteDTO exitoso(int indice, MovimientoDTO movimiento, boolean stockBajo) {
+        ResultadoLoteDTO resultado = new ResultadoLoteDTO();
+        resultado.setIndice(indice);
+        resultado.setExitoso(true);
+        resultado.setMovimiento(movimiento);
+        resultado.setStockBajo(stockBajo);
+        return resultado;
+    }
+
+    public static ResultadoLoteDTO rechazado(int indice, String error) {
+        ResultadoLoteDTO resultado = new ResultadoLoteDTO();
+        resultado.setIndice(indice);
+        resultado.setError(error);
+        return resultado;
+    }
+
+    public int getIndice() {
+        return indice;
+    }
+
+    public void setIndice(int indice) {
+        this.indice = indice;
+    }
+
+    public boolean isExitoso() {
+        return exitoso;
+    }
+
+    public void setExitoso(boolean exitoso) {
+        this.exitoso = exitoso;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public MovimientoDTO getMovimiento() {
+        return movimiento;
+    }
+
+    public void setMovimiento(MovimientoDTO movimiento) {
+        this.movimiento = movimiento;
+    }
+
+    public boolean isStockBajo() {
+        return stockBajo;
+    }
+
+    public void setStockBajo(boolean stockBajo) {
+        this.stockBajo = stockBajo;
+    }
+}
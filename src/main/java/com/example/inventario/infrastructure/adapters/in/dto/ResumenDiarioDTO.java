@@ -0,0 +1,77 @@
+package com.example.inventario.infrastructure.adapters.in.dto;
+
+import com.example.inventario.domain.model.ResumenDiario;
+
+import java.time.LocalDate;
+
+public class ResumenDiarioDTO {
+
+    private LocalDate dia;
+    private Long idProducto;
+    private String nombreProducto;
+    private String categoria;
+    private long entradas;
+    private long salidas;
+
+    public ResumenDiarioDTO() {
+    }
+
+    public static ResumenDiarioDTO de(ResumenDiario resumen) {
+        ResumenDiarioDTO dto = new ResumenDiarioDTO();
+        dto.setDia(resumen.getDia());
+        dto.setIdProducto(resumen.getIdProducto());
+        dto.setNombreProducto(resumen.getNombreProducto());
+        dto.setCategoria(resumen.getCategoria());
+        dto.setEntradas(resumen.getEntradas());
+        dto.setSalidas(resumen.getSalidas());
+        return dto;
+    }
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public void setDia(LocalDate dia) {
+        this.dia = dia;
+    }
+
+    public Long getIdProducto() {
+        return idProducto;
+    }
+
+    public void setIdProducto(Long idProducto) {
+        this.idProducto = idProducto;
+    }
+
+    public String getNombreProducto() {
+        return nombreProducto;
+    }
+
+    public void setNombreProducto(String nombreProducto) {
+        this.nombreProducto = nombreProducto;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(String categoria) {
+        this.categoria = categoria;
+    }
+
+    public long getEntradas() {
+        return entradas;
+    }
+
+    public void setEntradas(long entradas) {
+        this.entradas = entradas;
+    }
+
+    public long getSalidas() {
+        return salidas;
+    }
+
+    public void setSalidas(long salidas) {
+        this.salidas = salidas;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.inventario.infrastructure.adapters.in.dto;
+
+import com.example.inventario.domain.model.StockEnFecha;
+
+import java.time.LocalDate;
+
+public class StockEnFechaDTO {
+
+    private Long idProducto;
+    private String codigo;
+    private String nombre;
+    private LocalDate fecha;
+    private int stock;
+
+    public StockEnFechaDTO() {
+    }
+
+    public static StockEnFechaDTO de(StockEnFecha stockEnFecha) {
+        StockEnFechaDTO dto = new StockEnFechaDTO();
+        dto.setIdProducto(stockEnFecha.getIdProducto());
+        dto.setCodigo(stockEnFecha.getCodigo());
+        dto.setNombre(stockEnFecha.getNombre());
+        dto.setFecha(stockEnFecha.getFecha());
+        dto.setStock(stockEnFecha.getStock());
+        return dto;
+    }
+
+    public Long getIdProducto() {
+        return idProducto;
+    }
+
+    public void setIdProducto(Long idProducto) {
+        this.idProducto = idProducto;
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(String codigo) {
+        this.codigo = codigo;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void setNombre(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public void setStock(int stock) {
+        this.stock = stock;
+    }
+}
@@ -2,24 +2,240 @@ package com.example.inventario.infrastructure.adapters.out;
 
 import com.example.inventario.domain.model.StockLog;
 import com.example.inventario.domain.ports.out.RegistrarAuditoriaStockPort;
-import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Auditoría de stock asíncrona. Las filas se encolan cuando se confirma la transacción del
+ * movimiento (un movimiento deshecho no deja rastro) y un hilo en segundo plano las inserta en
+ * lotes de hasta app.auditoria.lote.tamano filas, como mucho app.auditoria.lote.intervalo-ms
+ * después de la primera.
+ *
+ * <p>El hueco en la cola se reserva antes de confirmar. Si tras esperar app.auditoria.cola.espera-ms
+ * no lo hay, el llamador inserta sus filas dentro de su propia transacción, con la conexión que ya
+ * tiene: la presión recae en quien produce, no se descarta ninguna y no hace falta una segunda
+ * conexión del pool justo cuando está saturado. Al apagar se vacía la cola; sólo se pierden filas
+ * si el proceso muere sin apagarse.
+ */
 @Component
 public class AuditoriaStockAdapter implements RegistrarAuditoriaStockPort {
 
-    @Autowired
-    private StockLogRepository repository;
+    private static final Logger log = LoggerFactory.getLogger(AuditoriaStockAdapter.class);
+
+    private static final int INTENTOS = 3;
+
+    private final EscritorStockLog escritor;
+    private final BlockingQueue<StockLog> cola;
+    // Huecos libres de la cola: se reservan antes de confirmar y se devuelven al sacar las filas
+    private final Semaphore huecos;
+    private final int tamanoLote;
+    private final long intervaloMs;
+    private final long esperaMs;
+
+    private final Counter escritas;
+    private final Counter directas;
+    private final Counter perdidas;
+    private final Timer duracionLote;
+
+    private volatile boolean activa = true;
+    private Thread escritorEnSegundoPlano;
+
+    public AuditoriaStockAdapter(EscritorStockLog escritor, MeterRegistry registry,
+                                 @Value("${app.auditoria.cola.capacidad:10000}") int capacidad,
+                                 @Value("${app.auditoria.lote.tamano:500}") int tamanoLote,
+                                 @Value("${app.auditoria.lote.intervalo-ms:200}") long intervaloMs,
+                                 @Value("${app.auditoria.cola.espera-ms:100}") long esperaMs) {
+        this.escritor = escritor;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.huecos = new Semaphore(capacidad);
+        this.tamanoLote = tamanoLote;
+        this.intervaloMs = intervaloMs;
+        this.esperaMs = esperaMs;
+
+        Gauge.builder("inventario.auditoria.pendientes", cola, BlockingQueue::size)
+                .description("Filas de auditoría en cola, aún sin escribir")
+                .register(registry);
+        this.escritas = Counter.builder("inventario.auditoria.escritas")
+                .description("Filas de auditoría insertadas")
+                .register(registry);
+        this.directas = Counter.builder("inventario.auditoria.directas")
+                .description("Filas que insertó el propio llamador por tener la cola llena")
+                .register(registry);
+        this.perdidas = Counter.builder("inventario.auditoria.perdidas")
+                .description("Filas descartadas tras agotar los reintentos")
+                .register(registry);
+        this.duracionLote = Timer.builder("inventario.auditoria.lote")
+                .description("Duración de cada inserción por lotes")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void iniciar() {
+        escritorEnSegundoPlano = new Thread(this::escribirEnSegundoPlano, "auditoria-stock");
+        escritorEnSegundoPlano.setDaemon(true);
+        escritorEnSegundoPlano.start();
+    }
 
     @Override
     public void registrarLog(StockLog log) {
-        StockLogEntity entity = new StockLogEntity();
-        entity.setProductoId(log.getProductoId());
-        entity.setCantidadAnterior(log.getCantidadAnterior());
-        entity.setCantidadNueva(log.getCantidadNueva());
-        entity.setOperacion(log.getOperacion());
-        entity.setFecha(log.getFecha());
-
-        repository.save(entity);
+        registrarLogs(List.of(log));
+    }
+
+    @Override
+    public void registrarLogs(List<StockLog> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<StockLog> confirmadas = List.copyOf(logs);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean reservadas;
+
+                // Sin hueco, las filas se confirman con el movimiento; si no se pueden escribir, tampoco él
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    reservadas = reservar(confirmadas.size());
+                    if (!reservadas) {
+                        directas.increment(confirmadas.size());
+                        duracionLote.record(() -> escritor.escribir(confirmadas));
+                        escritas.increment(confirmadas.size());
+                    }
+                }
+
+                @Override
+                public void afterCommit() {
+                    if (reservadas) {
+                        cola.addAll(confirmadas);
+                        reservadas = false;
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int estado) {
+                    if (reservadas) {
+                        huecos.release(confirmadas.size());
+                    }
+                }
+            });
+        } else if (reservar(logs.size())) {
+            cola.addAll(logs);
+        } else {
+            directas.increment(logs.size());
+            escribir(logs);
+        }
+    }
+
+    /**
+     * Escribe en el hilo llamador todo lo que hay en la cola.
+     */
+    public void vaciar() {
+        List<StockLog> lote = new ArrayList<>(tamanoLote);
+        while (cola.drainTo(lote, tamanoLote) > 0) {
+            huecos.release(lote.size());
+            escribir(lote);
+            lote = new ArrayList<>(tamanoLote);
+        }
+    }
+
+    /**
+     * Deja de aceptar filas en la cola, espera a que el hilo termine su lote y escribe lo que quede.
+     */
+    @PreDestroy
+    void detener() throws InterruptedException {
+        activa = false;
+        if (escritorEnSegundoPlano != null) {
+            escritorEnSegundoPlano.join(intervaloMs + 30_000);
+        }
+        vaciar();
+    }
+
+    private boolean reservar(int filas) {
+        if (!activa) {
+            return false;
+        }
+        try {
+            return huecos.tryAcquire(filas, esperaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Espera la primera fila y sigue recogiendo hasta completar el lote o agotar el intervalo.
+     * No se interrumpe al apagar: el sondeo con espera limitada deja ver el cambio de "activa".
+     */
+    private void escribirEnSegundoPlano() {
+        while (activa) {
+            try {
+                StockLog primera = cola.poll(intervaloMs, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    continue;
+                }
+                List<StockLog> lote = new ArrayList<>(tamanoLote);
+                lote.add(primera);
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+                while (lote.size() < tamanoLote) {
+                    cola.drainTo(lote, tamanoLote - lote.size());
+                    long restante = limite - System.nanoTime();
+                    if (lote.size() >= tamanoLote || restante <= 0) {
+                        break;
+                    }
+                    StockLog siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+                huecos.release(lote.size());
+                escribir(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void escribir(List<StockLog> lote) {
+        for (int intento = 1; ; intento++) {
+            try {
+                duracionLote.record(() -> escritor.escribir(lote));
+                escritas.increment(lote.size());
+                return;
+            } catch (RuntimeException e) {
+                if (intento == INTENTOS) {
+                    perdidas.increment(lote.size());
+                    log.error("No se pudieron escribir {} filas de auditoría de stock", lote.size(), e);
+                    return;
+                }
+                log.warn("Fallo al escribir {} filas de auditoría de stock (intento {} de {})", lote.size(), intento, INTENTOS, e);
+                esperar(intento * 500L);
+            }
+        }
+    }
+
+    private static void esperar(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
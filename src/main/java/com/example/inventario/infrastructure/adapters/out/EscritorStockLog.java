@@ -0,0 +1,47 @@
+package com.example.inventario.infrastructure.adapters.out;
+
+import com.example.inventario.domain.model.StockLog;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Inserta filas de stock_log con un lote JDBC, con IDs reservados de la secuencia y una sola
+ * transacción por lote. Si ya hay una (la escritura directa, antes de confirmar el movimiento) se
+ * une a ella y usa su conexión.
+ */
+@Component
+public class EscritorStockLog {
+
+    private static final String SECUENCIA = "public.stock_log_seq";
+    private static final String INSERTAR_LOG =
+            "INSERT INTO public.stock_log (id, producto_id, cantidad_anterior, cantidad_nueva, operacion, fecha) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReservaIdentificadores reservaIdentificadores;
+
+    public EscritorStockLog(JdbcTemplate jdbcTemplate, ReservaIdentificadores reservaIdentificadores) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reservaIdentificadores = reservaIdentificadores;
+    }
+
+    @Transactional
+    public void escribir(List<StockLog> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        Iterator<Long> ids = reservaIdentificadores.reservar(SECUENCIA, logs.size()).iterator();
+        jdbcTemplate.batchUpdate(INSERTAR_LOG, logs, logs.size(), (ps, log) -> {
+            ps.setLong(1, ids.next());
+            ps.setLong(2, log.getProductoId());
+            ps.setInt(3, log.getCantidadAnterior());
+            ps.setInt(4, log.getCantidadNueva());
+            ps.setString(5, log.getOperacion());
+            ps.setTimestamp(6, Timestamp.valueOf(log.getFecha()));
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.inventario.infrastructure.adapters.out;
+
+import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Producto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columnas de un movimiento en los listados: las del movimiento más el ID y el nombre del producto,
+ * que es todo lo que usa MovimientoDTO. Se lee con una proyección (SELECT new ...) en lugar de la
+ * entidad, así que no se carga el producto completo ni pasa nada por el contexto de persistencia.
+ */
+public record FilaMovimiento(Long id, Long idProducto, String nombreProducto, Movimiento.TipoMovimiento tipo,
+                             int cantidad, String descripcion, LocalDateTime fecha) {
+
+    // Movimiento con un producto reducido (sólo ID y nombre)
+    public Movimiento aDominio() {
+        Producto producto = null;
+        if (idProducto != null) {
+            producto = new Producto();
+            producto.setId(idProducto);
+            producto.setNombre(nombreProducto);
+        }
+        return new Movimiento(id, producto, tipo, cantidad, fecha, descripcion);
+    }
+}
@@ -1,25 +1,34 @@
 package com.example.inventario.infrastructure.adapters.out;
 
 
-import com.example.inventario.domain.model.Movimiento;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
+import java.time.LocalDateTime;
 import java.util.List;
 @Repository
 public interface JpaMovimientoRepository extends JpaRepository<MovimientoEntity, Long> {
 
-    // Obtener todos los movimientos de un producto
-    List<MovimientoEntity> findByProductoId(Long productoId);
+    // Salidas recientes por producto: el filtro por fecha recorre idx_movimiento_fecha_id
+    @Query(value = "SELECT p.id AS idProducto, p.stock AS stock, p.stock_minimo AS stockMinimo, "
+            + "p.unidades_vendidas AS unidadesVendidas, SUM(m.cantidad) AS unidades "
+            + "FROM public.movimiento m JOIN public.producto p ON p.id = m.producto_id "
+            + "WHERE m.tipo = 'SALIDA' AND m.fecha >= :desde GROUP BY p.id", nativeQuery = true)
+    List<FilaVentasRecientes> buscarVentasDesde(@Param("desde") LocalDateTime desde);
 
-    List<MovimientoEntity> findByProductoIdAndTipo(Long productoId, Movimiento.TipoMovimiento tipo);
+    // Proyección de las columnas devueltas por buscarVentasDesde
+    interface FilaVentasRecientes {
+        Long getIdProducto();
 
+        Integer getStock();
 
-    List<MovimientoEntity> findByTipo(Movimiento.TipoMovimiento tipo);
+        Integer getStockMinimo();
 
-    @Query("SELECT SUM(m.cantidad * m.producto.precio) FROM MovimientoEntity m WHERE m.producto.id = :productoId AND m.tipo = 'SALIDA'")
-    Double sumarCostoVentasPorProducto(@Param("productoId") Long productoId);
+        Long getUnidadesVendidas();
+
+        Long getUnidades();
+    }
 }
@@ -1,10 +1,14 @@
 package com.example.inventario.infrastructure.adapters.out;
 
 import com.example.inventario.domain.model.Producto;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.query.Procedure;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -23,6 +27,69 @@ public interface JpaProductoRepository extends JpaRepository<Producto, Long> {
     // Búsqueda por combinación de criterios
     List<Producto> findByNombreContainingIgnoreCaseAndCategoriaAndCodigo(String nombre, String categoria, String codigo);
 
-    @Query(value = "SELECT * FROM public.buscar_productos(:p_nombre, :p_categoria, :p_codigo)", nativeQuery = true)
-    List<Producto> buscar_productos(@Param("p_nombre") String nombre,@Param("p_categoria") String categoria,@Param("p_codigo") String codigo);
+    // Resultados ya ordenados por relevancia y limitados por la propia función
+    @Query(value = "SELECT * FROM public.buscar_productos(:p_nombre, :p_categoria, :p_codigo, :p_limite)", nativeQuery = true)
+    List<Producto> buscar_productos(@Param("p_nombre") String nombre,@Param("p_categoria") String categoria,@Param("p_codigo") String codigo,
+                                    @Param("p_limite") int limite);
+
+    // Stock bajo por keyset sobre (faltante, id) descendente: recorre hacia atrás el índice parcial
+    // idx_producto_stock_bajo, que sólo contiene los productos por debajo de su mínimo
+    @Query(value = "SELECT * FROM public.producto WHERE stock < stock_minimo "
+            + "ORDER BY stock_minimo - stock DESC, id DESC LIMIT :limite", nativeQuery = true)
+    List<Producto> buscarStockBajo(@Param("limite") int limite);
+
+    @Query(value = "SELECT * FROM public.producto WHERE stock < stock_minimo "
+            + "AND (stock_minimo - stock, id) < (:faltante, :id) "
+            + "ORDER BY stock_minimo - stock DESC, id DESC LIMIT :limite", nativeQuery = true)
+    List<Producto> buscarStockBajoDespuesDe(@Param("faltante") int faltante, @Param("id") Long id, @Param("limite") int limite);
+
+    // Lectura para modificar el producto con la estrategia pesimista: SELECT ... FOR UPDATE
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.id = :id")
+    Optional<Producto> buscarParaModificar(@Param("id") Long id);
+
+    // Ajuste atómico del stock y del acumulado de ventas: la condición evita dejar el stock negativo
+    // y RETURNING devuelve el stock anterior y el resultante. RETURNING ve la fila ya actualizada por
+    // esta sentencia bajo su bloqueo, así que "stock - :delta" es exactamente el valor que tenía antes
+    @Transactional
+    @Query(value = "UPDATE public.producto SET stock = stock + :delta, unidades_vendidas = unidades_vendidas + :vendidas, "
+            + "version = version + 1 "
+            + "WHERE id = :id AND stock + :delta >= 0 "
+            + "RETURNING stock - :delta AS stockAnterior, stock AS stock, unidades_vendidas AS unidadesVendidas", nativeQuery = true)
+    Optional<FilaAjusteStock> ajustarStock(@Param("id") Long id, @Param("delta") int delta, @Param("vendidas") int vendidas);
+
+    // Proyección de las columnas devueltas por ajustarStock
+    interface FilaAjusteStock {
+        Integer getStockAnterior();
+
+        Integer getStock();
+
+        Long getUnidadesVendidas();
+    }
+
+    // Estrategia optimista: lectura sin bloqueo del stock con su versión...
+    @Query(value = "SELECT stock AS stock, unidades_vendidas AS unidadesVendidas, version AS version "
+            + "FROM public.producto WHERE id = :id", nativeQuery = true)
+    Optional<FilaStockVersion> leerStock(@Param("id") Long id);
+
+    interface FilaStockVersion {
+        Integer getStock();
+
+        Long getUnidadesVendidas();
+
+        Long getVersion();
+    }
+
+    // ...y escritura sólo si nadie la cambió entretanto; 0 filas si otra transacción se adelantó
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE public.producto SET stock = :stock, unidades_vendidas = :vendidas, version = version + 1 "
+            + "WHERE id = :id AND version = :version", nativeQuery = true)
+    int escribirStockSiNoCambio(@Param("id") Long id, @Param("stock") int stock, @Param("vendidas") long vendidas,
+                                @Param("version") long version);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE public.producto SET factor_de_rotacion = :factor WHERE id = :id", nativeQuery = true)
+    int actualizarFactorDeRotacion(@Param("id") Long id, @Param("factor") double factor);
 }
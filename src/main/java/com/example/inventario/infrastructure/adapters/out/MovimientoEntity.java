@@ -11,11 +11,14 @@ import java.time.LocalDateTime;
 public class MovimientoEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movimiento_seq")
+    @SequenceGenerator(name = "movimiento_seq", sequenceName = "movimiento_seq", schema = "public", allocationSize = 50)
     private Long id;
 
+    // La clave foránea la crea migraciones/003-particiones.sql: Hibernate no la encuentra en una tabla
+    // particionada e intentaría añadirla en cada arranque
     @ManyToOne
-    @JoinColumn(name = "producto_id")
+    @JoinColumn(name = "producto_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Producto producto;
 
     @Enumerated(EnumType.STRING)
@@ -25,6 +28,11 @@ public class MovimientoEntity {
     private LocalDateTime fecha;
     private String descripcion;
 
+    // Sube con cada cambio; las modificaciones se condicionan a ella (ver MovimientoJpaAdapter.actualizarSiNoCambio)
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint not null default 0")
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -77,4 +85,12 @@ public class MovimientoEntity {
     public void setDescripcion(String descripcion) {
         this.descripcion = descripcion;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
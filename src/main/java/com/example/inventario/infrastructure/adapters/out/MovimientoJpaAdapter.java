@@ -1,23 +1,87 @@
 package com.example.inventario.infrastructure.adapters.out;
 
+import com.example.inventario.domain.model.CursorMovimiento;
+import com.example.inventario.domain.model.FiltroMovimientos;
 import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.model.VentasRecientes;
 import com.example.inventario.domain.ports.out.MovimientoRepositoryPort;
+import com.example.inventario.infrastructure.config.ControlConcurrencia;
+import com.example.inventario.infrastructure.config.ParticionesMensuales;
 import com.example.inventario.infrastructure.config.mapper.MovimientoMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
 public class MovimientoJpaAdapter implements MovimientoRepositoryPort {
 
+    private static final String SECUENCIA = "public.movimiento_seq";
+    private static final String INSERTAR_MOVIMIENTO =
+            "INSERT INTO public.movimiento (id, producto_id, tipo, cantidad, descripcion, fecha) VALUES (?, ?, ?, ?, ?, ?)";
+    // Listados: proyección directa a FilaMovimiento, sin entidades gestionadas ni el producto completo
+    private static final String SELECCIONAR_FILAS = "SELECT new com.example.inventario.infrastructure.adapters.out.FilaMovimiento("
+            + "m.id, p.id, p.nombre, m.tipo, m.cantidad, m.descripcion, m.fecha) FROM MovimientoEntity m ";
+    // La fecha mínima la deriva ParticionesMensuales del ID, para no abrir las particiones con IDs menores
+    private static final String RECORRER_MOVIMIENTOS =
+            "SELECT m.id, m.producto_id, p.nombre, m.tipo, m.cantidad, m.descripcion, m.fecha "
+                    + "FROM public.movimiento m LEFT JOIN public.producto p ON p.id = m.producto_id "
+                    + "WHERE m.id > ?";
+    // Lecturas por ID: se buscan por tramos de fecha (ver buscarPorTramos)
+    private static final String LEER_PARA_MODIFICAR =
+            "SELECT m.id, m.producto_id, p.nombre, m.tipo, m.cantidad, m.descripcion, m.fecha, m.version "
+                    + "FROM public.movimiento m LEFT JOIN public.producto p ON p.id = m.producto_id WHERE m.id = ?";
+    // Días con movimientos del producto según el resumen diario (idx_resumen_movimiento_producto_dia)
+    private static final String DIAS_DEL_PRODUCTO =
+            "SELECT MIN(dia) AS primero, MAX(dia) AS ultimo FROM public.resumen_movimiento_diario WHERE producto_id = ?";
+    // Modificaciones: fecha forma parte de la clave y acota la sentencia a una partición
+    private static final String ACTUALIZAR_SI_NO_CAMBIO =
+            "UPDATE public.movimiento SET tipo = ?, cantidad = ?, descripcion = ?, version = version + 1 "
+                    + "WHERE id = ? AND fecha = ? AND version = ?";
+    private static final String ELIMINAR_SI_NO_CAMBIO =
+            "DELETE FROM public.movimiento WHERE id = ? AND fecha = ? AND version = ?";
+
     private final JpaMovimientoRepository jpaRepository;
     private final MovimientoMapper mapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReservaIdentificadores reservaIdentificadores;
+    private final ParticionesMensuales particiones;
+    private final ControlConcurrencia control;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public MovimientoJpaAdapter(JpaMovimientoRepository jpaRepository, MovimientoMapper mapper) {
+    @Value("${app.movimientos.export.fetch-size:1000}")
+    private int tamanoFetch;
+
+    public MovimientoJpaAdapter(JpaMovimientoRepository jpaRepository, MovimientoMapper mapper, JdbcTemplate jdbcTemplate,
+                                ReservaIdentificadores reservaIdentificadores, ParticionesMensuales particiones,
+                                ControlConcurrencia control) {
         this.jpaRepository = jpaRepository;
         this.mapper = mapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.reservaIdentificadores = reservaIdentificadores;
+        this.particiones = particiones;
+        this.control = control;
     }
 
     @Override
@@ -27,10 +91,113 @@ public class MovimientoJpaAdapter implements MovimientoRepositoryPort {
         return mapper.toDomain(saved); // volver a modelo de dominio
     }
 
+    /**
+     * Reserva todos los IDs con una sola consulta a la secuencia (un nextval por cada 50 filas)
+     * y después inserta las filas en un único lote JDBC, en lugar de un INSERT por movimiento.
+     */
     @Override
+    public List<Movimiento> guardarTodos(List<Movimiento> movimientos) {
+        if (movimientos.isEmpty()) {
+            return movimientos;
+        }
+        List<Long> ids = reservaIdentificadores.reservar(SECUENCIA, movimientos.size());
+        for (int i = 0; i < movimientos.size(); i++) {
+            movimientos.get(i).setId(ids.get(i));
+        }
+
+        jdbcTemplate.batchUpdate(INSERTAR_MOVIMIENTO, movimientos, movimientos.size(), (ps, movimiento) -> {
+            ps.setLong(1, movimiento.getId());
+            ps.setLong(2, movimiento.getProducto().getId());
+            ps.setString(3, movimiento.getTipo().name());
+            ps.setInt(4, movimiento.getCantidad());
+            ps.setString(5, movimiento.getDescripcion());
+            ps.setTimestamp(6, Timestamp.valueOf(movimiento.getFecha()));
+        });
+        return movimientos;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Movimiento> buscarPorId(Long id) {
-        return jpaRepository.findById(id)
-                .map(mapper::toDomain);
+        return buscarPorTramos(tramo -> {
+            Map<String, Object> parametros = new HashMap<>();
+            List<String> condiciones = new ArrayList<>(List.of("m.id = :id"));
+            parametros.put("id", id);
+            acotar(tramo, condiciones, parametros);
+            return leerPagina(condiciones, parametros, 1, "LEFT JOIN").stream().findFirst();
+        });
+    }
+
+    /**
+     * Con JDBC y no con la entidad: un reintento optimista dentro de la misma transacción tiene que
+     * ver la versión nueva, no la copia que el contexto de persistencia guardó en el primer intento.
+     * Con la estrategia pesimista se bloquea sólo la fila del movimiento (FOR UPDATE OF m).
+     */
+    @Override
+    public Optional<Movimiento> buscarParaModificar(Long id) {
+        boolean bloquear = !control.optimista();
+        if (bloquear) {
+            control.prepararBloqueo();
+        }
+        return buscarPorTramos(tramo -> {
+            StringBuilder sql = new StringBuilder(LEER_PARA_MODIFICAR);
+            List<Object> parametros = new ArrayList<>(List.of(id));
+            if (tramo.desde() != null) {
+                sql.append(" AND m.fecha >= ?");
+                parametros.add(Timestamp.valueOf(tramo.desde()));
+            }
+            if (tramo.hasta() != null) {
+                sql.append(" AND m.fecha < ?");
+                parametros.add(Timestamp.valueOf(tramo.hasta()));
+            }
+            if (bloquear) {
+                sql.append(" FOR UPDATE OF m");
+            }
+            return jdbcTemplate.query(sql.toString(), (rs, fila) -> {
+                Producto producto = new Producto();
+                producto.setId(rs.getLong("producto_id"));
+                producto.setNombre(rs.getString("nombre"));
+
+                Movimiento movimiento = new Movimiento(rs.getLong("id"), producto,
+                        Movimiento.TipoMovimiento.valueOf(rs.getString("tipo")), rs.getInt("cantidad"),
+                        rs.getTimestamp("fecha").toLocalDateTime(), rs.getString("descripcion"));
+                movimiento.setVersion(rs.getLong("version"));
+                return movimiento;
+            }, parametros.toArray()).stream().findFirst();
+        });
+    }
+
+    /**
+     * Busca un movimiento por ID tramo a tramo, del mes actual hacia atrás (ver
+     * {@link ParticionesMensuales#tramosHaciaAtras}): el ID no dice en qué partición está, pero los
+     * movimientos que se consultan o modifican suelen ser recientes y se encuentran abriendo sólo la
+     * del mes. Uno antiguo cuesta una consulta por tramo, y los tramos crecen al doble.
+     */
+    private <T> Optional<T> buscarPorTramos(Function<ParticionesMensuales.Tramo, Optional<T>> busqueda) {
+        for (ParticionesMensuales.Tramo tramo : particiones.tramosHaciaAtras("movimiento", LocalDateTime.now(), null)) {
+            Optional<T> encontrado = busqueda.apply(tramo);
+            if (encontrado.isPresent()) {
+                return encontrado;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean actualizarSiNoCambio(Movimiento movimiento) {
+        int filas = jdbcTemplate.update(ACTUALIZAR_SI_NO_CAMBIO, movimiento.getTipo().name(), movimiento.getCantidad(),
+                movimiento.getDescripcion(), movimiento.getId(), Timestamp.valueOf(movimiento.getFecha()), movimiento.getVersion());
+        if (filas == 0) {
+            return false;
+        }
+        movimiento.setVersion(movimiento.getVersion() + 1);
+        return true;
+    }
+
+    @Override
+    public boolean eliminarSiNoCambio(Movimiento movimiento) {
+        return jdbcTemplate.update(ELIMINAR_SI_NO_CAMBIO, movimiento.getId(), Timestamp.valueOf(movimiento.getFecha()),
+                movimiento.getVersion()) > 0;
     }
 
     @Override
@@ -39,11 +206,9 @@ public class MovimientoJpaAdapter implements MovimientoRepositoryPort {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Movimiento> buscarPorProductoId(Long idProducto) {
-        return jpaRepository.findByProductoId(idProducto)
-                .stream()
-                .map(mapper::toDomain)
-                .collect(Collectors.toList());
+        return listarDelProducto(idProducto, null);
     }
 
     @Override
@@ -51,62 +216,186 @@ public class MovimientoJpaAdapter implements MovimientoRepositoryPort {
         return List.of();
     }
 
+    /**
+     * Con producto, como buscarPorProductoId. Sin él, una consulta por cada tramo de fecha hacia atrás
+     * desde el mes actual, como buscarPagina: cada una sólo abre las particiones de su rango.
+     */
     @Override
+    @Transactional(readOnly = true)
     public List<Movimiento> buscarMovimientos(Long productoId, String tipo) {
-        List<MovimientoEntity> resultados;
-
-        if (productoId != null && tipo != null) {
-            Movimiento.TipoMovimiento tipoMovimiento = Movimiento.TipoMovimiento.valueOf(tipo.toUpperCase());
-            resultados = jpaRepository.findByProductoIdAndTipo(productoId, tipoMovimiento);
-        } else if (productoId != null) {
-            resultados = jpaRepository.findByProductoId(productoId);
-        } else if (tipo != null) {
-            Movimiento.TipoMovimiento tipoMovimiento = Movimiento.TipoMovimiento.valueOf(tipo.toUpperCase());
-            resultados = jpaRepository.findByTipo(tipoMovimiento);
-        } else {
-            resultados = jpaRepository.findAll();
-        }
-
-        return resultados.stream()
-                .map(mapper::toDomain)
+        Movimiento.TipoMovimiento tipoMovimiento = tipo != null ? Movimiento.TipoMovimiento.valueOf(tipo.toUpperCase()) : null;
+        if (productoId != null) {
+            return listarDelProducto(productoId, tipoMovimiento);
+        }
+        List<Movimiento> movimientos = new ArrayList<>();
+        for (ParticionesMensuales.Tramo tramo : particiones.tramosHaciaAtras("movimiento", LocalDateTime.now(), null)) {
+            movimientos.addAll(listar(new FiltroMovimientos(null, tipoMovimiento, tramo.desde(), tramo.hasta())));
+        }
+        return movimientos;
+    }
+
+    /**
+     * Acotado a los días en que el producto tuvo movimientos según el resumen diario, que se mantiene
+     * en la misma transacción que cada alta o baja: así sólo se abren las particiones de esos meses.
+     */
+    private List<Movimiento> listarDelProducto(Long idProducto, Movimiento.TipoMovimiento tipo) {
+        Map<String, Object> dias = jdbcTemplate.queryForMap(DIAS_DEL_PRODUCTO, idProducto);
+        if (dias.get("primero") == null) {
+            return new ArrayList<>();
+        }
+        LocalDateTime desde = ((Date) dias.get("primero")).toLocalDate().atStartOfDay();
+        LocalDateTime hasta = ((Date) dias.get("ultimo")).toLocalDate().plusDays(1).atStartOfDay();
+        return listar(new FiltroMovimientos(idProducto, tipo, desde, hasta));
+    }
+
+    // Listado completo sin orden garantizado, como las consultas derivadas a las que sustituye
+    private List<Movimiento> listar(FiltroMovimientos filtro) {
+        Map<String, Object> parametros = new HashMap<>();
+        List<String> condiciones = condiciones(filtro, parametros);
+        String jpql = SELECCIONAR_FILAS + "LEFT JOIN m.producto p"
+                + (condiciones.isEmpty() ? "" : " WHERE " + String.join(" AND ", condiciones));
+        TypedQuery<FilaMovimiento> query = entityManager.createQuery(jpql, FilaMovimiento.class);
+        parametros.forEach(query::setParameter);
+        return query.getResultList().stream()
+                .map(FilaMovimiento::aDominio)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Paginación por keyset sobre (fecha, id): la consulta sólo añade los filtros presentes,
+     * arranca justo después del cursor y lee un elemento de más para saber si hay otra página.
+     * Cada fila se proyecta con el nombre del producto del mismo JOIN, sin hidratar entidades,
+     * en una transacción de sólo lectura.
+     * <p>
+     * Con la tabla particionada por mes, la página se busca por tramos de fecha hacia atrás desde
+     * el mes del cursor (o de "hasta", o el actual): primero ese mes, después el anterior, los dos
+     * anteriores, los cuatro anteriores... Cada tramo lleva su rango de fechas, así PostgreSQL sólo
+     * abre las particiones de ese rango, y casi siempre basta el primero. El último tramo, al llegar
+     * a la primera partición o a "desde", no lleva límite inferior.
+     */
     @Override
-    public void eliminarPorId(Long id) {
-        jpaRepository.deleteById(id);
+    @Transactional(readOnly = true)
+    public Pagina<Movimiento> buscarPagina(FiltroMovimientos filtro, CursorMovimiento despuesDe, int limite) {
+        Map<String, Object> parametros = new HashMap<>();
+        List<String> condiciones = condiciones(filtro, parametros);
+        LocalDateTime referencia = filtro.getHasta() != null ? filtro.getHasta() : LocalDateTime.now();
+        if (despuesDe != null) {
+            condiciones.add("(m.fecha, m.id) < (:cursorFecha, :cursorId)");
+            // Redundante con la anterior, pero PostgreSQL sólo poda particiones con comparaciones simples
+            condiciones.add("m.fecha <= :cursorFecha");
+            parametros.put("cursorFecha", despuesDe.getFecha());
+            parametros.put("cursorId", despuesDe.getId());
+            referencia = despuesDe.getFecha();
+        }
+
+        List<Movimiento> elementos = new ArrayList<>();
+        for (ParticionesMensuales.Tramo tramo : particiones.tramosHaciaAtras("movimiento", referencia, filtro.getDesde())) {
+            List<String> condicionesTramo = new ArrayList<>(condiciones);
+            Map<String, Object> parametrosTramo = new HashMap<>(parametros);
+            acotar(tramo, condicionesTramo, parametrosTramo);
+            elementos.addAll(leerPagina(condicionesTramo, parametrosTramo, limite + 1 - elementos.size(), "JOIN"));
+            if (elementos.size() > limite) {
+                break;
+            }
+        }
+
+        if (elementos.size() <= limite) {
+            return new Pagina<>(elementos, null);
+        }
+        elementos = elementos.subList(0, limite);
+        return new Pagina<>(elementos, CursorMovimiento.de(elementos.get(limite - 1)).codificar());
     }
 
-    @Override
-    public List<Movimiento> buscarTodos() {
-        return jpaRepository.findAll()  // Obtiene la lista de MovimientoEntity
-                .stream()  // Crea un Stream para procesar los elementos
-                .map(mapper::toDomain)  // Convierte cada MovimientoEntity a Movimiento (modelo de dominio)
-                .collect(Collectors.toList());  // Recoge el resultado en una lista
+    private List<Movimiento> leerPagina(List<String> condiciones, Map<String, Object> parametros, int maximo, String union) {
+        String jpql = SELECCIONAR_FILAS + union + " m.producto p"
+                + (condiciones.isEmpty() ? "" : " WHERE " + String.join(" AND ", condiciones))
+                + " ORDER BY m.fecha DESC, m.id DESC";
+        TypedQuery<FilaMovimiento> query = entityManager.createQuery(jpql, FilaMovimiento.class)
+                .setMaxResults(maximo);
+        parametros.forEach(query::setParameter);
+        return query.getResultList().stream()
+                .map(FilaMovimiento::aDominio)
+                .collect(Collectors.toList());
     }
 
-    @Override
-    public List<MovimientoEntity> findByProductoIdAndTipo(Long productoId, Movimiento.TipoMovimiento tipoMovimiento) {
-        return jpaRepository.findByProductoIdAndTipo(productoId, tipoMovimiento);
+    private static void acotar(ParticionesMensuales.Tramo tramo, List<String> condiciones, Map<String, Object> parametros) {
+        if (tramo.desde() != null) {
+            condiciones.add("m.fecha >= :suelo");
+            parametros.put("suelo", tramo.desde());
+        }
+        if (tramo.hasta() != null) {
+            condiciones.add("m.fecha < :techo");
+            parametros.put("techo", tramo.hasta());
+        }
     }
 
-    @Override
-    public List<MovimientoEntity> findByProductoId(Long productoId) {
-        return jpaRepository.findByProductoId(productoId);
+    // Condiciones JPQL de los filtros presentes, con sus parámetros
+    private static List<String> condiciones(FiltroMovimientos filtro, Map<String, Object> parametros) {
+        List<String> condiciones = new ArrayList<>();
+        if (filtro.getProductoId() != null) {
+            condiciones.add("m.producto.id = :productoId");
+            parametros.put("productoId", filtro.getProductoId());
+        }
+        if (filtro.getTipo() != null) {
+            condiciones.add("m.tipo = :tipo");
+            parametros.put("tipo", filtro.getTipo());
+        }
+        if (filtro.getDesde() != null) {
+            condiciones.add("m.fecha >= :desde");
+            parametros.put("desde", filtro.getDesde());
+        }
+        if (filtro.getHasta() != null) {
+            condiciones.add("m.fecha < :hasta");
+            parametros.put("hasta", filtro.getHasta());
+        }
+        return condiciones;
     }
 
+    /**
+     * Lee con un cursor de servidor de sólo avance: el driver de PostgreSQL sólo respeta el fetch size
+     * con autocommit desactivado, de ahí la transacción de sólo lectura. Las filas no pasan por el
+     * contexto de persistencia, así que la memoria no crece con el número de movimientos. Al reanudar
+     * una exportación sólo se abren las particiones desde la primera con IDs mayores.
+     */
     @Override
-    public List<MovimientoEntity> findByTipo(Movimiento.TipoMovimiento tipoMovimiento) {
-        return jpaRepository.findByTipo(tipoMovimiento);
+    @Transactional(readOnly = true)
+    public void recorrerMovimientos(Long despuesDeId, Consumer<Movimiento> consumidor) {
+        LocalDateTime desde = despuesDeId == null ? null
+                : particiones.inicioConIdMayorQue("movimiento", despuesDeId).orElse(null);
+        String sql = RECORRER_MOVIMIENTOS + (desde != null ? " AND m.fecha >= ?" : "") + " ORDER BY m.id";
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(tamanoFetch);
+            ps.setLong(1, despuesDeId != null ? despuesDeId : 0L);
+            if (desde != null) {
+                ps.setTimestamp(2, Timestamp.valueOf(desde));
+            }
+            return ps;
+        }, rs -> {
+            Producto producto = new Producto();
+            producto.setId(rs.getLong("producto_id"));
+            producto.setNombre(rs.getString("nombre"));
+
+            Timestamp fecha = rs.getTimestamp("fecha");
+            Movimiento movimiento = new Movimiento(rs.getLong("id"), producto,
+                    Movimiento.TipoMovimiento.valueOf(rs.getString("tipo")), rs.getInt("cantidad"),
+                    fecha != null ? fecha.toLocalDateTime() : null, rs.getString("descripcion"));
+            consumidor.accept(movimiento);
+        });
     }
 
     @Override
-    public List<MovimientoEntity> findAll() {
-        return jpaRepository.findAll();
+    public List<VentasRecientes> buscarVentasDesde(LocalDateTime desde) {
+        return jpaRepository.buscarVentasDesde(desde).stream()
+                .map(fila -> new VentasRecientes(fila.getIdProducto(), fila.getStock(), fila.getStockMinimo(),
+                        fila.getUnidadesVendidas(), fila.getUnidades()))
+                .collect(Collectors.toList());
     }
 
+    // Con la fecha leída, el DELETE va a una sola partición
     @Override
-    public Double sumarCostoVentasPorProducto(Long productoId) {
-        return 0.0;
+    public void eliminarPorId(Long id) {
+        buscarPorId(id).ifPresent(movimiento -> jdbcTemplate.update("DELETE FROM public.movimiento WHERE id = ? AND fecha = ?",
+                id, Timestamp.valueOf(movimiento.getFecha())));
     }
 }
@@ -1,12 +1,16 @@
 package com.example.inventario.infrastructure.adapters.out;
 
 import com.example.inventario.domain.ports.observer.StockObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class NotificationService implements StockObserver {
 
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+
     @Override
     public void notificarStockBajo(Long productoId, String productoNombre, int stock) {
         // Implementación de la notificación, p. ej., enviar correo o mensaje
-        System.out.println("Alerta: El producto " + productoNombre + " tiene un stock bajo de " + stock + " unidades.");
+        log.warn("Alerta: El producto {} tiene un stock bajo de {} unidades.", productoNombre, stock);
     }
 }
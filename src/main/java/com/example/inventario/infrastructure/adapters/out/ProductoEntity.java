@@ -9,7 +9,8 @@ import java.time.LocalDateTime;
 public class ProductoEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "producto_seq")
+    @SequenceGenerator(name = "producto_seq", sequenceName = "producto_seq", schema = "public", allocationSize = 50)
     private Long id;
     private String nombre;
     private String descripcion;
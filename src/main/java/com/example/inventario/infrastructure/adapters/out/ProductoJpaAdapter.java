@@ -1,48 +1,166 @@
 package com.example.inventario.infrastructure.adapters.out;
 
+import com.example.inventario.domain.model.AjusteStock;
+import com.example.inventario.domain.model.CursorStockBajo;
+import com.example.inventario.domain.model.Pagina;
 import com.example.inventario.domain.model.Producto;
 import com.example.inventario.domain.ports.out.ProductoRepositoryPort;
+import com.example.inventario.infrastructure.config.ControlConcurrencia;
 import com.example.inventario.infrastructure.config.mapper.ProductoMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Adaptador JPA de productos con una caché de lectura acotada (tamaño y TTL) para buscarPorId y
+ * buscarPorCodigo. Cada escritura descarta el producto cuando termina su transacción, y sólo se
+ * cachean lecturas hechas fuera de una transacción, es decir, datos confirmados. La validación de
+ * stock de las salidas nunca pasa por aquí: la hace el UPDATE condicional de ajustarStock.
+ * <p>
+ * Las dos cachés Caffeine (por id y de código a id) se construyen en el constructor, sin
+ * CacheManager de Spring ni @Cacheable; sus estadísticas se registran con CaffeineCacheMetrics.
+ * <p>
+ * Los ajustes de stock siguen la estrategia de {@link ControlConcurrencia}: con la pesimista, el
+ * UPDATE condicional bloquea la fila y los ajustes del mismo producto esperan su turno; con la
+ * optimista, se lee stock y versión sin bloquear, se comprueba el stock en Java y se escribe sólo si
+ * la versión no cambió, reintentando si cambió.
+ */
 @Repository
 public class ProductoJpaAdapter implements ProductoRepositoryPort {
 
     private final JpaProductoRepository jpaRepository;
     private final ProductoMapper mapper;
+    private final ControlConcurrencia control;
 
-    public ProductoJpaAdapter(JpaProductoRepository jpaRepository, ProductoMapper mapper) {
+    // Copias desligadas del contexto de persistencia; cada acierto devuelve otra copia para que el llamador pueda modificarla
+    private final Cache<Long, Producto> porId;
+    private final Cache<String, Long> idPorCodigo;
+
+    // Aumenta en cada descarte: una lectura que se cruzó con una escritura no se queda en la caché
+    private final AtomicLong descartes = new AtomicLong();
+
+    // Ajustes de stock en curso por producto, desde el UPDATE hasta el fin de su transacción: lo que la fila queda bloqueada
+    private final Map<Long, Integer> ajustesEnCurso = new ConcurrentHashMap<>();
+    private final MeterRegistry registry;
+    private final Timer duracionAjuste;
+    private final Counter rechazados;
+
+    public ProductoJpaAdapter(JpaProductoRepository jpaRepository, ProductoMapper mapper, ControlConcurrencia control,
+                              MeterRegistry registry,
+                              @Value("${app.productos.cache.maximo:10000}") long maximo,
+                              @Value("${app.productos.cache.ttl-ms:60000}") long ttlMs) {
         this.jpaRepository = jpaRepository;
         this.mapper = mapper;
+        this.control = control;
+        this.registry = registry;
+        this.porId = Caffeine.newBuilder()
+                .maximumSize(maximo)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        this.idPorCodigo = Caffeine.newBuilder()
+                .maximumSize(maximo)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, porId, "productos");
+        CaffeineCacheMetrics.monitor(registry, idPorCodigo, "productos-codigo");
+        this.duracionAjuste = Timer.builder("inventario.stock.ajuste")
+                .description("Duración del UPDATE condicional de stock, incluida la espera por el bloqueo de la fila")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rechazados = Counter.builder("inventario.stock.ajustes.rechazados")
+                .description("Salidas rechazadas por el UPDATE condicional: stock insuficiente (o producto inexistente, caso raro)")
+                .register(registry);
     }
 
     @Override
     public Producto guardar(Producto producto) {
         Producto saved = jpaRepository.save(producto);
+        descartarAlTerminar(saved.getId(), true);
         return saved;
     }
 
     @Override
     public Optional<Producto> buscarPorId(Long id) {
-        return jpaRepository.findById(id)
+        if (!escritoEnEstaTransaccion(id)) {
+            Producto cacheado = porId.getIfPresent(id);
+            if (cacheado != null) {
+                return Optional.of(mapper.toDomain(cacheado));
+            }
+        }
+
+        long descartesAntes = descartes.get();
+        Optional<Producto> producto = jpaRepository.findById(id)
                 .map(mapper::toDomain);
+        producto.ifPresent(leido -> cachear(leido, descartesAntes));
+        return producto;
+    }
+
+    /**
+     * Siempre de la base de datos, nunca de la caché ni se cachea: la versión leída es la que se
+     * comprobará al guardar. Con la estrategia pesimista la fila queda bloqueada hasta el fin de la
+     * transacción.
+     */
+    @Override
+    public Optional<Producto> buscarPorIdParaModificar(Long id) {
+        Optional<Producto> producto;
+        if (control.optimista()) {
+            producto = jpaRepository.findById(id);
+        } else {
+            control.prepararBloqueo();
+            producto = jpaRepository.buscarParaModificar(id);
+        }
+        return producto.map(mapper::toDomain);
+    }
+
+    @Override
+    public Optional<Producto> buscarPorIdSinCache(Long id) {
+        return jpaRepository.findById(id).map(mapper::toDomain);
     }
 
     @Override
     public Optional<Producto> buscarPorCodigo(String codigo) {
-        return jpaRepository.findByCodigo(codigo);
+        Long id = idPorCodigo.getIfPresent(codigo);
+        if (id != null && !escritoEnEstaTransaccion(id)) {
+            Producto cacheado = porId.getIfPresent(id);
+            // El código pudo cambiar desde que se cacheó la asociación
+            if (cacheado != null && codigo.equals(cacheado.getCodigo())) {
+                return Optional.of(mapper.toDomain(cacheado));
+            }
+        }
+
+        // Las ausencias no se cachean: crearProducto las usa para validar que el código no esté repetido
+        long descartesAntes = descartes.get();
+        Optional<Producto> producto = jpaRepository.findByCodigo(codigo)
+                .map(mapper::toDomain);
+        producto.ifPresent(leido -> cachear(leido, descartesAntes));
+        return producto;
     }
 
     @Override
     @Transactional
-    public List<Producto> buscarPorCriterios(String nombre, String categoria, String codigo) {
+    public List<Producto> buscarPorCriterios(String nombre, String categoria, String codigo, int limite) {
         // Este método depende de una consulta personalizada en JpaProductoRepository
-        return jpaRepository.buscar_productos(nombre,categoria,codigo);
+        return jpaRepository.buscar_productos(nombre,categoria,codigo,limite);
     }
 
     @Override
@@ -50,8 +168,163 @@ public class ProductoJpaAdapter implements ProductoRepositoryPort {
         return List.of();
     }
 
+    /**
+     * Lee un elemento de más para saber si hay otra página, como la paginación de movimientos.
+     */
+    @Override
+    public Pagina<Producto> buscarStockBajo(CursorStockBajo despuesDe, int limite) {
+        List<Producto> elementos = despuesDe == null
+                ? jpaRepository.buscarStockBajo(limite + 1)
+                : jpaRepository.buscarStockBajoDespuesDe(despuesDe.getFaltante(), despuesDe.getId(), limite + 1);
+        if (elementos.size() <= limite) {
+            return new Pagina<>(elementos, null);
+        }
+        elementos = elementos.subList(0, limite);
+        return new Pagina<>(elementos, CursorStockBajo.de(elementos.get(limite - 1)).codificar());
+    }
+
     @Override
     public void eliminarPorId(Long id) {
         jpaRepository.deleteById(id);
+        descartarAlTerminar(id, true);
+    }
+
+    /**
+     * Tras un ajuste la entrada cacheada sigue siendo el último estado confirmado hasta el commit,
+     * igual que el producto del contexto de persistencia: quien lea en la misma transacción debe
+     * aplicar el {@link AjusteStock} devuelto.
+     */
+    @Override
+    public Optional<AjusteStock> ajustarStock(Long id, int delta, int vendidas) {
+        registrarAjusteEnCurso(id);
+        Optional<AjusteStock> ajuste = duracionAjuste.record(() -> control.optimista()
+                ? ajustarSiNoCambio(id, delta, vendidas)
+                : ajustarBloqueando(id, delta, vendidas));
+        ajuste.ifPresentOrElse(aplicado -> descartarAlTerminar(id, false), () -> {
+            if (delta < 0) {
+                rechazados.increment();
+            }
+        });
+        return ajuste;
+    }
+
+    private Optional<AjusteStock> ajustarBloqueando(Long id, int delta, int vendidas) {
+        control.prepararBloqueo();
+        return jpaRepository.ajustarStock(id, delta, vendidas)
+                .map(fila -> new AjusteStock(fila.getStockAnterior(), fila.getStock(), fila.getUnidadesVendidas()));
+    }
+
+    // Cada intento relee la fila: en READ COMMITTED cada sentencia ve lo último confirmado
+    private Optional<AjusteStock> ajustarSiNoCambio(Long id, int delta, int vendidas) {
+        return control.reintentar(() -> {
+            Optional<JpaProductoRepository.FilaStockVersion> leida = jpaRepository.leerStock(id);
+            if (leida.isEmpty() || leida.get().getStock() + delta < 0) {
+                return Optional.<AjusteStock>empty();
+            }
+            JpaProductoRepository.FilaStockVersion fila = leida.get();
+            int stock = fila.getStock() + delta;
+            long unidadesVendidas = fila.getUnidadesVendidas() + vendidas;
+            if (jpaRepository.escribirStockSiNoCambio(id, stock, unidadesVendidas, fila.getVersion()) == 0) {
+                return null;
+            }
+            return Optional.of(new AjusteStock(fila.getStock(), stock, unidadesVendidas));
+        });
+    }
+
+    /**
+     * Anota el ajuste hasta que termine su transacción (o ya mismo si no hay ninguna). Si otro ajuste
+     * del mismo producto sigue en curso, éste espera por el bloqueo de la fila y se cuenta como
+     * contención en inventario.stock.contencion, una serie por producto.
+     */
+    private void registrarAjusteEnCurso(Long id) {
+        if (ajustesEnCurso.merge(id, 1, Integer::sum) > 1) {
+            Counter.builder("inventario.stock.contencion")
+                    .description("Ajustes de stock que encontraron otro ajuste del mismo producto en curso")
+                    .tag("producto", id.toString())
+                    .register(registry)
+                    .increment();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            escriturasTransaccion().ajustes.add(id);
+        } else {
+            terminarAjuste(id);
+        }
+    }
+
+    private void terminarAjuste(Long id) {
+        ajustesEnCurso.computeIfPresent(id, (clave, enCurso) -> enCurso == 1 ? null : enCurso - 1);
+    }
+
+    @Override
+    public void actualizarFactorDeRotacion(Long id, double factorDeRotacion) {
+        jpaRepository.actualizarFactorDeRotacion(id, factorDeRotacion);
+        descartarAlTerminar(id, false);
+    }
+
+    /**
+     * Cachea una copia de lo leído si la lectura fue de datos confirmados. Si entretanto se descartó
+     * algún producto, la entrada se retira: la lectura pudo ser anterior al commit de esa escritura.
+     */
+    private void cachear(Producto producto, long descartesAntes) {
+        if (TransactionSynchronizationManager.isActualTransactionActive() || descartes.get() != descartesAntes) {
+            return;
+        }
+        porId.put(producto.getId(), mapper.toDomain(producto));
+        idPorCodigo.put(producto.getCodigo(), producto.getId());
+        if (descartes.get() != descartesAntes) {
+            porId.invalidate(producto.getId());
+        }
+    }
+
+    private void descartar(Long id) {
+        descartes.incrementAndGet();
+        porId.invalidate(id);
+    }
+
+    /**
+     * Descarta el producto al terminar la transacción en curso (confirmada o no), o ya mismo si no
+     * hay ninguna. Con "sinCache" las lecturas posteriores de la misma transacción van a la base de
+     * datos, que es la única que ve la escritura todavía sin confirmar.
+     */
+    private void descartarAlTerminar(Long id, boolean sinCache) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            descartar(id);
+            return;
+        }
+        EscriturasTransaccion escrituras = escriturasTransaccion();
+        escrituras.descartar.add(id);
+        if (sinCache) {
+            escrituras.sinCache.add(id);
+        }
+    }
+
+    private boolean escritoEnEstaTransaccion(Long id) {
+        EscriturasTransaccion escrituras = (EscriturasTransaccion) TransactionSynchronizationManager.getResource(this);
+        return escrituras != null && escrituras.sinCache.contains(id);
+    }
+
+    private EscriturasTransaccion escriturasTransaccion() {
+        EscriturasTransaccion escrituras = (EscriturasTransaccion) TransactionSynchronizationManager.getResource(this);
+        if (escrituras == null) {
+            EscriturasTransaccion nuevas = new EscriturasTransaccion();
+            TransactionSynchronizationManager.bindResource(this, nuevas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProductoJpaAdapter.this);
+                    nuevas.descartar.forEach(ProductoJpaAdapter.this::descartar);
+                    nuevas.ajustes.forEach(ProductoJpaAdapter.this::terminarAjuste);
+                }
+            });
+            escrituras = nuevas;
+        }
+        return escrituras;
+    }
+
+    // Productos escritos por la transacción en curso
+    private static final class EscriturasTransaccion {
+        private final Set<Long> descartar = new HashSet<>();
+        private final Set<Long> sinCache = new HashSet<>();
+        private final List<Long> ajustes = new ArrayList<>();
     }
 }
@@ -0,0 +1,40 @@
+package com.example.inventario.infrastructure.adapters.out;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reserva IDs para los INSERT por lotes hechos con JDBC siguiendo el mismo esquema que el
+ * optimizador "pooled" de Hibernate: cada nextval devuelve el extremo superior de un bloque
+ * de 50 IDs. Así JDBC e Hibernate comparten secuencia sin pisarse.
+ */
+@Component
+public class ReservaIdentificadores {
+
+    // Debe coincidir con el allocationSize de las entidades y el INCREMENT BY de migraciones.sql
+    public static final int TAMANO_BLOQUE = 50;
+
+    private static final String RESERVAR_BLOQUES = "SELECT nextval(?::regclass) FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReservaIdentificadores(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Long> reservar(String secuencia, int cantidad) {
+        int bloques = (cantidad + TAMANO_BLOQUE - 1) / TAMANO_BLOQUE;
+        List<Long> superiores = jdbcTemplate.queryForList(RESERVAR_BLOQUES, Long.class, secuencia, bloques);
+
+        List<Long> ids = new ArrayList<>(cantidad);
+        for (Long superior : superiores) {
+            for (long id = superior - TAMANO_BLOQUE + 1; id <= superior && ids.size() < cantidad; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.inventario.infrastructure.adapters.out;
+
+import com.example.inventario.domain.model.CursorResumen;
+import com.example.inventario.domain.model.FiltroResumen;
+import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.ResumenDiario;
+import com.example.inventario.domain.ports.out.ResumenMovimientosPort;
+import com.example.inventario.infrastructure.config.ParticionesMensuales;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resumen diario sobre resumen_movimiento_diario, una fila por día y producto. Las altas y bajas de
+ * movimientos se aplican como incrementos con un único INSERT ... ON CONFLICT por lote, así que el
+ * coste de mantenerlo no depende del histórico. Los informes leen sólo esta tabla (y producto para
+ * el nombre y la categoría) recorriendo la clave primaria (dia, producto_id).
+ */
+@Repository
+public class ResumenMovimientosJdbcAdapter implements ResumenMovimientosPort {
+
+    private static final String ACUMULAR =
+            "INSERT INTO public.resumen_movimiento_diario AS r (dia, producto_id, entradas, salidas) VALUES (?, ?, ?, ?)"
+                    + " ON CONFLICT (dia, producto_id) DO UPDATE"
+                    + " SET entradas = r.entradas + EXCLUDED.entradas, salidas = r.salidas + EXCLUDED.salidas";
+
+    // Mismo cálculo que migraciones/004-resumen-movimientos.sql, acotado a un rango de fechas
+    private static final String RECALCULAR =
+            "INSERT INTO public.resumen_movimiento_diario (dia, producto_id, entradas, salidas)"
+                    + " SELECT fecha::date, producto_id,"
+                    + " SUM(CASE WHEN tipo = 'ENTRADA' THEN cantidad ELSE 0 END),"
+                    + " SUM(CASE WHEN tipo = 'SALIDA' THEN cantidad ELSE 0 END)"
+                    + " FROM public.movimiento WHERE producto_id IS NOT NULL AND fecha >= ? AND fecha < ?"
+                    + " GROUP BY fecha::date, producto_id";
+
+    // Orden de las filas del lote: dos transacciones que tocan los mismos días las bloquean en el mismo orden
+    private static final Comparator<Clave> ORDEN = Comparator.comparing(Clave::dia).thenComparing(Clave::idProducto);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ParticionesMensuales particiones;
+
+    public ResumenMovimientosJdbcAdapter(JdbcTemplate jdbcTemplate, ParticionesMensuales particiones) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.particiones = particiones;
+    }
+
+    @Override
+    public void acumular(List<Movimiento> altas, List<Movimiento> bajas) {
+        Map<Clave, long[]> incrementos = new TreeMap<>(ORDEN);
+        sumar(incrementos, altas, 1);
+        sumar(incrementos, bajas, -1);
+
+        List<Object[]> filas = new ArrayList<>();
+        incrementos.forEach((clave, valores) -> {
+            // Una modificación que no cambia cantidad ni tipo se anula consigo misma
+            if (valores[0] != 0 || valores[1] != 0) {
+                filas.add(new Object[]{Date.valueOf(clave.dia()), clave.idProducto(), valores[0], valores[1]});
+            }
+        });
+        if (!filas.isEmpty()) {
+            jdbcTemplate.batchUpdate(ACUMULAR, filas);
+        }
+    }
+
+    private static void sumar(Map<Clave, long[]> incrementos, List<Movimiento> movimientos, int signo) {
+        for (Movimiento movimiento : movimientos) {
+            if (movimiento.getProducto() == null || movimiento.getFecha() == null) {
+                continue;
+            }
+            long[] valores = incrementos.computeIfAbsent(
+                    new Clave(movimiento.getFecha().toLocalDate(), movimiento.getProducto().getId()), clave -> new long[2]);
+            valores[movimiento.getTipo() == Movimiento.TipoMovimiento.ENTRADA ? 0 : 1] += (long) signo * movimiento.getCantidad();
+        }
+    }
+
+    @Override
+    public Pagina<ResumenDiario> buscarPagina(FiltroResumen filtro, CursorResumen despuesDe, int limite) {
+        boolean porCategoria = filtro.getAgrupacion() == ResumenDiario.Agrupacion.CATEGORIA;
+        List<Object> parametros = new ArrayList<>();
+
+        StringBuilder donde = new StringBuilder(" WHERE r.dia >= ? AND r.dia <= ?");
+        parametros.add(Date.valueOf(filtro.getDesde()));
+        parametros.add(Date.valueOf(filtro.getHasta()));
+        if (filtro.getProductoId() != null) {
+            donde.append(" AND r.producto_id = ?");
+            parametros.add(filtro.getProductoId());
+        }
+        if (filtro.getCategoria() != null) {
+            donde.append(" AND p.categoria = ?");
+            parametros.add(filtro.getCategoria());
+        }
+
+        String sql;
+        if (porCategoria) {
+            // Los productos sin categoría se agrupan bajo la cadena vacía, que también hace de clave del cursor
+            String categoria = "COALESCE(p.categoria, '')";
+            sql = "SELECT r.dia, " + categoria + " AS categoria, SUM(r.entradas) AS entradas, SUM(r.salidas) AS salidas"
+                    + " FROM public.resumen_movimiento_diario r JOIN public.producto p ON p.id = r.producto_id" + donde
+                    + (despuesDe != null ? " AND (r.dia, " + categoria + ") > (?, ?)" : "")
+                    + " GROUP BY r.dia, " + categoria
+                    + " HAVING SUM(r.entradas) <> 0 OR SUM(r.salidas) <> 0"
+                    + " ORDER BY r.dia, " + categoria + " LIMIT ?";
+            if (despuesDe != null) {
+                parametros.add(Date.valueOf(despuesDe.getDia()));
+                parametros.add(despuesDe.getClave());
+            }
+        } else {
+            sql = "SELECT r.dia, r.producto_id, p.nombre, p.categoria, r.entradas, r.salidas"
+                    + " FROM public.resumen_movimiento_diario r JOIN public.producto p ON p.id = r.producto_id" + donde
+                    + (despuesDe != null ? " AND (r.dia, r.producto_id) > (?, ?)" : "")
+                    + " AND (r.entradas <> 0 OR r.salidas <> 0)"
+                    + " ORDER BY r.dia, r.producto_id LIMIT ?";
+            if (despuesDe != null) {
+                parametros.add(Date.valueOf(despuesDe.getDia()));
+                parametros.add(claveProducto(despuesDe));
+            }
+        }
+        // Una fila de más indica si hay página siguiente
+        parametros.add(limite + 1);
+
+        List<ResumenDiario> filas = jdbcTemplate.query(sql, (rs, fila) -> new ResumenDiario(
+                rs.getDate("dia").toLocalDate(),
+                porCategoria ? null : rs.getLong("producto_id"),
+                porCategoria ? null : rs.getString("nombre"),
+                rs.getString("categoria"),
+                rs.getLong("entradas"),
+                rs.getLong("salidas")), parametros.toArray());
+
+        if (filas.size() <= limite) {
+            return new Pagina<>(filas, null);
+        }
+        List<ResumenDiario> elementos = filas.subList(0, limite);
+        return new Pagina<>(elementos, CursorResumen.de(elementos.get(limite - 1)).codificar());
+    }
+
+    private static long claveProducto(CursorResumen cursor) {
+        try {
+            return Long.parseLong(cursor.getClave());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Cursor no válido para la agrupación por producto");
+        }
+    }
+
+    /**
+     * Borra y recalcula los días del rango. El bloqueo SHARE ROW EXCLUSIVE espera a las transacciones
+     * que ya acumularon en el resumen y detiene las nuevas hasta terminar, así que ningún movimiento
+     * se cuenta dos veces ni se pierde; las lecturas de los informes no se bloquean. Los meses ya
+     * archivados no están en movimiento, así que conservan el resumen que tenían.
+     */
+    @Override
+    @Transactional
+    public int reconstruir(LocalDate desde, LocalDate hasta) {
+        LocalDate primerDia = particiones.inicioParticiones("movimiento").map(LocalDateTime::toLocalDate).orElse(desde);
+        if (desde.isBefore(primerDia)) {
+            desde = primerDia;
+        }
+        if (desde.isAfter(hasta)) {
+            return 0;
+        }
+        jdbcTemplate.execute("LOCK TABLE public.resumen_movimiento_diario IN SHARE ROW EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM public.resumen_movimiento_diario WHERE dia >= ? AND dia <= ?",
+                Date.valueOf(desde), Date.valueOf(hasta));
+        return jdbcTemplate.update(RECALCULAR,
+                Timestamp.valueOf(desde.atStartOfDay()), Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()));
+    }
+
+    private record Clave(LocalDate dia, Long idProducto) {
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.inventario.infrastructure.adapters.out;
+
+import com.example.inventario.domain.model.CursorKardex;
+import com.example.inventario.domain.model.LineaKardex;
+import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.StockEnFecha;
+import com.example.inventario.domain.ports.out.StockHistoricoPort;
+import com.example.inventario.infrastructure.config.ParticionesMensuales;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Stock histórico sobre stock_diario. Cada consulta hace, por producto, dos lecturas de índice: la
+ * última instantánea hasta el día (clave primaria producto_id, fecha) y la suma del resumen diario de
+ * los días posteriores (idx_resumen_movimiento_producto_dia), sin leer movimiento: una fila por día con
+ * movimientos en lugar de una por movimiento, y también para los meses ya archivados.
+ * Un movimiento de un día ya cerrado suma su efecto a las instantáneas de ese día en adelante con un
+ * UPDATE sobre la clave primaria.
+ * <p>
+ * El kardex parte del inventario inicial: el saldo de apertura suma el resumen diario de los días
+ * anteriores (que también cubre los meses archivados) y los movimientos del propio día antes de la
+ * hora pedida. Cada página se lee con una suma acumulada (ventana) sobre el mismo índice, que
+ * PostgreSQL calcula fila a fila y corta en el LIMIT.
+ */
+@Repository
+public class StockHistoricoJdbcAdapter implements StockHistoricoPort {
+
+    // Efecto de un movimiento en el stock
+    private static final String EFECTO = "CASE WHEN m.tipo = 'ENTRADA' THEN m.cantidad ELSE -m.cantidad END";
+
+    // Sin instantánea se parte del inventario inicial; un producto creado después del día tenía 0. Los días
+    // posteriores a la instantánea salen del resumen diario, que también cubre los meses archivados
+    private static final String STOCK_AL_CIERRE =
+            "SELECT p.id, p.codigo, p.nombre, CASE WHEN p.fecha_creacion >= ? THEN 0"
+                    + " ELSE COALESCE(s.stock, p.inventario_inicial) + COALESCE((SELECT SUM(r.entradas - r.salidas)"
+                    + " FROM public.resumen_movimiento_diario r WHERE r.producto_id = p.id"
+                    + " AND r.dia > COALESCE(s.fecha, '-infinity'::date) AND r.dia <= ?), 0) END AS stock"
+                    + " FROM public.producto p"
+                    + " LEFT JOIN LATERAL (SELECT d.fecha, d.stock FROM public.stock_diario d"
+                    + " WHERE d.producto_id = p.id AND d.fecha <= ? ORDER BY d.fecha DESC LIMIT 1) s ON true";
+
+    // El cierre del día se calcula hacia atrás desde el stock actual, que es el dato fiable
+    private static final String GUARDAR_INSTANTANEA =
+            "INSERT INTO public.stock_diario (producto_id, fecha, stock)"
+                    + " SELECT p.id, ?, c.stock FROM public.producto p"
+                    + " CROSS JOIN LATERAL (SELECT p.stock - COALESCE((SELECT SUM(" + EFECTO + ")"
+                    + " FROM public.movimiento m WHERE m.producto_id = p.id AND m.fecha >= ?), 0) AS stock) c"
+                    + " LEFT JOIN LATERAL (SELECT d.stock FROM public.stock_diario d"
+                    + " WHERE d.producto_id = p.id AND d.fecha < ? ORDER BY d.fecha DESC LIMIT 1) u ON true"
+                    + " WHERE (p.fecha_creacion IS NULL OR p.fecha_creacion < ?) AND u.stock IS DISTINCT FROM c.stock"
+                    + " ON CONFLICT (producto_id, fecha) DO NOTHING";
+
+    // Una instantánea es el cierre de su día: la cambian los movimientos de ese día y de los anteriores
+    private static final String CORREGIR_INSTANTANEAS =
+            "UPDATE public.stock_diario SET stock = stock + ? WHERE producto_id = ? AND fecha >= ?";
+
+    // Orden de las correcciones del lote: dos transacciones que tocan el mismo producto lo bloquean en el mismo orden
+    private static final Comparator<Clave> ORDEN = Comparator.comparing(Clave::idProducto).thenComparing(Clave::dia);
+
+    private static final String SALDO_ANTES_DE =
+            "SELECT p.inventario_inicial"
+                    + " + COALESCE((SELECT SUM(r.entradas - r.salidas) FROM public.resumen_movimiento_diario r"
+                    + " WHERE r.producto_id = p.id AND r.dia < ?), 0)"
+                    + " + COALESCE((SELECT SUM(" + EFECTO + ") FROM public.movimiento m"
+                    + " WHERE m.producto_id = p.id AND m.fecha >= ? AND m.fecha < ?), 0)"
+                    + " FROM public.producto p WHERE p.id = ?";
+
+    // La fecha mínima repite la del cursor para que PostgreSQL descarte las particiones anteriores
+    private static final String KARDEX =
+            "SELECT m.id, m.fecha, m.tipo, m.cantidad, m.descripcion,"
+                    + " ? + SUM(" + EFECTO + ") OVER (ORDER BY m.fecha, m.id ROWS UNBOUNDED PRECEDING) AS saldo"
+                    + " FROM public.movimiento m"
+                    + " WHERE m.producto_id = ? AND m.fecha >= ? AND (m.fecha, m.id) > (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ParticionesMensuales particiones;
+
+    public StockHistoricoJdbcAdapter(JdbcTemplate jdbcTemplate, ParticionesMensuales particiones) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.particiones = particiones;
+    }
+
+    @Override
+    public Optional<StockEnFecha> buscarStockAlCierre(Long idProducto, LocalDate dia) {
+        Timestamp fin = finDelDia(dia);
+        return jdbcTemplate.query(STOCK_AL_CIERRE + " WHERE p.id = ?", filas(dia), fin, Date.valueOf(dia), Date.valueOf(dia), idProducto)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<StockEnFecha> buscarStockCatalogoAlCierre(LocalDate dia, Long despuesDeId, int limite) {
+        Timestamp fin = finDelDia(dia);
+        return jdbcTemplate.query(STOCK_AL_CIERRE + " WHERE p.id > ? ORDER BY p.id LIMIT ?", filas(dia),
+                fin, Date.valueOf(dia), Date.valueOf(dia), despuesDeId != null ? despuesDeId : 0L, limite);
+    }
+
+    @Override
+    public Optional<LocalDate> ultimaInstantanea() {
+        Date ultima = jdbcTemplate.queryForObject("SELECT MAX(fecha) FROM public.stock_diario", Date.class);
+        return Optional.ofNullable(ultima).map(Date::toLocalDate);
+    }
+
+    @Override
+    public int guardarInstantanea(LocalDate dia) {
+        Timestamp fin = finDelDia(dia);
+        return jdbcTemplate.update(GUARDAR_INSTANTANEA, Date.valueOf(dia), fin, Date.valueOf(dia), fin);
+    }
+
+    @Override
+    public void corregirInstantaneas(List<Movimiento> altas, List<Movimiento> bajas) {
+        Map<Clave, Long> efectos = new TreeMap<>(ORDEN);
+        sumar(efectos, altas, 1);
+        sumar(efectos, bajas, -1);
+
+        List<Object[]> filas = new ArrayList<>();
+        efectos.forEach((clave, efecto) -> {
+            if (efecto != 0) {
+                filas.add(new Object[]{efecto, clave.idProducto(), Date.valueOf(clave.dia())});
+            }
+        });
+        if (!filas.isEmpty()) {
+            jdbcTemplate.batchUpdate(CORREGIR_INSTANTANEAS, filas);
+        }
+    }
+
+    // Sólo hay instantáneas de días cerrados: los movimientos de hoy (los habituales) no corrigen nada
+    private static void sumar(Map<Clave, Long> efectos, List<Movimiento> movimientos, int signo) {
+        LocalDate hoy = LocalDate.now();
+        for (Movimiento movimiento : movimientos) {
+            if (movimiento.getProducto() == null || movimiento.getFecha() == null
+                    || !movimiento.getFecha().toLocalDate().isBefore(hoy)) {
+                continue;
+            }
+            int efecto = movimiento.getTipo() == Movimiento.TipoMovimiento.ENTRADA ? movimiento.getCantidad() : -movimiento.getCantidad();
+            efectos.merge(new Clave(movimiento.getProducto().getId(), movimiento.getFecha().toLocalDate()),
+                    (long) signo * efecto, Long::sum);
+        }
+    }
+
+    @Override
+    public Optional<CursorKardex> buscarInicioKardex(Long idProducto, LocalDateTime desde) {
+        // Lo anterior a la primera partición está archivado: no se lista, pero cuenta en el saldo de apertura
+        LocalDateTime inicio = desde;
+        Optional<LocalDateTime> primeraParticion = particiones.inicioParticiones("movimiento");
+        if (primeraParticion.isPresent() && (inicio == null || inicio.isBefore(primeraParticion.get()))) {
+            inicio = primeraParticion.get();
+        }
+        if (inicio == null) {
+            inicio = jdbcTemplate.queryForObject("SELECT COALESCE(MIN(fecha), now()::timestamp) FROM public.movimiento"
+                    + " WHERE producto_id = ?", Timestamp.class, idProducto).toLocalDateTime();
+        }
+
+        LocalDate dia = inicio.toLocalDate();
+        List<Long> saldo = jdbcTemplate.queryForList(SALDO_ANTES_DE, Long.class, Date.valueOf(dia),
+                Timestamp.valueOf(dia.atStartOfDay()), Timestamp.valueOf(inicio), idProducto);
+        LocalDateTime desdeInicio = inicio;
+        return saldo.stream().findFirst().map(valor -> CursorKardex.inicio(desdeInicio, valor));
+    }
+
+    @Override
+    public List<LineaKardex> buscarKardex(Long idProducto, CursorKardex despuesDe, LocalDateTime hasta, int limite) {
+        Timestamp fecha = Timestamp.valueOf(despuesDe.getFecha());
+        List<Object> parametros = new ArrayList<>(List.of(despuesDe.getSaldo(), idProducto, fecha, fecha, despuesDe.getId()));
+        String sql = KARDEX;
+        if (hasta != null) {
+            sql += " AND m.fecha < ?";
+            parametros.add(Timestamp.valueOf(hasta));
+        }
+        parametros.add(limite);
+        return jdbcTemplate.query(sql + " ORDER BY m.fecha, m.id LIMIT ?", (rs, fila) -> new LineaKardex(
+                rs.getLong("id"),
+                rs.getTimestamp("fecha").toLocalDateTime(),
+                Movimiento.TipoMovimiento.valueOf(rs.getString("tipo")),
+                rs.getInt("cantidad"),
+                rs.getString("descripcion"),
+                rs.getLong("saldo")), parametros.toArray());
+    }
+
+    private static Timestamp finDelDia(LocalDate dia) {
+        return Timestamp.valueOf(dia.plusDays(1).atStartOfDay());
+    }
+
+    private static RowMapper<StockEnFecha> filas(LocalDate dia) {
+        return (rs, fila) -> new StockEnFecha(rs.getLong("id"), rs.getString("codigo"), rs.getString("nombre"), dia, rs.getInt("stock"));
+    }
+
+    private record Clave(Long idProducto, LocalDate dia) {
+    }
+}
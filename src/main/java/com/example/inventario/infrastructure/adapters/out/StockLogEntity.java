@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 @Table(name = "stock_log", schema = "public")
 public class StockLogEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_log_seq")
+    @SequenceGenerator(name = "stock_log_seq", sequenceName = "stock_log_seq", schema = "public", allocationSize = 50)
     private Long id;
     private Long productoId;
     private int cantidadAnterior;
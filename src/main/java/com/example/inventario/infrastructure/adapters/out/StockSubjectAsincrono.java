@@ -0,0 +1,178 @@
+package com.example.inventario.infrastructure.adapters.out;
+
+import com.example.inventario.domain.ports.observer.StockObserver;
+import com.example.inventario.domain.ports.observer.StockSubject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StockSubject que entrega los avisos en segundo plano: notificarObservadores sólo encola y vuelve,
+ * así que la latencia de un movimiento no depende de la de los observadores.
+ *
+ * <p>Cada observador tiene su propio carril: un hilo con una cola acotada. Un observador lento o
+ * colgado sólo retrasa sus propios avisos; con su cola llena, los nuevos se descartan y se cuentan.
+ * Una llamada que supera el tiempo máximo se interrumpe y el carril sigue con el siguiente aviso.
+ *
+ * <p>Las métricas y el hilo de cada carril llevan el nombre de la clase del observador; el segundo
+ * de la misma clase se llama Clase-2, y así sucesivamente. Las clases anónimas y las lambdas, sin
+ * nombre propio, cuentan como "observador".
+ */
+public class StockSubjectAsincrono extends StockSubject implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StockSubjectAsincrono.class);
+
+    private final MeterRegistry registry;
+    private final int capacidad;
+    private final long tiempoMaximoMs;
+
+    private final Map<StockObserver, Carril> carriles = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> nombresUsados = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService vigilante;
+
+    public StockSubjectAsincrono(MeterRegistry registry, int capacidad, long tiempoMaximoMs) {
+        this.registry = registry;
+        this.capacidad = capacidad;
+        this.tiempoMaximoMs = tiempoMaximoMs;
+        this.vigilante = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "stock-eventos-vigilante");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @Override
+    public void agregarObserver(StockObserver observer) {
+        carriles.computeIfAbsent(observer, nuevo -> new Carril(nuevo, nombrar(nuevo)));
+        super.agregarObserver(observer);
+    }
+
+    // Nunca se reutiliza un nombre, ni siquiera tras eliminar su observador: Micrometer devolvería
+    // los contadores del anterior y se quedaría con el medidor de pendientes de su cola
+    private String nombrar(StockObserver observer) {
+        Class<?> clase = observer.getClass();
+        String base = clase.isAnonymousClass() || clase.isSynthetic() ? "observador" : clase.getSimpleName();
+        int orden = nombresUsados.computeIfAbsent(base, nombre -> new AtomicInteger()).incrementAndGet();
+        return orden == 1 ? base : base + "-" + orden;
+    }
+
+    @Override
+    public void eliminarObserver(StockObserver observer) {
+        super.eliminarObserver(observer);
+        Carril carril = carriles.remove(observer);
+        if (carril != null) {
+            carril.ejecutor.shutdown();
+        }
+    }
+
+    @Override
+    public void notificarObservadores(Long productoId, String productoNombre, int stock) {
+        long publicado = System.nanoTime();
+        for (Carril carril : carriles.values()) {
+            carril.encolar(() -> carril.entregar(productoId, productoNombre, stock, publicado));
+        }
+    }
+
+    /**
+     * Deja terminar los avisos en curso durante un tiempo máximo y descarta el resto.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        carriles.values().forEach(carril -> carril.ejecutor.shutdown());
+        for (Carril carril : carriles.values()) {
+            if (!carril.ejecutor.awaitTermination(tiempoMaximoMs, TimeUnit.MILLISECONDS)) {
+                carril.descartados.increment(carril.ejecutor.shutdownNow().size());
+            }
+        }
+        vigilante.shutdownNow();
+    }
+
+    private final class Carril {
+
+        private final StockObserver observer;
+        private final String nombre;
+        private final ThreadPoolExecutor ejecutor;
+        private final Counter descartados;
+        private final Counter tardios;
+        private final Counter agotados;
+        private final Counter errores;
+        private final Timer entrega;
+
+        private Carril(StockObserver observer, String nombre) {
+            this.observer = observer;
+            this.nombre = nombre;
+            this.descartados = contador("inventario.stock.eventos.descartados", "Avisos descartados con la cola del observador llena");
+            // Con la cola llena sólo se cuenta el descarte: la política por defecto lanza una excepción
+            // (con su traza) en cada aviso, justo cuando el observador ya va retrasado
+            this.ejecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacidad),
+                    tarea -> {
+                        Thread hilo = new Thread(tarea, "stock-eventos-" + nombre);
+                        hilo.setDaemon(true);
+                        return hilo;
+                    },
+                    (tarea, ejecutor) -> descartados.increment());
+            this.tardios = contador("inventario.stock.eventos.tardios", "Avisos que empezaron a entregarse pasado el tiempo máximo");
+            this.agotados = contador("inventario.stock.eventos.agotados", "Avisos interrumpidos por superar el tiempo máximo");
+            this.errores = contador("inventario.stock.eventos.errores", "Avisos en los que el observador lanzó una excepción");
+            this.entrega = Timer.builder("inventario.stock.eventos.entrega")
+                    .description("Tiempo desde la publicación del aviso hasta que el observador termina")
+                    .tag("observador", nombre)
+                    .register(registry);
+            Gauge.builder("inventario.stock.eventos.pendientes", ejecutor, e -> e.getQueue().size())
+                    .description("Avisos en cola del observador")
+                    .tag("observador", nombre)
+                    .register(registry);
+        }
+
+        private Counter contador(String metrica, String descripcion) {
+            return Counter.builder(metrica).description(descripcion).tag("observador", nombre).register(registry);
+        }
+
+        private void encolar(Runnable aviso) {
+            ejecutor.execute(aviso);
+        }
+
+        /**
+         * Llama al observador en el hilo del carril. El vigilante cancela la llamada si supera el
+         * tiempo máximo; FutureTask garantiza que la interrupción sólo alcanza a esta llamada y que
+         * ya se ha entregado al volver de run(), así que se puede limpiar sin afectar a la siguiente.
+         */
+        private void entregar(Long productoId, String productoNombre, int stock, long publicado) {
+            if (System.nanoTime() - publicado > TimeUnit.MILLISECONDS.toNanos(tiempoMaximoMs)) {
+                tardios.increment();
+            }
+            FutureTask<Void> llamada = new FutureTask<>(() -> observer.notificarStockBajo(productoId, productoNombre, stock), null);
+            ScheduledFuture<?> vigilancia = vigilante.schedule(() -> llamada.cancel(true), tiempoMaximoMs, TimeUnit.MILLISECONDS);
+            llamada.run();
+            vigilancia.cancel(false);
+            Thread.interrupted();
+
+            if (llamada.isCancelled()) {
+                agotados.increment();
+                log.warn("El observador {} superó {} ms con el producto {}", nombre, tiempoMaximoMs, productoId);
+                return;
+            }
+            try {
+                llamada.get();
+                entrega.record(System.nanoTime() - publicado, TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                errores.increment();
+                log.warn("El observador {} falló con el producto {}", nombre, productoId, e.getCause());
+            }
+        }
+    }
+}
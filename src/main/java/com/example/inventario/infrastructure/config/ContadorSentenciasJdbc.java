@@ -0,0 +1,106 @@
+package com.example.inventario.infrastructure.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cuenta las sentencias SQL que ejecuta cada hilo entre {@link #iniciar()} y {@link #terminar()}.
+ * Envuelve el DataSource de la aplicación, así que incluye tanto las de Hibernate como las de
+ * JdbcTemplate; un executeBatch cuenta como una sola ida y vuelta. Fuera de ese intervalo el coste
+ * es una lectura de ThreadLocal por sentencia. {@link #totalGlobal()} cuenta además las de todos los
+ * hilos, para medir bajo carga.
+ */
+public class ContadorSentenciasJdbc implements BeanPostProcessor {
+
+    private final ThreadLocal<int[]> sentencias = new ThreadLocal<>();
+    private final LongAdder global = new LongAdder();
+
+    public void iniciar() {
+        sentencias.set(new int[1]);
+    }
+
+    // Devuelve las sentencias contadas desde iniciar() y deja de contar en este hilo
+    public int terminar() {
+        int[] contador = sentencias.get();
+        sentencias.remove();
+        return contador == null ? 0 : contador[0];
+    }
+
+    // Sentencias de todos los hilos desde el arranque
+    public long totalGlobal() {
+        return global.sum();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceContado)) {
+            return new DataSourceContado(dataSource);
+        }
+        return bean;
+    }
+
+    private Connection envolver(Connection conexion) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    Object resultado = invocar(conexion, metodo, args);
+                    if (resultado instanceof Statement sentencia) {
+                        return envolver(sentencia);
+                    }
+                    return resultado;
+                });
+    }
+
+    private Statement envolver(Statement sentencia) {
+        Class<?> tipo = sentencia instanceof CallableStatement ? CallableStatement.class
+                : sentencia instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{tipo},
+                (proxy, metodo, args) -> {
+                    if (metodo.getName().startsWith("execute")) {
+                        global.increment();
+                        int[] contador = sentencias.get();
+                        if (contador != null) {
+                            contador[0]++;
+                        }
+                    }
+                    return invocar(sentencia, metodo, args);
+                });
+    }
+
+    private static Object invocar(Object destino, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(destino, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // DelegatingDataSource para que Actuator siga encontrando el pool de Hikari debajo (métricas hikaricp.*)
+    private final class DataSourceContado extends DelegatingDataSource {
+
+        private DataSourceContado(DataSource destino) {
+            super(destino);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return envolver(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return envolver(super.getConnection(username, password));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.inventario.infrastructure.config;
+
+import com.example.inventario.domain.exceptions.ConflictoConcurrenciaException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Control de concurrencia de las escrituras de stock y de movimientos (app.concurrencia.estrategia):
+ * <ul>
+ *   <li>PESIMISTA: la fila se bloquea al leerla (SELECT ... FOR UPDATE) o con el propio UPDATE
+ *       condicional del stock, y la espera por el bloqueo se limita con lock_timeout. Las operaciones
+ *       sobre el mismo producto se ponen en cola; no hay reintentos.</li>
+ *   <li>OPTIMISTA: se lee sin bloquear y se escribe sólo si la columna version no cambió; si cambió,
+ *       se vuelve a leer y se reintenta, hasta un máximo, con esperas exponenciales aleatorias para
+ *       que los perdedores no choquen otra vez a la vez.</li>
+ * </ul>
+ * En las dos, cada escritura incrementa version, así que un cliente que envía la versión leída
+ * recibe un conflicto si otro cambio se le adelantó.
+ */
+@Component
+public class ControlConcurrencia {
+
+    public enum Estrategia { OPTIMISTA, PESIMISTA }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Estrategia estrategia;
+    private final long esperaBloqueoMs;
+    private final int intentosMaximos;
+    private final long esperaReintentoMs;
+    private final long esperaReintentoMaximaMs;
+
+    private final Counter reintentos;
+    private final Counter conflictos;
+
+    @Autowired
+    public ControlConcurrencia(JdbcTemplate jdbcTemplate, MeterRegistry registry,
+                               @Value("${app.concurrencia.estrategia:PESIMISTA}") Estrategia estrategia,
+                               @Value("${app.concurrencia.espera-bloqueo-ms:5000}") long esperaBloqueoMs,
+                               @Value("${app.concurrencia.intentos:5}") int intentosMaximos,
+                               @Value("${app.concurrencia.espera-reintento-ms:5}") long esperaReintentoMs,
+                               @Value("${app.concurrencia.espera-reintento-maxima-ms:200}") long esperaReintentoMaximaMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.estrategia = estrategia;
+        this.esperaBloqueoMs = esperaBloqueoMs;
+        this.intentosMaximos = intentosMaximos;
+        this.esperaReintentoMs = esperaReintentoMs;
+        this.esperaReintentoMaximaMs = esperaReintentoMaximaMs;
+
+        this.reintentos = Counter.builder("inventario.concurrencia.reintentos")
+                .description("Escrituras optimistas repetidas porque otra transacción cambió antes la misma fila")
+                .tag("estrategia", estrategia.name())
+                .register(registry);
+        this.conflictos = Counter.builder("inventario.concurrencia.conflictos")
+                .description("Escrituras abandonadas por agotar los reintentos")
+                .tag("estrategia", estrategia.name())
+                .register(registry);
+    }
+
+    public boolean optimista() {
+        return estrategia == Estrategia.OPTIMISTA;
+    }
+
+    /**
+     * Con la estrategia pesimista, limita la espera por bloqueos de la transacción en curso (una
+     * sola vez por transacción). Superada la espera, PostgreSQL aborta la sentencia y la petición
+     * responde 409.
+     */
+    public void prepararBloqueo() {
+        if (optimista() || esperaBloqueoMs <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '" + esperaBloqueoMs + "ms'");
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ControlConcurrencia.this);
+            }
+        });
+    }
+
+    /**
+     * Ejecuta el intento hasta que devuelva un resultado. Un null significa que otra transacción
+     * cambió la fila entre la lectura y la escritura condicionada por version: se espera y se
+     * repite, releyendo. Con la estrategia pesimista la fila ya está bloqueada y no debería ocurrir.
+     */
+    public <T> T reintentar(Supplier<T> intento) {
+        for (int i = 1; ; i++) {
+            T resultado = intento.get();
+            if (resultado != null) {
+                return resultado;
+            }
+            if (i >= intentosMaximos) {
+                conflictos.increment();
+                throw new ConflictoConcurrenciaException(
+                        "Otra operación modificó el mismo registro; no se pudo aplicar el cambio tras " + i + " intentos.");
+            }
+            reintentos.increment();
+            esperar(i);
+        }
+    }
+
+    // "Full jitter": entre 0 y base * 2^(intento - 1), con un máximo
+    private void esperar(int intento) {
+        long techo = Math.min(esperaReintentoMaximaMs, esperaReintentoMs << Math.min(intento - 1, 20));
+        if (techo <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(techo + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictoConcurrenciaException("Reintento interrumpido");
+        }
+    }
+}
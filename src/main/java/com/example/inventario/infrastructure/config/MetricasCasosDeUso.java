@@ -0,0 +1,73 @@
+package com.example.inventario.infrastructure.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide cada llamada a los puertos de entrada (ProductoUseCase, MovimientoUseCase y ReporteUseCase) con un temporizador
+ * inventario.casos.uso por caso de uso, método y excepción, con histograma para calcular percentiles.
+ * Se aplica por fuera de @Transactional, así que el tiempo incluye el commit. Las llamadas internas
+ * de un servicio a sus propios métodos no pasan por el proxy y no se miden por separado.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MetricasCasosDeUso {
+
+    private final MeterRegistry registry;
+
+    // Temporizadores de las llamadas correctas, que son casi todas; los de error se buscan en el registro
+    private final Map<Method, Timer> correctas = new ConcurrentHashMap<>();
+
+    public MetricasCasosDeUso(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(* com.example.inventario.domain.ports.in.ProductoUseCase.*(..))"
+            + " || execution(* com.example.inventario.domain.ports.in.MovimientoUseCase.*(..))"
+            + " || execution(* com.example.inventario.domain.ports.in.ReporteUseCase.*(..))")
+    public Object medir(ProceedingJoinPoint llamada) throws Throwable {
+        Method metodo = ((MethodSignature) llamada.getSignature()).getMethod();
+        long inicio = System.nanoTime();
+        try {
+            Object resultado = llamada.proceed();
+            correctas.computeIfAbsent(metodo, m -> temporizador(m, "none")).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            return resultado;
+        } catch (Throwable e) {
+            temporizador(metodo, e.getClass().getSimpleName()).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timer temporizador(Method metodo, String excepcion) {
+        return Timer.builder("inventario.casos.uso")
+                .description("Duración de las operaciones de los casos de uso")
+                .tag("caso", casoDeUso(metodo.getDeclaringClass()))
+                .tag("metodo", metodo.getName())
+                .tag("exception", excepcion)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    // El proxy entrega el método de la implementación (ProductoService); la etiqueta es la del puerto
+    private static String casoDeUso(Class<?> clase) {
+        for (Class<?> interfaz : clase.getInterfaces()) {
+            if (interfaz.getPackageName().endsWith(".ports.in")) {
+                return interfaz.getSimpleName();
+            }
+        }
+        return clase.getSimpleName();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.inventario.infrastructure.config;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métricas propias de la aplicación, expuestas junto a las de Spring Boot en /actuator/prometheus.
+ */
+@Configuration
+public class MetricasConfig {
+
+    // Estático: un BeanPostProcessor debe existir antes que el resto de beans, DataSource incluido
+    @Bean
+    public static ContadorSentenciasJdbc contadorSentenciasJdbc() {
+        return new ContadorSentenciasJdbc();
+    }
+
+    // Una serie por producto con contención, hasta un máximo; el resto de productos no se registra
+    @Bean
+    public MeterFilter limiteProductosContencion(@Value("${app.metricas.contencion.productos-maximo:100}") int maximo) {
+        return MeterFilter.maximumAllowableTags("inventario.stock.contencion", "producto", maximo, MeterFilter.deny());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.inventario.infrastructure.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Aplica migraciones.sql después de que Hibernate actualice el esquema y antes de que la
+ * aplicación empiece a atender peticiones. A diferencia de DatabaseInitializer, un fallo
+ * aquí detiene el arranque: el resto del código da por hecho el esquema migrado.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class MigracionesBaseDatos {
+
+    // Migraciones de datos de una sola ejecución, en orden; cada una queda anotada en migracion_aplicada
+    private static final List<String> MIGRACIONES_UNICAS = List.of(
+            "migraciones/001-unidades-vendidas.sql",
+            "migraciones/002-stock-diario.sql",
+            "migraciones/003-particiones.sql",
+            "migraciones/004-resumen-movimientos.sql"
+    );
+
+    private final DataSource dataSource;
+
+    public MigracionesBaseDatos(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    public void migrar() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(conn, new ClassPathResource("migraciones.sql"));
+            for (String migracion : MIGRACIONES_UNICAS) {
+                aplicarUnaVez(conn, migracion);
+            }
+        }
+    }
+
+    /**
+     * Anota la migración y la ejecuta en la misma transacción. Si otra instancia la está
+     * aplicando, el INSERT espera a que termine y después no hace nada.
+     */
+    private void aplicarUnaVez(Connection conn, String migracion) throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO public.migracion_aplicada (nombre) VALUES (?) ON CONFLICT DO NOTHING")) {
+            ps.setString(1, migracion);
+            if (ps.executeUpdate() == 1) {
+                ScriptUtils.executeSqlScript(conn, new ClassPathResource(migracion));
+            }
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
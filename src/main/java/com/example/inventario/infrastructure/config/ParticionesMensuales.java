@@ -0,0 +1,307 @@
+package com.example.inventario.infrastructure.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mantiene las particiones mensuales de movimiento y stock_log (ver migraciones/003-particiones.sql):
+ * <ul>
+ *   <li>Crea por adelantado las de los próximos meses, para que las filas nuevas no caigan en _resto.</li>
+ *   <li>Saca de _resto a su partición las filas de cualquier otro mes (fechas antiguas o futuras
+ *       indicadas por el cliente, o todo el histórico justo después de la migración).</li>
+ *   <li>Con retención configurada, desengancha las particiones más antiguas y las mueve al esquema
+ *       archivo: dejan de leerse y de entrar en el vacuum de la tabla, pero no se borran.</li>
+ * </ul>
+ * Se ejecuta en segundo plano nada más arrancar y después una vez al día; al arrancar sólo se leen las
+ * particiones existentes, sin esperar a que termine. Cada cambio es una transacción corta con un
+ * bloqueo consultivo, así que varias instancias pueden ejecutarlo a la vez.
+ */
+@Component
+@DependsOn("migracionesBaseDatos")
+public class ParticionesMensuales implements SchedulingConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(ParticionesMensuales.class);
+
+    private static final List<String> TABLAS = List.of("movimiento", "stock_log");
+    private static final DateTimeFormatter SUFIJO = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String ESQUEMA_ARCHIVO = "archivo";
+    private static final long BLOQUEO = 7_270_022L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final boolean activas;
+    private final int mesesAdelantados;
+    private final int retencionMeses;
+    private final Clock reloj;
+
+    // Primer mes con partición de cada tabla; las consultas de MovimientoJpaAdapter acotan la búsqueda con él
+    private final Map<String, YearMonth> primerMes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ParticionesMensuales(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                @Value("${app.particiones.activas:true}") boolean activas,
+                                @Value("${app.particiones.meses-adelantados:3}") int mesesAdelantados,
+                                @Value("${app.particiones.retencion-meses:0}") int retencionMeses) {
+        this(jdbcTemplate, transactionManager, activas, mesesAdelantados, retencionMeses, Clock.systemDefaultZone());
+    }
+
+    public ParticionesMensuales(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, boolean activas,
+                                int mesesAdelantados, int retencionMeses, Clock reloj) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.activas = activas;
+        this.mesesAdelantados = mesesAdelantados;
+        this.retencionMeses = retencionMeses;
+        this.reloj = reloj;
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (!activas) {
+            return;
+        }
+        // Sólo el catálogo: mover filas de _resto puede tardar y no debe retrasar el arranque
+        try {
+            TABLAS.forEach(this::leerPrimerMes);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron leer las particiones mensuales", e);
+        }
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        if (activas) {
+            registrar.addFixedDelayTask(this::mantenerSinFallar, Duration.ofDays(1));
+        }
+    }
+
+    /**
+     * Inicio de la primera partición mensual de la tabla, si está particionada. Las filas anteriores
+     * sólo pueden estar en _resto.
+     */
+    public Optional<LocalDateTime> inicioParticiones(String tabla) {
+        return Optional.ofNullable(primerMes.get(tabla)).map(mes -> mes.atDay(1).atStartOfDay());
+    }
+
+    /**
+     * Tramos de fecha para buscar hacia atrás desde el mes de "referencia": primero ese mes (sin límite
+     * superior, para incluir fechas futuras), después el anterior, los dos anteriores, los cuatro
+     * anteriores... Cada tramo empieza donde acaba el siguiente, así que ninguna fila cae en dos ni en
+     * ninguno. El último, al llegar a la primera partición o a "desde" (null sin límite), no tiene
+     * límite inferior; sin particiones hay un único tramo sin límites.
+     */
+    public List<Tramo> tramosHaciaAtras(String tabla, LocalDateTime referencia, LocalDateTime desde) {
+        Optional<LocalDateTime> primeraParticion = inicioParticiones(tabla);
+        List<Tramo> tramos = new ArrayList<>();
+        LocalDateTime suelo = referencia.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        LocalDateTime techo = null;
+        int meses = 1;
+        while (true) {
+            boolean ultimo = primeraParticion.isEmpty() || !suelo.isAfter(primeraParticion.get())
+                    || (desde != null && !suelo.isAfter(desde));
+            tramos.add(new Tramo(ultimo ? null : suelo, techo));
+            if (ultimo) {
+                return tramos;
+            }
+            techo = suelo;
+            suelo = suelo.minusMonths(meses);
+            meses *= 2;
+        }
+    }
+
+    /**
+     * Inicio de la primera partición mensual con alguna fila de ID mayor que "id": las anteriores sólo
+     * tienen IDs menores y no hace falta abrirlas. Vacío si no se puede acotar (tabla sin particiones,
+     * filas así en _resto o ninguna fila así). Cada partición se comprueba con una búsqueda en su clave
+     * primaria, en una sola sentencia.
+     */
+    public Optional<LocalDateTime> inicioConIdMayorQue(String tabla, long id) {
+        TreeSet<YearMonth> meses = particiones(tabla);
+        if (meses.isEmpty()) {
+            return Optional.empty();
+        }
+        StringBuilder sql = new StringBuilder("SELECT NULL AS mes WHERE EXISTS (SELECT 1 FROM public.")
+                .append(tabla).append("_resto WHERE id > ?)");
+        for (YearMonth mes : meses) {
+            sql.append(" UNION ALL SELECT '").append(mes.format(SUFIJO)).append("' WHERE EXISTS (SELECT 1 FROM public.")
+                    .append(tabla).append('_').append(mes.format(SUFIJO)).append(" WHERE id > ?)");
+        }
+        Object[] ids = new Object[meses.size() + 1];
+        Arrays.fill(ids, id);
+        List<String> conFilas = jdbcTemplate.queryForList(sql + " ORDER BY mes NULLS FIRST LIMIT 1", String.class, ids);
+        if (conFilas.isEmpty() || conFilas.get(0) == null) {
+            return Optional.empty();
+        }
+        return Optional.of(YearMonth.parse(conFilas.get(0), SUFIJO).atDay(1).atStartOfDay());
+    }
+
+    public void mantener() {
+        for (String tabla : TABLAS) {
+            if (!particionada(tabla)) {
+                continue;
+            }
+            YearMonth actual = YearMonth.now(reloj);
+            TreeSet<YearMonth> meses = new TreeSet<>(mesesEnResto(tabla));
+            for (int i = 0; i <= mesesAdelantados; i++) {
+                meses.add(actual.plusMonths(i));
+            }
+            for (YearMonth mes : meses) {
+                crear(tabla, mes);
+            }
+
+            if (retencionMeses > 0) {
+                YearMonth corte = actual.minusMonths(retencionMeses);
+                for (YearMonth mes : particiones(tabla)) {
+                    if (mes.isBefore(corte)) {
+                        archivar(tabla, mes);
+                    }
+                }
+            }
+
+            leerPrimerMes(tabla);
+        }
+    }
+
+    private void leerPrimerMes(String tabla) {
+        TreeSet<YearMonth> existentes = particiones(tabla);
+        if (existentes.isEmpty()) {
+            primerMes.remove(tabla);
+        } else {
+            primerMes.put(tabla, existentes.first());
+        }
+    }
+
+    private void mantenerSinFallar() {
+        try {
+            mantener();
+        } catch (RuntimeException e) {
+            // Las particiones adelantadas cubren varios meses; se reintenta en la próxima ejecución
+            log.warn("No se pudieron mantener las particiones mensuales", e);
+        }
+    }
+
+    /**
+     * Crea la partición del mes como tabla aparte, le pasa las filas de ese mes que hubiera en _resto
+     * y la engancha. ATTACH sólo bloquea la tabla madre en modo SHARE UPDATE EXCLUSIVE, compatible
+     * con lecturas y escrituras; _resto sí queda bloqueada mientras se comprueba que ya no tiene filas
+     * del mes.
+     */
+    private void crear(String tabla, YearMonth mes) {
+        String particion = tabla + "_" + mes.format(SUFIJO);
+        Integer movidas = transaccion.execute(estado -> {
+            bloquear();
+            if (existe("public." + particion)) {
+                return null;
+            }
+            jdbcTemplate.execute("CREATE TABLE public." + particion
+                    + " (LIKE public." + tabla + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            int filas = jdbcTemplate.update("WITH movidas AS (DELETE FROM public." + tabla + "_resto"
+                    + " WHERE fecha >= ? AND fecha < ? RETURNING *) INSERT INTO public." + particion + " SELECT * FROM movidas",
+                    inicio(mes), inicio(mes.plusMonths(1)));
+            jdbcTemplate.execute("ALTER TABLE public." + tabla + " ATTACH PARTITION public." + particion
+                    + " FOR VALUES FROM ('" + inicio(mes) + "') TO ('" + inicio(mes.plusMonths(1)) + "')");
+            return filas;
+        });
+        if (movidas != null) {
+            log.info("Partición {} creada con {} filas de {}_resto", particion, movidas, tabla);
+        }
+    }
+
+    /**
+     * Desengancha la partición y la mueve al esquema archivo. Si ya había una archivada del mismo mes
+     * (filas con fecha antigua llegadas después), se le añaden las filas. Las claves foráneas se
+     * quitan para que el histórico archivado no impida borrar productos.
+     */
+    private void archivar(String tabla, YearMonth mes) {
+        String particion = tabla + "_" + mes.format(SUFIJO);
+        transaccion.executeWithoutResult(estado -> {
+            bloquear();
+            jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + ESQUEMA_ARCHIVO);
+            jdbcTemplate.execute("ALTER TABLE public." + tabla + " DETACH PARTITION public." + particion);
+            List<String> foraneas = jdbcTemplate.queryForList("SELECT conname FROM pg_constraint"
+                    + " WHERE conrelid = ?::regclass AND contype = 'f'", String.class, "public." + particion);
+            for (String foranea : foraneas) {
+                jdbcTemplate.execute("ALTER TABLE public." + particion + " DROP CONSTRAINT " + foranea);
+            }
+            if (existe(ESQUEMA_ARCHIVO + "." + particion)) {
+                // Por nombre de columna: la archivada pudo crearse antes de que la tabla ganara columnas (version)
+                String columnas = String.join(", ", jdbcTemplate.queryForList("SELECT attname FROM pg_attribute"
+                        + " WHERE attrelid = ?::regclass AND attnum > 0 AND NOT attisdropped ORDER BY attnum",
+                        String.class, ESQUEMA_ARCHIVO + "." + particion));
+                jdbcTemplate.execute("INSERT INTO " + ESQUEMA_ARCHIVO + "." + particion + " (" + columnas + ")"
+                        + " SELECT " + columnas + " FROM public." + particion);
+                jdbcTemplate.execute("DROP TABLE public." + particion);
+            } else {
+                jdbcTemplate.execute("ALTER TABLE public." + particion + " SET SCHEMA " + ESQUEMA_ARCHIVO);
+            }
+        });
+        log.info("Partición {} archivada en el esquema {}", particion, ESQUEMA_ARCHIVO);
+    }
+
+    // Serializa los cambios entre instancias y no deja el DDL esperando detrás de consultas largas
+    private void bloquear() {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", BLOQUEO);
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '10s'");
+    }
+
+    private boolean particionada(String tabla) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass(?) AND relkind = 'p')",
+                Boolean.class, "public." + tabla));
+    }
+
+    private boolean existe(String nombre) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, nombre));
+    }
+
+    private List<YearMonth> mesesEnResto(String tabla) {
+        return jdbcTemplate.query("SELECT DISTINCT date_trunc('month', fecha) AS mes FROM public." + tabla + "_resto",
+                (rs, fila) -> YearMonth.from(rs.getTimestamp("mes").toLocalDateTime()));
+    }
+
+    private TreeSet<YearMonth> particiones(String tabla) {
+        TreeSet<YearMonth> meses = new TreeSet<>();
+        jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+                + " WHERE i.inhparent = ?::regclass", String.class, "public." + tabla).forEach(nombre -> {
+            String sufijo = nombre.substring(tabla.length() + 1);
+            if (sufijo.matches("\\d{4}_\\d{2}")) {
+                meses.add(YearMonth.parse(sufijo, SUFIJO));
+            }
+        });
+        return meses;
+    }
+
+    private static Timestamp inicio(YearMonth mes) {
+        return Timestamp.valueOf(mes.atDay(1).atStartOfDay());
+    }
+
+    /**
+     * Rango de fechas [desde, hasta) de una búsqueda por tramos; null en un extremo es sin límite.
+     */
+    public record Tramo(LocalDateTime desde, LocalDateTime hasta) {
+    }
+}
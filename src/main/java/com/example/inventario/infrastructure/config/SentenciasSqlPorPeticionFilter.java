@@ -0,0 +1,57 @@
+package com.example.inventario.infrastructure.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Registra cuántas sentencias SQL ejecuta cada petición a la API (inventario.http.sentencias), por
+ * método y ruta, con las mismas etiquetas que http.server.requests para cruzar ambas métricas. Sólo
+ * cuenta lo que se ejecuta en el hilo de la petición: el trabajo en segundo plano (auditoría,
+ * rotación diferida) y el cuerpo de las exportaciones, que se escribe de forma asíncrona, quedan fuera.
+ */
+@Component
+public class SentenciasSqlPorPeticionFilter extends OncePerRequestFilter {
+
+    private final ContadorSentenciasJdbc contador;
+    private final MeterRegistry registry;
+
+    public SentenciasSqlPorPeticionFilter(ContadorSentenciasJdbc contador, MeterRegistry registry) {
+        this.contador = contador;
+        this.registry = registry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        contador.iniciar();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            int sentencias = contador.terminar();
+            // La ruta como plantilla (/api/productos/{id}) para no crear una serie por cada ID
+            Object ruta = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("inventario.http.sentencias")
+                    .description("Sentencias SQL ejecutadas por petición")
+                    .tag("method", request.getMethod())
+                    .tag("uri", ruta != null ? ruta.toString() : "UNKNOWN")
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(100.0)
+                    .register(registry)
+                    .record(sentencias);
+        }
+    }
+}
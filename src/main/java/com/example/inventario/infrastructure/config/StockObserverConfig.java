@@ -1,11 +1,14 @@
 package com.example.inventario.infrastructure.config;
 
+import com.example.inventario.application.service.ReglasAlertaStock;
 import com.example.inventario.application.service.StockService;
 
 
-import com.example.inventario.domain.ports.observer.StockSubject;
 import com.example.inventario.infrastructure.adapters.out.NotificationService;
 
+import com.example.inventario.infrastructure.adapters.out.StockSubjectAsincrono;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,11 +18,18 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class StockObserverConfig {
 
+    // Los avisos se entregan en segundo plano; Spring llama a close() al apagar
     @Bean
-    public StockService stockService() {
-        StockSubject stockSubject = new StockSubject();
+    public StockSubjectAsincrono stockSubject(MeterRegistry registry,
+                                              @Value("${app.stock.eventos.capacidad:1000}") int capacidad,
+                                              @Value("${app.stock.eventos.tiempo-maximo-ms:2000}") long tiempoMaximoMs) {
+        return new StockSubjectAsincrono(registry, capacidad, tiempoMaximoMs);
+    }
+
+    @Bean
+    public StockService stockService(StockSubjectAsincrono stockSubject, ReglasAlertaStock reglas) {
         NotificationService notificationService = new NotificationService();
         stockSubject.agregarObserver(notificationService);
-        return new StockService(stockSubject, notificationService);
+        return new StockService(stockSubject, notificationService, reglas);
     }
 }
@@ -21,6 +21,8 @@ public interface MovimientoMapper {
 
     // ======== DTO -> Domain ========
     @Mapping(source = "idProducto", target = "producto", qualifiedByName = "mapProductoFromId")
+    // La versión no viaja en el DTO: las modificaciones la releen con buscarParaModificar
+    @Mapping(target = "version", ignore = true)
     Movimiento dtoToDomain(MovimientoDTO dto);
 
     // ======== Domain -> DTO ========
@@ -0,0 +1,82 @@
+-- Migraciones que Hibernate (ddl-auto=update) no sabe aplicar por sí mismo.
+-- Se ejecutan en cada arranque, justo después de que Hibernate actualice el esquema,
+-- por lo que cada sentencia debe poder repetirse sin efecto.
+
+-- IDs por secuencia con incremento 50 (optimizador "pooled" de Hibernate): cada nextval
+-- reserva un bloque de 50 IDs, lo que permite agrupar los INSERT en lotes JDBC.
+CREATE SEQUENCE IF NOT EXISTS public.producto_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS public.movimiento_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS public.stock_log_seq INCREMENT BY 50;
+
+-- Las tablas creadas con IDENTITY o BIGSERIAL dejan de generar sus propios IDs
+ALTER TABLE public.producto ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE public.producto ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE public.movimiento ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE public.movimiento ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE public.stock_log ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE public.stock_log ALTER COLUMN id DROP DEFAULT;
+
+-- Cada secuencia avanza más allá del mayor ID existente. Sólo se mueve hacia delante y nunca
+-- se deja en su valor inicial, para que el primer bloque no dependa del caso especial de Hibernate.
+SELECT setval('public.producto_seq', (SELECT COALESCE(MAX(id), 0) FROM public.producto) + 50)
+  FROM public.producto_seq
+ WHERE NOT is_called OR last_value < (SELECT COALESCE(MAX(id), 0) FROM public.producto) + 50;
+SELECT setval('public.movimiento_seq', (SELECT COALESCE(MAX(id), 0) FROM public.movimiento) + 50)
+  FROM public.movimiento_seq
+ WHERE NOT is_called OR last_value < (SELECT COALESCE(MAX(id), 0) FROM public.movimiento) + 50;
+SELECT setval('public.stock_log_seq', (SELECT COALESCE(MAX(id), 0) FROM public.stock_log) + 50)
+  FROM public.stock_log_seq
+ WHERE NOT is_called OR last_value < (SELECT COALESCE(MAX(id), 0) FROM public.stock_log) + 50;
+
+-- Paginación por cursor de GET /api/movimientos: orden (fecha, id), global o dentro de un producto
+CREATE INDEX IF NOT EXISTS idx_movimiento_fecha_id ON public.movimiento (fecha, id);
+CREATE INDEX IF NOT EXISTS idx_movimiento_producto_fecha_id ON public.movimiento (producto_id, fecha, id);
+
+-- Búsqueda de productos (buscar_productos): trigramas para el ILIKE '%texto%' sobre nombre, B-tree
+-- sobre el nombre en minúsculas (orden "C") para los que empiezan por el texto y para el orden
+-- alfabético, y B-tree para el filtro exacto por categoría. codigo ya tiene el índice de su UNIQUE.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_producto_nombre_trgm ON public.producto USING gin (nombre gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_producto_nombre_prefijo ON public.producto ((lower(nombre) COLLATE "C"));
+CREATE INDEX IF NOT EXISTS idx_producto_categoria ON public.producto (categoria);
+
+-- Stock bajo (GET /api/productos/stock-bajo): índice parcial con sólo los productos por debajo de su
+-- mínimo, ordenado por el faltante. Se mantiene pequeño aunque el catálogo crezca, y la página se lee
+-- recorriéndolo hacia atrás desde el cursor.
+CREATE INDEX IF NOT EXISTS idx_producto_stock_bajo ON public.producto ((stock_minimo - stock), id)
+    WHERE stock < stock_minimo;
+
+-- Registro de las migraciones de datos que deben ejecutarse una sola vez (carpeta migraciones/)
+CREATE TABLE IF NOT EXISTS public.migracion_aplicada (
+    nombre VARCHAR(255) PRIMARY KEY,
+    fecha TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Instantáneas diarias de stock (GET /api/productos/{id}/stock?fecha=): una fila por producto y día
+-- sólo si el stock al cierre cambió respecto a la anterior. No referencia a producto para que borrar
+-- un producto no dependa del tamaño de su histórico.
+CREATE TABLE IF NOT EXISTS public.stock_diario (
+    producto_id BIGINT NOT NULL,
+    fecha DATE NOT NULL,
+    stock INTEGER NOT NULL,
+    PRIMARY KEY (producto_id, fecha)
+);
+
+-- Resumen diario de movimientos (GET /api/reportes/movimientos-diarios): entradas y salidas por día y
+-- producto, actualizado en la misma transacción que cada movimiento. La clave primaria sirve a los
+-- informes por rango de días; el índice por producto, a los de un producto o una categoría. Como
+-- stock_diario, no referencia a producto.
+CREATE TABLE IF NOT EXISTS public.resumen_movimiento_diario (
+    dia DATE NOT NULL,
+    producto_id BIGINT NOT NULL,
+    entradas BIGINT NOT NULL DEFAULT 0,
+    salidas BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (dia, producto_id)
+);
+CREATE INDEX IF NOT EXISTS idx_resumen_movimiento_producto_dia ON public.resumen_movimiento_diario (producto_id, dia);
+
+-- Control de concurrencia (app.concurrencia.estrategia): versión de cada fila, que sube con cada
+-- escritura. Hibernate ya las crea con este mismo valor por defecto; esto cubre las bases de datos
+-- que no se actualizan con ddl-auto.
+ALTER TABLE public.producto ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE public.movimiento ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+-- Rellena el acumulado de unidades vendidas de cada producto a partir del histórico de salidas.
+-- Una sola pasada agrupada sobre movimiento; después lo mantiene el UPDATE de stock.
+UPDATE public.producto p
+   SET unidades_vendidas = v.total
+  FROM (SELECT producto_id, SUM(cantidad) AS total
+          FROM public.movimiento
+         WHERE tipo = 'SALIDA'
+         GROUP BY producto_id) v
+ WHERE p.id = v.producto_id;
@@ -0,0 +1,26 @@
+-- Rellena stock_diario con el histórico: el stock al cierre de cada día con movimientos, calculado
+-- hacia atrás desde el stock actual restando lo que entró y salió en los días posteriores.
+INSERT INTO public.stock_diario (producto_id, fecha, stock)
+SELECT c.producto_id, c.dia, c.stock
+  FROM (SELECT d.producto_id, d.dia,
+               p.stock - COALESCE(SUM(d.delta) OVER (PARTITION BY d.producto_id ORDER BY d.dia DESC
+                                                     ROWS BETWEEN UNBOUNDED PRECEDING AND 1 PRECEDING), 0) AS stock
+          FROM (SELECT producto_id, fecha::date AS dia,
+                       SUM(CASE WHEN tipo = 'ENTRADA' THEN cantidad ELSE -cantidad END) AS delta
+                  FROM public.movimiento
+                 WHERE producto_id IS NOT NULL AND fecha IS NOT NULL
+                 GROUP BY producto_id, fecha::date) d
+          JOIN public.producto p ON p.id = d.producto_id) c
+ WHERE c.dia < current_date
+ON CONFLICT (producto_id, fecha) DO NOTHING;
+
+-- Cierre de ayer para todo el catálogo, también para los productos sin movimientos: a partir de aquí
+-- la tarea diaria (InstantaneasStock) sólo añade los cambios.
+INSERT INTO public.stock_diario (producto_id, fecha, stock)
+SELECT p.id, current_date - 1,
+       p.stock - COALESCE((SELECT SUM(CASE WHEN m.tipo = 'ENTRADA' THEN m.cantidad ELSE -m.cantidad END)
+                             FROM public.movimiento m
+                            WHERE m.producto_id = p.id AND m.fecha >= current_date), 0)
+  FROM public.producto p
+ WHERE p.fecha_creacion IS NULL OR p.fecha_creacion < current_date
+ON CONFLICT (producto_id, fecha) DO NOTHING;
@@ -0,0 +1,27 @@
+-- Convierte movimiento y stock_log en tablas particionadas por rango de fecha. Los datos pasan a la
+-- partición _resto; ParticionesMensuales los reparte después en particiones mensuales. Se ejecuta una
+-- sola vez, con las tablas bloqueadas mientras se copian. La clave primaria pasa a ser (id, fecha)
+-- porque toda restricción única de una tabla particionada debe incluir la clave de partición.
+
+ALTER TABLE public.movimiento RENAME TO movimiento_sin_particionar;
+ALTER TABLE public.movimiento_sin_particionar RENAME CONSTRAINT movimiento_pkey TO movimiento_sin_particionar_pkey;
+CREATE TABLE public.movimiento (LIKE public.movimiento_sin_particionar INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (fecha);
+ALTER TABLE public.movimiento ALTER COLUMN fecha SET NOT NULL;
+ALTER TABLE public.movimiento ADD CONSTRAINT movimiento_pkey PRIMARY KEY (id, fecha);
+ALTER TABLE public.movimiento ADD CONSTRAINT fk73whckhwu6526uvwldwoct89t FOREIGN KEY (producto_id) REFERENCES public.producto (id);
+CREATE TABLE public.movimiento_resto PARTITION OF public.movimiento DEFAULT;
+INSERT INTO public.movimiento SELECT * FROM public.movimiento_sin_particionar;
+DROP TABLE public.movimiento_sin_particionar;
+CREATE INDEX IF NOT EXISTS idx_movimiento_fecha_id ON public.movimiento (fecha, id);
+CREATE INDEX IF NOT EXISTS idx_movimiento_producto_fecha_id ON public.movimiento (producto_id, fecha, id);
+
+ALTER TABLE public.stock_log RENAME TO stock_log_sin_particionar;
+ALTER TABLE public.stock_log_sin_particionar RENAME CONSTRAINT stock_log_pkey TO stock_log_sin_particionar_pkey;
+CREATE TABLE public.stock_log (LIKE public.stock_log_sin_particionar INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (fecha);
+ALTER TABLE public.stock_log ALTER COLUMN fecha SET NOT NULL;
+ALTER TABLE public.stock_log ADD CONSTRAINT stock_log_pkey PRIMARY KEY (id, fecha);
+CREATE TABLE public.stock_log_resto PARTITION OF public.stock_log DEFAULT;
+INSERT INTO public.stock_log SELECT * FROM public.stock_log_sin_particionar;
+DROP TABLE public.stock_log_sin_particionar;
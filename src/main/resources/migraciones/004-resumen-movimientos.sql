@@ -0,0 +1,12 @@
+-- Rellena resumen_movimiento_diario con todo el histórico de movimiento. Se ejecuta al arrancar, antes
+-- de atender peticiones, así que ningún movimiento nuevo se suma dos veces. Para volver a calcular un
+-- rango más adelante: POST /api/reportes/movimientos-diarios/reconstruccion.
+DELETE FROM public.resumen_movimiento_diario;
+
+INSERT INTO public.resumen_movimiento_diario (dia, producto_id, entradas, salidas)
+SELECT fecha::date, producto_id,
+       SUM(CASE WHEN tipo = 'ENTRADA' THEN cantidad ELSE 0 END),
+       SUM(CASE WHEN tipo = 'SALIDA' THEN cantidad ELSE 0 END)
+  FROM public.movimiento
+ WHERE producto_id IS NOT NULL AND fecha IS NOT NULL
+ GROUP BY fecha::date, producto_id;
@@ -4,16 +4,48 @@ CREATE SCHEMA IF NOT EXISTS public;
 -- Eliminar función si existe previamente
 DROP FUNCTION IF EXISTS public.buscar_productos;
 
+-- Búsqueda de productos por nombre (subcadena), categoría y código, hasta p_limite resultados,
+-- ordenados por relevancia:
+--   1. Los que empiezan por el texto, en orden alfabético (el nombre exacto queda el primero).
+--      Salen en orden del índice idx_producto_nombre_prefijo sin leer el resto de coincidencias.
+--   2. Los que lo contienen más adelante, por posición de la coincidencia y longitud del nombre.
+--      El ILIKE lo resuelve el índice de trigramas idx_producto_nombre_trgm.
+-- Sin nombre, orden alfabético por el mismo índice. Cada bloque tiene su propio LIMIT y el UNION ALL
+-- los concatena en orden: si el primero ya completa el límite, el segundo no llega a ejecutarse.
+-- Es STABLE y de una sola consulta para que PostgreSQL la integre en la consulta que la llama y
+-- planifique con los filtros reales. Índices en migraciones.sql.
 CREATE OR REPLACE FUNCTION public.buscar_productos(
     p_nombre TEXT DEFAULT NULL,
     p_categoria TEXT DEFAULT NULL,
-    p_codigo TEXT DEFAULT NULL
+    p_codigo TEXT DEFAULT NULL,
+    p_limite INTEGER DEFAULT 100
 )
 RETURNS SETOF public.producto
 LANGUAGE sql
+STABLE
 AS $$
-    SELECT * FROM public.producto
-    WHERE (p_nombre IS NULL OR nombre ILIKE '%' || p_nombre || '%')
-      AND (p_categoria IS NULL OR categoria = p_categoria)
-      AND (p_codigo IS NULL OR codigo = p_codigo)
-$$;
\ No newline at end of file
+    (SELECT * FROM public.producto
+      WHERE p_nombre IS NOT NULL
+        AND lower(nombre) COLLATE "C" LIKE lower(p_nombre) || '%'
+        AND (p_categoria IS NULL OR categoria = p_categoria)
+        AND (p_codigo IS NULL OR codigo = p_codigo)
+      ORDER BY lower(nombre) COLLATE "C", id
+      LIMIT p_limite)
+    UNION ALL
+    (SELECT * FROM public.producto
+      WHERE p_nombre IS NOT NULL
+        AND nombre ILIKE '%' || p_nombre || '%'
+        AND lower(nombre) COLLATE "C" NOT LIKE lower(p_nombre) || '%'
+        AND (p_categoria IS NULL OR categoria = p_categoria)
+        AND (p_codigo IS NULL OR codigo = p_codigo)
+      ORDER BY strpos(lower(nombre), lower(p_nombre)), length(nombre), nombre, id
+      LIMIT p_limite)
+    UNION ALL
+    (SELECT * FROM public.producto
+      WHERE p_nombre IS NULL
+        AND (p_categoria IS NULL OR categoria = p_categoria)
+        AND (p_codigo IS NULL OR codigo = p_codigo)
+      ORDER BY lower(nombre) COLLATE "C", id
+      LIMIT p_limite)
+    LIMIT p_limite
+$$;
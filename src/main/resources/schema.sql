@@ -1,11 +1,21 @@
 -- Eliminar tablas si existen (sólo para desarrollo)
 DROP TABLE IF EXISTS public.stock_log;
 DROP TABLE IF EXISTS public.movimiento;
+DROP TABLE IF EXISTS public.stock_diario;
+DROP TABLE IF EXISTS public.resumen_movimiento_diario;
 DROP TABLE IF EXISTS public.producto;
+DROP SEQUENCE IF EXISTS public.stock_log_seq;
+DROP SEQUENCE IF EXISTS public.movimiento_seq;
+DROP SEQUENCE IF EXISTS public.producto_seq;
+
+-- Secuencias con incremento 50: Hibernate reserva bloques de IDs ("pooled") y agrupa los INSERT
+CREATE SEQUENCE public.producto_seq INCREMENT BY 50;
+CREATE SEQUENCE public.movimiento_seq INCREMENT BY 50;
+CREATE SEQUENCE public.stock_log_seq INCREMENT BY 50;
 
 -- Crear tabla producto
 CREATE TABLE public.producto (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     codigo VARCHAR(255) NOT NULL UNIQUE,
     nombre VARCHAR(255),
     descripcion VARCHAR(255),
@@ -14,30 +24,70 @@ CREATE TABLE public.producto (
     stock INTEGER NOT NULL,
     inventario_inicial INTEGER NOT NULL,
     factor_de_rotacion DOUBLE PRECISION NOT NULL,
-    fecha_creacion TIMESTAMP
+    unidades_vendidas BIGINT NOT NULL DEFAULT 0,
+    stock_minimo INTEGER NOT NULL DEFAULT 10,
+    fecha_creacion TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
--- Crear tabla movimiento
+-- Crear tabla movimiento, particionada por mes de fecha. Las particiones mensuales (movimiento_AAAA_MM)
+-- las crea y archiva ParticionesMensuales; _resto recoge las filas de meses sin partición.
 CREATE TABLE public.movimiento (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT NOT NULL,
     tipo VARCHAR(255) CHECK (tipo IN ('ENTRADA', 'SALIDA')),
     cantidad INTEGER NOT NULL,
     descripcion VARCHAR(255),
-    fecha TIMESTAMP,
-    producto_id BIGINT REFERENCES public.producto(id)
-);
+    fecha TIMESTAMP NOT NULL,
+    producto_id BIGINT REFERENCES public.producto(id),
+    version BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (id, fecha)
+) PARTITION BY RANGE (fecha);
+CREATE TABLE public.movimiento_resto PARTITION OF public.movimiento DEFAULT;
 
--- Crear tabla stock_log
+-- Crear tabla stock_log, particionada igual que movimiento
 CREATE TABLE public.stock_log (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT NOT NULL,
     producto_id BIGINT,
     cantidad_anterior INTEGER NOT NULL,
     cantidad_nueva INTEGER NOT NULL,
     operacion VARCHAR(255),
-    fecha TIMESTAMP
+    fecha TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, fecha)
+) PARTITION BY RANGE (fecha);
+CREATE TABLE public.stock_log_resto PARTITION OF public.stock_log DEFAULT;
+
+-- Crear tabla stock_diario (stock al cierre de cada día en que cambió)
+CREATE TABLE public.stock_diario (
+    producto_id BIGINT NOT NULL,
+    fecha DATE NOT NULL,
+    stock INTEGER NOT NULL,
+    PRIMARY KEY (producto_id, fecha)
 );
 
+-- Crear tabla resumen_movimiento_diario (unidades que entraron y salieron por día y producto)
+CREATE TABLE public.resumen_movimiento_diario (
+    dia DATE NOT NULL,
+    producto_id BIGINT NOT NULL,
+    entradas BIGINT NOT NULL DEFAULT 0,
+    salidas BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (dia, producto_id)
+);
+
+-- Índices (en una base existente los crea migraciones.sql)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_producto_nombre_trgm ON public.producto USING gin (nombre gin_trgm_ops);
+CREATE INDEX idx_producto_nombre_prefijo ON public.producto ((lower(nombre) COLLATE "C"));
+CREATE INDEX idx_producto_categoria ON public.producto (categoria);
+CREATE INDEX idx_producto_stock_bajo ON public.producto ((stock_minimo - stock), id) WHERE stock < stock_minimo;
+CREATE INDEX idx_movimiento_fecha_id ON public.movimiento (fecha, id);
+CREATE INDEX idx_movimiento_producto_fecha_id ON public.movimiento (producto_id, fecha, id);
+
 -- Otorgar permisos al usuario remoto
 ALTER TABLE public.producto OWNER TO remoto;
 ALTER TABLE public.movimiento OWNER TO remoto;
-ALTER TABLE public.stock_log OWNER TO remoto;
\ No newline at end of file
+ALTER TABLE public.stock_log OWNER TO remoto;
+ALTER TABLE public.stock_diario OWNER TO remoto;
+ALTER TABLE public.resumen_movimiento_diario OWNER TO remoto;
+ALTER SEQUENCE public.producto_seq OWNER TO remoto;
+ALTER SEQUENCE public.movimiento_seq OWNER TO remoto;
+ALTER SEQUENCE public.stock_log_seq OWNER TO remoto;
\ No newline at end of file
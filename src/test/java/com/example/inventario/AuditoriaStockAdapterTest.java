@@ -0,0 +1,134 @@
+package com.example.inventario;
+
+import com.example.inventario.domain.model.StockLog;
+import com.example.inventario.infrastructure.adapters.out.AuditoriaStockAdapter;
+import com.example.inventario.infrastructure.adapters.out.EscritorStockLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditoriaStockAdapterTest {
+
+    @Mock
+    private EscritorStockLog escritor;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    // Sin arrancar el hilo en segundo plano: la cola se vacía a mano
+    private AuditoriaStockAdapter adapter(int capacidad) {
+        return new AuditoriaStockAdapter(escritor, registry, capacidad, 500, 60_000, 0);
+    }
+
+    @Test
+    void registrarLogs_DeberiaEscribirLaColaEnUnSoloLote() {
+        AuditoriaStockAdapter adapter = adapter(100);
+
+        adapter.registrarLogs(List.of(log(10, 7), log(7, 5)));
+        adapter.registrarLog(log(5, 9));
+        verifyNoInteractions(escritor);
+        assertEquals(3.0, registry.get("inventario.auditoria.pendientes").gauge().value());
+
+        adapter.vaciar();
+
+        verify(escritor, times(1)).escribir(argThat(lote -> lote.size() == 3));
+        assertEquals(3.0, registry.get("inventario.auditoria.escritas").counter().count());
+    }
+
+    @Test
+    void registrarLogs_ColaLlena_DeberiaEscribirlasEnElHiloLlamador() {
+        AuditoriaStockAdapter adapter = adapter(2);
+
+        adapter.registrarLog(log(10, 7));
+        adapter.registrarLogs(List.of(log(7, 5), log(5, 9)));
+
+        verify(escritor, times(1)).escribir(argThat(lote -> lote.size() == 2));
+        assertEquals(1.0, registry.get("inventario.auditoria.pendientes").gauge().value());
+        assertEquals(2.0, registry.get("inventario.auditoria.directas").counter().count());
+    }
+
+    @Test
+    void registrarLogs_EnTransaccionConLaColaLlena_DeberiaEscribirlasAntesDeConfirmar() {
+        AuditoriaStockAdapter adapter = adapter(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        adapter.registrarLogs(List.of(log(10, 7), log(7, 5)));
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        sincronizaciones.forEach(sincronizacion -> sincronizacion.beforeCommit(false));
+
+        // Se escriben con la transacción del movimiento, que sigue abierta: después ya no se encolan
+        verify(escritor, times(1)).escribir(argThat(lote -> lote.size() == 2));
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+        sincronizaciones.forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertEquals(0.0, registry.get("inventario.auditoria.pendientes").gauge().value());
+        assertEquals(2.0, registry.get("inventario.auditoria.directas").counter().count());
+    }
+
+    @Test
+    void registrarLogs_EnTransaccionDeshecha_DeberiaDevolverElHuecoReservado() {
+        AuditoriaStockAdapter adapter = adapter(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        adapter.registrarLog(log(10, 7));
+        TransactionSynchronizationManager.getSynchronizations().forEach(sincronizacion -> {
+            sincronizacion.beforeCommit(false);
+            sincronizacion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        });
+        TransactionSynchronizationManager.clear();
+
+        adapter.registrarLog(log(7, 5));
+        verifyNoInteractions(escritor);
+        assertEquals(1.0, registry.get("inventario.auditoria.pendientes").gauge().value());
+    }
+
+    @Test
+    void registrarLogs_EnTransaccion_DeberiaEncolarSoloAlConfirmar() {
+        AuditoriaStockAdapter adapter = adapter(100);
+        TransactionSynchronizationManager.initSynchronization();
+
+        adapter.registrarLog(log(10, 7));
+        assertEquals(0.0, registry.get("inventario.auditoria.pendientes").gauge().value());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(sincronizacion -> {
+            sincronizacion.beforeCommit(false);
+            sincronizacion.afterCommit();
+        });
+        assertEquals(1.0, registry.get("inventario.auditoria.pendientes").gauge().value());
+        verifyNoInteractions(escritor);
+    }
+
+    private static StockLog log(int anterior, int nueva) {
+        StockLog log = new StockLog();
+        log.setProductoId(1L);
+        log.setCantidadAnterior(anterior);
+        log.setCantidadNueva(nueva);
+        log.setOperacion(nueva > anterior ? "ENTRADA" : "SALIDA");
+        log.setFecha(LocalDateTime.now());
+        return log;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.inventario;
+
+import com.example.inventario.domain.exceptions.ConflictoConcurrenciaException;
+import com.example.inventario.infrastructure.config.ControlConcurrencia;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ControlConcurrenciaTest {
+
+    private SimpleMeterRegistry registry;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        jdbcTemplate = mock(JdbcTemplate.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    void reintentar_ConflictoPasajero_DeberiaRepetirHastaObtenerResultado() {
+        ControlConcurrencia control = nuevo(ControlConcurrencia.Estrategia.OPTIMISTA, 5);
+        AtomicInteger intentos = new AtomicInteger();
+
+        String resultado = control.reintentar(() -> intentos.incrementAndGet() < 3 ? null : "hecho");
+
+        assertEquals("hecho", resultado);
+        assertEquals(3, intentos.get());
+        assertEquals(2.0, registry.get("inventario.concurrencia.reintentos").counter().count());
+        assertEquals(0.0, registry.get("inventario.concurrencia.conflictos").counter().count());
+    }
+
+    @Test
+    void reintentar_SinResultadoTrasElMaximo_DeberiaLanzarConflicto() {
+        ControlConcurrencia control = nuevo(ControlConcurrencia.Estrategia.OPTIMISTA, 4);
+        AtomicInteger intentos = new AtomicInteger();
+
+        assertThrows(ConflictoConcurrenciaException.class, () -> control.reintentar(() -> {
+            intentos.incrementAndGet();
+            return null;
+        }));
+        assertEquals(4, intentos.get());
+        assertEquals(3.0, registry.get("inventario.concurrencia.reintentos").counter().count());
+        assertEquals(1.0, registry.get("inventario.concurrencia.conflictos").counter().count());
+    }
+
+    @Test
+    void prepararBloqueo_Pesimista_DeberiaFijarLaEsperaUnaVezPorTransaccion() {
+        ControlConcurrencia control = nuevo(ControlConcurrencia.Estrategia.PESIMISTA, 5);
+        TransactionSynchronizationManager.initSynchronization();
+
+        control.prepararBloqueo();
+        control.prepararBloqueo();
+        verify(jdbcTemplate, times(1)).execute("SET LOCAL lock_timeout = '250ms'");
+
+        // La transacción siguiente vuelve a fijarla
+        TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        control.prepararBloqueo();
+        verify(jdbcTemplate, times(2)).execute("SET LOCAL lock_timeout = '250ms'");
+    }
+
+    @Test
+    void prepararBloqueo_Optimista_NoDeberiaEjecutarNada() {
+        ControlConcurrencia control = nuevo(ControlConcurrencia.Estrategia.OPTIMISTA, 5);
+        TransactionSynchronizationManager.initSynchronization();
+
+        control.prepararBloqueo();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private ControlConcurrencia nuevo(ControlConcurrencia.Estrategia estrategia, int intentos) {
+        return new ControlConcurrencia(jdbcTemplate, registry, estrategia, 250, intentos, 1, 2);
+    }
+}
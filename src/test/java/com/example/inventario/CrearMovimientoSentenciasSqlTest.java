@@ -0,0 +1,102 @@
+package com.example.inventario;
+
+import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.ports.out.ProductoRepositoryPort;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Presupuesto de sentencias SQL del camino caliente POST /api/movimientos, leído de la métrica que
+ * registra SentenciasSqlPorPeticionFilter con el contador de la aplicación (ContadorSentenciasJdbc).
+ * Si un cambio añade idas y vueltas a la base de datos, esta prueba falla.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CrearMovimientoSentenciasSqlTest {
+
+    // SET LOCAL lock_timeout (estrategia pesimista, la de por defecto), UPDATE de stock, lectura del
+    // producto, UPDATE de rotación, INSERT ... ON CONFLICT del resumen diario e INSERT del movimiento;
+    // la auditoría la inserta después el hilo de AuditoriaStockAdapter
+    private static final int MAXIMO_SENTENCIAS = 6;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductoRepositoryPort productoRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long idProducto;
+
+    // Las dos filas de auditoría las escribe el hilo en segundo plano: se esperan antes de borrarlas
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (idProducto != null) {
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (jdbcTemplate.queryForObject("SELECT count(*) FROM public.stock_log WHERE producto_id = ?",
+                    Integer.class, idProducto) < 2 && System.nanoTime() < limite) {
+                Thread.sleep(50);
+            }
+            jdbcTemplate.update("DELETE FROM public.movimiento WHERE producto_id = ?", idProducto);
+            jdbcTemplate.update("DELETE FROM public.stock_log WHERE producto_id = ?", idProducto);
+            jdbcTemplate.update("DELETE FROM public.resumen_movimiento_diario WHERE producto_id = ?", idProducto);
+            jdbcTemplate.update("DELETE FROM public.stock_diario WHERE producto_id = ?", idProducto);
+            jdbcTemplate.update("DELETE FROM public.producto WHERE id = ?", idProducto);
+        }
+    }
+
+    @Test
+    void crearMovimiento_NoDeberiaSuperarElPresupuestoDeSentencias() throws Exception {
+        Producto producto = new Producto(null, "Presupuesto SQL", "prueba", BigDecimal.valueOf(1000), 50,
+                "pruebas", "SQL-" + System.nanoTime(), null);
+        producto.setInventarioInicial(50);
+        producto = productoRepository.guardar(producto);
+        idProducto = producto.getId();
+        // La primera petición reserva los bloques de IDs de las secuencias; se mide el estado estable
+        salida(producto.getId());
+
+        double antes = sentenciasRegistradas().totalAmount();
+        mockMvc.perform(post("/api/movimientos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"idProducto\":" + producto.getId() + ",\"tipo\":\"SALIDA\",\"cantidad\":3}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.cantidad").value(44))
+                .andExpect(jsonPath("$.movimiento.nombreProducto").value("Presupuesto SQL"));
+        int sentencias = (int) (sentenciasRegistradas().totalAmount() - antes);
+
+        assertTrue(sentencias <= MAXIMO_SENTENCIAS,
+                "POST /api/movimientos ejecutó " + sentencias + " sentencias SQL (máximo " + MAXIMO_SENTENCIAS + ")");
+    }
+
+    private DistributionSummary sentenciasRegistradas() {
+        return registry.get("inventario.http.sentencias").tag("method", "POST").tag("uri", "/api/movimientos").summary();
+    }
+
+    private void salida(Long idProducto) throws Exception {
+        mockMvc.perform(post("/api/movimientos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"idProducto\":" + idProducto + ",\"tipo\":\"SALIDA\",\"cantidad\":3}"))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.inventario;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Límite de exportaciones simultáneas (app.movimientos.export.maximo-simultaneas): la que llega con
+ * todas ocupadas recibe 503 sin empezar, y el hueco se libera al terminar una.
+ */
+@SpringBootTest(properties = "app.movimientos.export.maximo-simultaneas=1")
+@AutoConfigureMockMvc
+class ExportarMovimientosTest {
+
+    // Sin movimientos posteriores: la exportación termina enseguida
+    private static final String EXPORTACION_VACIA = "/api/movimientos/export?format=csv&despuesDeId=" + Long.MAX_VALUE;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void exportar_ConTodasLasExportacionesOcupadas_DeberiaResponder503HastaQueTermineUna() throws Exception {
+        MvcResult enCurso = mockMvc.perform(get(EXPORTACION_VACIA))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(get(EXPORTACION_VACIA))
+                .andExpect(status().isServiceUnavailable());
+
+        mockMvc.perform(asyncDispatch(enCurso))
+                .andExpect(status().isOk())
+                .andExpect(content().string("id,idProducto,nombreProducto,tipo,cantidad,descripcion,fecha\n"));
+        mockMvc.perform(get(EXPORTACION_VACIA))
+                .andExpect(request().asyncStarted());
+    }
+}
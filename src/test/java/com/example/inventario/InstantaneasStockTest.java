@@ -0,0 +1,70 @@
+package com.example.inventario;
+
+import com.example.inventario.application.service.InstantaneasStock;
+import com.example.inventario.domain.ports.out.StockHistoricoPort;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InstantaneasStockTest {
+
+    private static final LocalDate HOY = LocalDate.of(2025, 3, 10);
+
+    @Mock
+    private StockHistoricoPort stockHistorico;
+
+    private SimpleMeterRegistry registry;
+    private InstantaneasStock instantaneas;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Clock reloj = Clock.fixed(HOY.atTime(0, 5).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        instantaneas = new InstantaneasStock(stockHistorico, registry, true, LocalTime.of(0, 5), 5, reloj);
+    }
+
+    @Test
+    void completarPendientes_DeberiaGuardarLosDiasQueFaltanEnOrden() {
+        when(stockHistorico.ultimaInstantanea()).thenReturn(Optional.of(HOY.minusDays(3)));
+        when(stockHistorico.guardarInstantanea(any())).thenReturn(4);
+
+        assertEquals(2, instantaneas.completarPendientes());
+
+        InOrder orden = inOrder(stockHistorico);
+        orden.verify(stockHistorico).guardarInstantanea(HOY.minusDays(2));
+        orden.verify(stockHistorico).guardarInstantanea(HOY.minusDays(1));
+        assertEquals(8.0, registry.get("inventario.stock.instantaneas.filas").counter().count());
+    }
+
+    @Test
+    void completarPendientes_AlDia_NoDeberiaGuardarNada() {
+        when(stockHistorico.ultimaInstantanea()).thenReturn(Optional.of(HOY.minusDays(1)));
+
+        assertEquals(0, instantaneas.completarPendientes());
+        verify(stockHistorico, never()).guardarInstantanea(any());
+    }
+
+    @Test
+    void completarPendientes_ConHuecoMayorQueElMaximo_DeberiaGuardarSoloLosUltimosDias() {
+        when(stockHistorico.ultimaInstantanea()).thenReturn(Optional.of(HOY.minusDays(100)));
+
+        assertEquals(5, instantaneas.completarPendientes());
+        verify(stockHistorico).guardarInstantanea(HOY.minusDays(5));
+        verify(stockHistorico, never()).guardarInstantanea(HOY.minusDays(6));
+    }
+}
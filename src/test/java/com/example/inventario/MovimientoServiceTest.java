@@ -2,22 +2,33 @@ package com.example.inventario;
 
 import com.example.inventario.application.service.MovimientoService;
 import com.example.inventario.application.service.ProductoService;
-import com.example.inventario.domain.exceptions.InvalidStockException;
 
 import com.example.inventario.domain.exceptions.ProductoNotFoundException;
+import com.example.inventario.domain.model.AjusteStock;
+import com.example.inventario.domain.model.CursorMovimiento;
+import com.example.inventario.domain.model.FiltroMovimientos;
 import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Pagina;
 import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.model.ResultadoMovimiento;
+import com.example.inventario.domain.model.StockLog;
 import com.example.inventario.domain.ports.out.MovimientoRepositoryPort;
 import com.example.inventario.domain.ports.out.ProductoRepositoryPort;
-import com.example.inventario.infrastructure.adapters.out.MovimientoEntity;
+import com.example.inventario.domain.ports.out.RegistrarAuditoriaStockPort;
+import com.example.inventario.domain.ports.out.ResumenMovimientosPort;
+import com.example.inventario.domain.ports.out.StockHistoricoPort;
+import com.example.inventario.infrastructure.config.ControlConcurrencia;
 import com.example.inventario.infrastructure.config.mapper.MovimientoMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -41,6 +52,20 @@ class MovimientoServiceTest {
     @Mock
     private MovimientoMapper mapper;
 
+    @Mock
+    private RegistrarAuditoriaStockPort auditoriaStockPort;
+
+    @Mock
+    private ResumenMovimientosPort resumenMovimientos;
+
+    @Mock
+    private StockHistoricoPort stockHistorico;
+
+    // Optimista y sin esperas: los reintentos se ven en las pruebas sin ralentizarlas
+    @Spy
+    private ControlConcurrencia control = new ControlConcurrencia(null, new SimpleMeterRegistry(),
+            ControlConcurrencia.Estrategia.OPTIMISTA, 0, 3, 0, 0);
+
     @InjectMocks
     private MovimientoService movimientoService;
 
@@ -71,7 +96,8 @@ class MovimientoServiceTest {
 
     @Test
     void crearMovimiento_Entrada_DeberiaAumentarStock() {
-        when(productoRepository.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
+        producto.setStock(15);
+        when(productoService.entradaStock(PRODUCTO_ID, 5)).thenReturn(producto);
         when(movimientoRepository.guardar(any(Movimiento.class))).thenReturn(movimientoEntrada);
 
         Movimiento resultado = movimientoService.crearMovimiento(movimientoEntrada);
@@ -79,11 +105,14 @@ class MovimientoServiceTest {
         assertNotNull(resultado);
         verify(productoService).entradaStock(PRODUCTO_ID, 5);
         verify(movimientoRepository).guardar(movimientoEntrada);
+        verify(productoRepository, never()).buscarPorId(any());
+        verify(resumenMovimientos).acumular(List.of(movimientoEntrada), List.of());
+        verify(stockHistorico).corregirInstantaneas(List.of(movimientoEntrada), List.of());
     }
 
     @Test
     void crearMovimiento_Salida_DeberiaDisminuirStock() {
-        when(productoRepository.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
+        when(productoService.salidaStock(PRODUCTO_ID, 3)).thenReturn(producto);
         when(movimientoRepository.guardar(any(Movimiento.class))).thenReturn(movimientoSalida);
 
         Movimiento resultado = movimientoService.crearMovimiento(movimientoSalida);
@@ -95,13 +124,60 @@ class MovimientoServiceTest {
 
     @Test
     void crearMovimiento_ProductoNoExistente_DeberiaLanzarExcepcion() {
-        when(productoRepository.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.empty());
+        when(productoService.entradaStock(PRODUCTO_ID, 5)).thenThrow(new ProductoNotFoundException("Producto no encontrado"));
 
         assertThrows(ProductoNotFoundException.class, () ->
                 movimientoService.crearMovimiento(movimientoEntrada)
         );
     }
 
+    @Test
+    void crearMovimientos_DeberiaAplicarUnDeltaPorProducto() {
+        Producto otro = new Producto();
+        otro.setId(2L);
+        Movimiento salidaOtro = new Movimiento(null, otro, Movimiento.TipoMovimiento.SALIDA, 50, null, null);
+        Movimiento invalido = new Movimiento(null, producto, Movimiento.TipoMovimiento.ENTRADA, 0, null, null);
+
+        when(productoRepository.ajustarStock(PRODUCTO_ID, 2, 3)).thenReturn(Optional.of(new AjusteStock(10, 12, 3)));
+        when(productoRepository.ajustarStock(2L, -50, 50)).thenReturn(Optional.empty());
+        when(productoRepository.buscarPorId(2L)).thenReturn(Optional.of(otro));
+        when(productoService.recalcularFactorDeRotacion(eq(PRODUCTO_ID), any(AjusteStock.class))).thenReturn(producto);
+
+        List<ResultadoMovimiento> resultados = movimientoService.crearMovimientos(
+                List.of(movimientoEntrada, salidaOtro, movimientoSalida, invalido));
+
+        assertEquals(4, resultados.size());
+        assertTrue(resultados.get(0).isExitoso());
+        assertFalse(resultados.get(1).isExitoso());
+        assertTrue(resultados.get(2).isExitoso());
+        assertFalse(resultados.get(3).isExitoso());
+        // +5 y -3 sobre el mismo producto se aplican como un único UPDATE de +2 (3 unidades vendidas)
+        verify(productoRepository).ajustarStock(PRODUCTO_ID, 2, 3);
+        verify(movimientoRepository).guardarTodos(List.of(movimientoEntrada, movimientoSalida));
+        // Auditoría por movimiento partiendo de 10: 10 -> 15 -> 12
+        verify(auditoriaStockPort).registrarLogs(argThat(logs -> logs.size() == 2
+                && logs.get(0).getCantidadAnterior() == 10 && logs.get(0).getCantidadNueva() == 15
+                && logs.get(1).getCantidadAnterior() == 15 && logs.get(1).getCantidadNueva() == 12));
+        // Sólo los aceptados llegan al resumen diario
+        verify(resumenMovimientos).acumular(List.of(movimientoEntrada, movimientoSalida), List.of());
+    }
+
+    @Test
+    void crearMovimientos_SalidaAntesQueEntrada_NoDeberiaAuditarStockNegativo() {
+        Movimiento salida = new Movimiento(null, producto, Movimiento.TipoMovimiento.SALIDA, 15, null, null);
+        Movimiento entrada = new Movimiento(null, producto, Movimiento.TipoMovimiento.ENTRADA, 20, null, null);
+        when(productoRepository.ajustarStock(PRODUCTO_ID, 5, 15)).thenReturn(Optional.of(new AjusteStock(0, 5, 15)));
+        when(productoService.recalcularFactorDeRotacion(eq(PRODUCTO_ID), any(AjusteStock.class))).thenReturn(producto);
+
+        movimientoService.crearMovimientos(List.of(salida, entrada));
+
+        // En el orden del lote sería 0 -> -15 -> 5; la entrada se audita primero: 0 -> 20 -> 5
+        verify(auditoriaStockPort).registrarLogs(argThat(logs -> logs.size() == 2
+                && logs.get(0).getCantidadAnterior() == 0 && logs.get(0).getCantidadNueva() == 20
+                && logs.get(1).getCantidadAnterior() == 20 && logs.get(1).getCantidadNueva() == 5));
+        verify(movimientoRepository).guardarTodos(List.of(salida, entrada));
+    }
+
     @Test
     void obtenerMovimientoPorId_Existente_DeberiaRetornarMovimiento() {
         when(movimientoRepository.buscarPorId(MOVIMIENTO_ID)).thenReturn(Optional.of(movimientoEntrada));
@@ -123,7 +199,7 @@ class MovimientoServiceTest {
 
     @Test
     void registrarMovimiento_Entrada_DeberiaAumentarStock() {
-        when(productoRepository.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
+        when(productoService.entradaStock(PRODUCTO_ID, 5)).thenReturn(producto);
         when(movimientoRepository.guardar(any(Movimiento.class))).thenReturn(movimientoEntrada);
 
         Movimiento resultado = movimientoService.registrarMovimiento(movimientoEntrada);
@@ -155,10 +231,8 @@ class MovimientoServiceTest {
 
     @Test
     void buscarMovimientos_PorProductoYTipo_DeberiaRetornarLista() {
-        MovimientoEntity entity = new MovimientoEntity();
-        when(movimientoRepository.findByProductoIdAndTipo(PRODUCTO_ID, Movimiento.TipoMovimiento.ENTRADA))
-                .thenReturn(Arrays.asList(entity));
-        when(mapper.toDomain(entity)).thenReturn(movimientoEntrada);
+        when(movimientoRepository.buscarMovimientos(PRODUCTO_ID, "entrada"))
+                .thenReturn(Arrays.asList(movimientoEntrada));
 
         List<Movimiento> resultados = movimientoService.buscarMovimientos(PRODUCTO_ID, "entrada");
 
@@ -166,15 +240,61 @@ class MovimientoServiceTest {
         assertEquals(Movimiento.TipoMovimiento.ENTRADA, resultados.get(0).getTipo());
     }
 
+    @Test
+    void buscarPaginaMovimientos_ConCursor_DeberiaContinuarDespuesDelUltimo() {
+        LocalDateTime fecha = LocalDateTime.of(2025, 3, 1, 10, 30);
+        String cursor = new CursorMovimiento(fecha, 42L).codificar();
+        FiltroMovimientos filtro = new FiltroMovimientos(PRODUCTO_ID, null, null, null);
+        Pagina<Movimiento> pagina = new Pagina<>(List.of(movimientoEntrada), null);
+        when(movimientoRepository.buscarPagina(eq(filtro), any(CursorMovimiento.class), eq(20))).thenReturn(pagina);
+
+        Pagina<Movimiento> resultado = movimientoService.buscarPaginaMovimientos(filtro, cursor, 20);
+
+        assertSame(pagina, resultado);
+        verify(movimientoRepository).buscarPagina(eq(filtro),
+                argThat(c -> c.getFecha().equals(fecha) && c.getId().equals(42L)), eq(20));
+    }
+
+    @Test
+    void buscarPaginaMovimientos_CursorNoValido_DeberiaLanzarExcepcion() {
+        FiltroMovimientos filtro = new FiltroMovimientos(null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () -> movimientoService.buscarPaginaMovimientos(filtro, "no-es-un-cursor", 20));
+        verify(movimientoRepository, never()).buscarPagina(any(), any(), anyInt());
+    }
+
     @Test
     void eliminarMovimiento_Entrada_DeberiaDisminuirStock() {
-        when(movimientoRepository.buscarPorId(MOVIMIENTO_ID)).thenReturn(Optional.of(movimientoEntrada));
-        when(productoRepository.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
+        when(movimientoRepository.buscarParaModificar(MOVIMIENTO_ID)).thenReturn(Optional.of(movimientoEntrada));
+        when(movimientoRepository.eliminarSiNoCambio(movimientoEntrada)).thenReturn(true);
 
         movimientoService.eliminarMovimiento(MOVIMIENTO_ID);
 
-        verify(productoService).salidaStock(PRODUCTO_ID, 5);
-        verify(movimientoRepository).eliminarPorId(MOVIMIENTO_ID);
+        verify(productoService).ajustarStock(PRODUCTO_ID, -5, 0, StockLog.ELIMINACION);
+        verify(movimientoRepository).eliminarSiNoCambio(movimientoEntrada);
+        verify(resumenMovimientos).acumular(List.of(), List.of(movimientoEntrada));
+        verify(stockHistorico).corregirInstantaneas(List.of(), List.of(movimientoEntrada));
+    }
+
+    @Test
+    void eliminarMovimiento_Salida_DeberiaRevertirUnidadesVendidas() {
+        when(movimientoRepository.buscarParaModificar(MOVIMIENTO_ID)).thenReturn(Optional.of(movimientoSalida));
+        when(movimientoRepository.eliminarSiNoCambio(movimientoSalida)).thenReturn(true);
+
+        movimientoService.eliminarMovimiento(MOVIMIENTO_ID);
+
+        verify(productoService).ajustarStock(PRODUCTO_ID, 3, -3, StockLog.ELIMINACION);
+    }
+
+    @Test
+    void eliminarMovimiento_YaEliminadoPorOtraOperacion_NoDeberiaRevertirDosVeces() {
+        when(movimientoRepository.buscarParaModificar(MOVIMIENTO_ID))
+                .thenReturn(Optional.of(movimientoEntrada), Optional.empty());
+        when(movimientoRepository.eliminarSiNoCambio(movimientoEntrada)).thenReturn(false);
+
+        assertThrows(RuntimeException.class, () -> movimientoService.eliminarMovimiento(MOVIMIENTO_ID));
+        verify(productoService, never()).ajustarStock(any(), anyInt(), anyInt(), any());
+        verifyNoInteractions(resumenMovimientos);
     }
 
     @Test
@@ -183,25 +303,64 @@ class MovimientoServiceTest {
         movimientoActualizado.setCantidad(20); // Más que el stock disponible
         movimientoActualizado.setTipo(Movimiento.TipoMovimiento.SALIDA);
 
-        when(movimientoRepository.buscarPorId(MOVIMIENTO_ID)).thenReturn(Optional.of(movimientoEntrada));
-        when(productoRepository.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
+        when(movimientoRepository.buscarParaModificar(MOVIMIENTO_ID)).thenReturn(Optional.of(movimientoEntrada));
+        when(movimientoRepository.actualizarSiNoCambio(movimientoEntrada)).thenReturn(true);
+        // Revertir la entrada de 5 y aplicar la salida de 20: delta -25 rechazado por el UPDATE condicional
+        when(productoService.ajustarStock(PRODUCTO_ID, -25, 20, StockLog.ACTUALIZACION))
+                .thenThrow(new IllegalArgumentException("No hay suficiente stock para esta salida."));
 
-        assertThrows(InvalidStockException.class, () ->
+        assertThrows(IllegalArgumentException.class, () ->
                 movimientoService.actualizarMovimiento(MOVIMIENTO_ID, movimientoActualizado)
         );
+        verifyNoInteractions(resumenMovimientos);
     }
 
     @Test
-    void recalcularFactorDeRotacion_ConMovimientos_DeberiaCalcular() {
-        when(productoRepository.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
-        when(movimientoRepository.buscarPorProductoId(PRODUCTO_ID))
-                .thenReturn(Arrays.asList(movimientoSalida, movimientoSalida)); // 2 salidas de 3 = 6 total
+    void actualizarMovimiento_Entrada_DeberiaAplicarSoloLaDiferencia() {
+        Movimiento movimientoActualizado = new Movimiento();
+        movimientoActualizado.setCantidad(8);
+        movimientoActualizado.setTipo(Movimiento.TipoMovimiento.ENTRADA);
+
+        when(movimientoRepository.buscarParaModificar(MOVIMIENTO_ID)).thenReturn(Optional.of(movimientoEntrada));
+        when(movimientoRepository.actualizarSiNoCambio(movimientoEntrada)).thenReturn(true);
+
+        Movimiento resultado = movimientoService.actualizarMovimiento(MOVIMIENTO_ID, movimientoActualizado);
+
+        assertEquals(8, resultado.getCantidad());
+        // El ajuste, su auditoría y la rotación van por el mismo camino que el resto de movimientos
+        verify(productoService).ajustarStock(PRODUCTO_ID, 3, 0, StockLog.ACTUALIZACION);
+        verifyNoInteractions(auditoriaStockPort);
+        verify(productoRepository, never()).guardar(any(Producto.class));
+        // El resumen diario resta la entrada de 5 y suma la de 8
+        verify(resumenMovimientos).acumular(argThat(altas -> altas.size() == 1 && altas.get(0).getCantidad() == 8),
+                argThat(bajas -> bajas.size() == 1 && bajas.get(0).getCantidad() == 5
+                        && bajas.get(0).getTipo() == Movimiento.TipoMovimiento.ENTRADA));
+    }
+
+    @Test
+    void actualizarMovimiento_OtraEdicionSeAdelanta_DeberiaReleerYAplicarLaDiferenciaSobreLaNueva() {
+        Movimiento movimientoActualizado = new Movimiento();
+        movimientoActualizado.setCantidad(8);
+        movimientoActualizado.setTipo(Movimiento.TipoMovimiento.ENTRADA);
 
+        // Otra edición dejó la entrada en 7 entre la primera lectura y la escritura
+        Movimiento editadoPorOtro = new Movimiento(MOVIMIENTO_ID, producto, Movimiento.TipoMovimiento.ENTRADA, 7, null, null);
+        when(movimientoRepository.buscarParaModificar(MOVIMIENTO_ID))
+                .thenReturn(Optional.of(movimientoEntrada), Optional.of(editadoPorOtro));
+        when(movimientoRepository.actualizarSiNoCambio(any(Movimiento.class))).thenReturn(false, true);
+
+        Movimiento resultado = movimientoService.actualizarMovimiento(MOVIMIENTO_ID, movimientoActualizado);
+
+        assertEquals(8, resultado.getCantidad());
+        verify(productoService).ajustarStock(PRODUCTO_ID, 1, 0, StockLog.ACTUALIZACION);
+        verify(productoService, times(1)).ajustarStock(any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void recalcularFactorDeRotacion_NoDeberiaRecorrerElHistorico() {
         movimientoService.recalcularFactorDeRotacion(PRODUCTO_ID);
 
-        // 6 (total vendido) / 10 (stock actual) = 0.6
-        verify(productoRepository).guardar(argThat(p ->
-                p.getFactorDeRotacion() == 0.6
-        ));
+        verify(productoService).recalcularFactorDeRotacion(PRODUCTO_ID);
+        verify(movimientoRepository, never()).buscarPorProductoId(any());
     }
 }
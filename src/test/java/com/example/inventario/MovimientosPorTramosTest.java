@@ -0,0 +1,159 @@
+package com.example.inventario;
+
+import com.example.inventario.domain.model.CursorMovimiento;
+import com.example.inventario.domain.model.FiltroMovimientos;
+import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.ports.out.MovimientoRepositoryPort;
+import com.example.inventario.domain.ports.out.ProductoRepositoryPort;
+import com.example.inventario.domain.ports.out.ResumenMovimientosPort;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Búsquedas por tramos de fecha sobre la tabla particionada: movimientos repartidos por varios meses,
+ * justo a ambos lados de un cambio de mes, con fechas repetidas y uno antiguo con el ID más alto.
+ */
+@SpringBootTest
+class MovimientosPorTramosTest {
+
+    private static final LocalDateTime MES_ACTUAL = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+
+    @Autowired
+    private MovimientoRepositoryPort movimientoRepository;
+
+    @Autowired
+    private ProductoRepositoryPort productoRepository;
+
+    @Autowired
+    private ResumenMovimientosPort resumenMovimientos;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long idProducto;
+    private List<Movimiento> movimientos;
+
+    @BeforeEach
+    void setUp() {
+        Producto producto = new Producto(null, "Tramos", "prueba", BigDecimal.ONE, 0,
+                "pruebas", "TR-" + System.nanoTime(), null);
+        idProducto = productoRepository.guardar(producto).getId();
+
+        // Los IDs siguen el orden de la lista: el más antiguo queda con el mayor
+        movimientos = new ArrayList<>();
+        for (LocalDateTime fecha : List.of(
+                MES_ACTUAL.plusMonths(1).plusDays(2),
+                MES_ACTUAL,
+                MES_ACTUAL.minusNanos(1_000),
+                MES_ACTUAL.minusMonths(1).plusDays(5),
+                MES_ACTUAL.minusMonths(1).plusDays(5),
+                MES_ACTUAL.minusMonths(2),
+                MES_ACTUAL.minusMonths(3).plusDays(10),
+                MES_ACTUAL.minusMonths(5),
+                MES_ACTUAL.minusMonths(8),
+                MES_ACTUAL.minusMonths(14))) {
+            Producto referencia = new Producto();
+            referencia.setId(idProducto);
+            movimientos.add(new Movimiento(null, referencia, Movimiento.TipoMovimiento.ENTRADA, 1, fecha, "tramos"));
+        }
+        movimientoRepository.guardarTodos(movimientos);
+        resumenMovimientos.acumular(movimientos, List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM public.movimiento WHERE producto_id = ?", idProducto);
+        jdbcTemplate.update("DELETE FROM public.resumen_movimiento_diario WHERE producto_id = ?", idProducto);
+        jdbcTemplate.update("DELETE FROM public.producto WHERE id = ?", idProducto);
+    }
+
+    @Test
+    void buscarPagina_DeberiaRecorrerTodosLosTramosSinSaltarNiRepetirFilas() {
+        List<Long> esperados = movimientos.stream()
+                .sorted(Comparator.comparing(Movimiento::getFecha).thenComparing(Movimiento::getId).reversed())
+                .map(Movimiento::getId)
+                .toList();
+
+        // Con varios tamaños de página los cortes caen dentro de un tramo, en su borde y entre las dos filas con la misma fecha
+        for (int limite : List.of(1, 2, 3)) {
+            List<Long> leidos = new ArrayList<>();
+            CursorMovimiento cursor = null;
+            do {
+                Pagina<Movimiento> pagina = movimientoRepository.buscarPagina(
+                        new FiltroMovimientos(idProducto, null, null, null), cursor, limite);
+                assertTrue(pagina.getElementos().size() <= limite);
+                pagina.getElementos().forEach(movimiento -> leidos.add(movimiento.getId()));
+                cursor = pagina.hayMas() ? CursorMovimiento.decodificar(pagina.getSiguienteCursor()) : null;
+            } while (cursor != null);
+
+            assertEquals(esperados, leidos, "Páginas de " + limite);
+        }
+    }
+
+    @Test
+    void buscarPagina_ConDesde_NoDeberiaDevolverFilasAnteriores() {
+        LocalDateTime desde = MES_ACTUAL.minusMonths(3);
+        Pagina<Movimiento> pagina = movimientoRepository.buscarPagina(
+                new FiltroMovimientos(idProducto, null, desde, null), null, 20);
+
+        assertEquals(movimientos.stream().filter(movimiento -> !movimiento.getFecha().isBefore(desde)).count(),
+                pagina.getElementos().size());
+    }
+
+    @Test
+    void buscarPorId_DeberiaEncontrarMovimientosDeCualquierTramo() {
+        for (Movimiento movimiento : movimientos) {
+            assertEquals(movimiento.getFecha(), movimientoRepository.buscarPorId(movimiento.getId()).orElseThrow().getFecha());
+            assertEquals(movimiento.getFecha(), movimientoRepository.buscarParaModificar(movimiento.getId()).orElseThrow().getFecha());
+        }
+        assertTrue(movimientoRepository.buscarPorId(-1L).isEmpty());
+    }
+
+    @Test
+    void buscarPorProductoId_DeberiaDevolverTodosLosDelProducto() {
+        assertEquals(movimientos.size(), movimientoRepository.buscarPorProductoId(idProducto).size());
+    }
+
+    @Test
+    void buscarMovimientos_ConYSinProducto_DeberiaEncontrarlosEnTodosLosTramos() {
+        List<Long> ids = movimientos.stream().map(Movimiento::getId).sorted().toList();
+
+        assertEquals(ids, movimientoRepository.buscarMovimientos(idProducto, "entrada").stream()
+                .map(Movimiento::getId).sorted().toList());
+        assertEquals(ids, movimientoRepository.buscarMovimientos(null, "ENTRADA").stream()
+                .filter(movimiento -> idProducto.equals(movimiento.getProducto().getId()))
+                .map(Movimiento::getId).sorted().toList());
+        assertTrue(movimientoRepository.buscarMovimientos(idProducto, "salida").isEmpty());
+    }
+
+    @Test
+    void recorrerMovimientos_AlReanudar_DeberiaIncluirLosAntiguosConIdMayor() {
+        Movimiento antiguo = movimientos.get(movimientos.size() - 1);
+        Movimiento anterior = movimientos.get(movimientos.size() - 2);
+        List<Long> leidos = new ArrayList<>();
+
+        movimientoRepository.recorrerMovimientos(anterior.getId(), movimiento -> {
+            if (idProducto.equals(movimiento.getProducto().getId())) {
+                leidos.add(movimiento.getId());
+            }
+        });
+
+        assertEquals(List.of(antiguo.getId()), leidos);
+    }
+}
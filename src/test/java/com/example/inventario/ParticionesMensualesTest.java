@@ -0,0 +1,149 @@
+package com.example.inventario;
+
+import com.example.inventario.infrastructure.config.ParticionesMensuales;
+import com.example.inventario.infrastructure.config.ParticionesMensuales.Tramo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticionesMensualesTest {
+
+    // Noviembre: las particiones adelantadas cruzan el cambio de año
+    private static final LocalDateTime AHORA = LocalDateTime.of(2024, 11, 15, 10, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private Clock reloj;
+
+    @BeforeEach
+    void setUp() {
+        reloj = Clock.fixed(AHORA.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    }
+
+    private ParticionesMensuales particiones(int retencionMeses) {
+        return new ParticionesMensuales(jdbcTemplate, transactionManager, true, 3, retencionMeses, reloj);
+    }
+
+    // movimiento particionada con las particiones dadas y los meses dados en _resto; stock_log sin particionar
+    private void tabla(List<String> enResto, List<String> existentes, List<String> trasArchivar) {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(jdbcTemplate.queryForObject(contains("relkind"), eq(Boolean.class), anyString()))
+                .thenAnswer(invocacion -> "public.movimiento".equals(invocacion.getArgument(2)));
+        when(jdbcTemplate.query(contains("movimiento_resto"), any(RowMapper.class)))
+                .thenReturn(enResto.stream().map(YearMonth::parse).toList());
+        when(jdbcTemplate.queryForObject(contains("to_regclass(?) IS NOT NULL"), eq(Boolean.class), anyString()))
+                .thenAnswer(invocacion -> existentes.contains(invocacion.<String>getArgument(2).replace("public.", "")));
+        // queryForList también lo usa el bloqueo consultivo, que no necesita respuesta
+        lenient().when(jdbcTemplate.queryForList(contains("pg_inherits"), eq(String.class), eq("public.movimiento")))
+                .thenReturn(conResto(existentes), conResto(trasArchivar));
+    }
+
+    private static List<String> conResto(List<String> particiones) {
+        List<String> nombres = new ArrayList<>(particiones);
+        nombres.add("movimiento_resto");
+        return nombres;
+    }
+
+    private static List<String> nombres(String desde, String hasta) {
+        List<String> nombres = new ArrayList<>();
+        for (YearMonth mes = YearMonth.parse(desde); !mes.isAfter(YearMonth.parse(hasta)); mes = mes.plusMonths(1)) {
+            nombres.add("movimiento_" + mes.getYear() + "_" + String.format("%02d", mes.getMonthValue()));
+        }
+        return nombres;
+    }
+
+    @Test
+    void mantener_DeberiaCrearElMesActualLosAdelantadosYLosQueHayEnResto() {
+        List<String> existentes = nombres("2024-06", "2024-11");
+        tabla(List.of("2023-02", "2024-11"), existentes, existentes);
+
+        particiones(0).mantener();
+
+        // Diciembre, enero y febrero del año siguiente, más el mes antiguo que estaba en _resto
+        verify(jdbcTemplate).execute(contains("ATTACH PARTITION public.movimiento_2024_12"
+                + " FOR VALUES FROM ('2024-12-01 00:00:00.0') TO ('2025-01-01 00:00:00.0')"));
+        verify(jdbcTemplate).execute(contains("ATTACH PARTITION public.movimiento_2025_01"));
+        verify(jdbcTemplate).execute(contains("ATTACH PARTITION public.movimiento_2025_02"));
+        verify(jdbcTemplate).execute(contains("ATTACH PARTITION public.movimiento_2023_02"));
+        verify(jdbcTemplate, times(4)).execute(startsWith("CREATE TABLE"));
+        verify(jdbcTemplate, never()).execute(contains("DETACH"));
+    }
+
+    @Test
+    void mantener_ConRetencion_DeberiaArchivarSoloLosMesesAnterioresAlCorte() {
+        List<String> existentes = nombres("2024-03", "2025-02");
+        tabla(List.of(), existentes, nombres("2024-05", "2025-02"));
+        lenient().when(jdbcTemplate.queryForList(contains("pg_constraint"), eq(String.class), anyString())).thenReturn(List.of());
+        ParticionesMensuales particiones = particiones(6);
+
+        particiones.mantener();
+
+        // Noviembre menos seis meses: se conserva mayo y se archivan marzo y abril
+        verify(jdbcTemplate).execute("ALTER TABLE public.movimiento DETACH PARTITION public.movimiento_2024_03");
+        verify(jdbcTemplate).execute("ALTER TABLE public.movimiento DETACH PARTITION public.movimiento_2024_04");
+        verify(jdbcTemplate).execute("ALTER TABLE public.movimiento_2024_04 SET SCHEMA archivo");
+        verify(jdbcTemplate, times(2)).execute(contains("DETACH"));
+        verify(jdbcTemplate, never()).execute(startsWith("CREATE TABLE"));
+        assertEquals(Optional.of(LocalDateTime.of(2024, 5, 1, 0, 0)), particiones.inicioParticiones("movimiento"));
+        assertEquals(Optional.empty(), particiones.inicioParticiones("stock_log"));
+    }
+
+    @Test
+    void tramosHaciaAtras_DeberianSerContiguosYDoblarseHastaLaPrimeraParticion() {
+        List<String> existentes = nombres("2024-05", "2025-02");
+        tabla(List.of(), existentes, existentes);
+        ParticionesMensuales particiones = particiones(0);
+        particiones.mantener();
+
+        List<Tramo> tramos = particiones.tramosHaciaAtras("movimiento", AHORA, null);
+
+        assertEquals(List.of(
+                new Tramo(LocalDateTime.of(2024, 11, 1, 0, 0), null),
+                new Tramo(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 11, 1, 0, 0)),
+                new Tramo(LocalDateTime.of(2024, 8, 1, 0, 0), LocalDateTime.of(2024, 10, 1, 0, 0)),
+                new Tramo(null, LocalDateTime.of(2024, 8, 1, 0, 0))), tramos);
+    }
+
+    @Test
+    void tramosHaciaAtras_ConDesde_DeberiaTerminarSinLimiteAlAlcanzarlo() {
+        List<String> existentes = nombres("2024-05", "2025-02");
+        tabla(List.of(), existentes, existentes);
+        ParticionesMensuales particiones = particiones(0);
+        particiones.mantener();
+
+        List<Tramo> tramos = particiones.tramosHaciaAtras("movimiento", AHORA, LocalDateTime.of(2024, 9, 10, 0, 0));
+
+        assertEquals(List.of(
+                new Tramo(LocalDateTime.of(2024, 11, 1, 0, 0), null),
+                new Tramo(LocalDateTime.of(2024, 10, 1, 0, 0), LocalDateTime.of(2024, 11, 1, 0, 0)),
+                new Tramo(null, LocalDateTime.of(2024, 10, 1, 0, 0))), tramos);
+    }
+
+    @Test
+    void tramosHaciaAtras_SinParticiones_DeberiaDevolverUnTramoSinLimites() {
+        assertEquals(List.of(new Tramo(null, null)), particiones(0).tramosHaciaAtras("movimiento", AHORA, null));
+    }
+}
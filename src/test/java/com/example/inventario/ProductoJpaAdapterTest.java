@@ -0,0 +1,199 @@
+package com.example.inventario;
+
+import com.example.inventario.domain.model.AjusteStock;
+import com.example.inventario.domain.model.Producto;
+import com.example.inventario.infrastructure.adapters.out.JpaProductoRepository;
+import com.example.inventario.infrastructure.adapters.out.ProductoJpaAdapter;
+import com.example.inventario.infrastructure.config.ControlConcurrencia;
+import com.example.inventario.infrastructure.config.mapper.ProductoMapperImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductoJpaAdapterTest {
+
+    @Mock
+    private JpaProductoRepository jpaRepository;
+
+    private SimpleMeterRegistry registry;
+    private ProductoJpaAdapter adapter;
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        adapter = nuevoAdapter(ControlConcurrencia.Estrategia.PESIMISTA);
+        producto = new Producto(1L, "Tinta", "prueba", BigDecimal.TEN, 10, "medias", "10001", null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Test
+    void buscarPorId_SegundaLectura_DeberiaSalirDeLaCacheComoCopia() {
+        when(jpaRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        Producto primera = adapter.buscarPorId(1L).orElseThrow();
+        primera.setStock(0);
+        Producto segunda = adapter.buscarPorId(1L).orElseThrow();
+
+        verify(jpaRepository, times(1)).findById(1L);
+        assertEquals(10, segunda.getStock());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "productos").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void ajustarStock_SinTransaccion_DeberiaDescartarElProducto() {
+        when(jpaRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(jpaRepository.ajustarStock(1L, -3, 3)).thenReturn(Optional.of(fila(10, 7, 3L)));
+
+        adapter.buscarPorId(1L);
+        adapter.ajustarStock(1L, -3, 3);
+        adapter.buscarPorId(1L);
+
+        verify(jpaRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void guardar_EnTransaccion_DeberiaLeerDeLaBaseHastaTerminarla() {
+        when(jpaRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(jpaRepository.save(producto)).thenReturn(producto);
+        adapter.buscarPorId(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        adapter.guardar(producto);
+        adapter.buscarPorId(1L);
+        verify(jpaRepository, times(2)).findById(1L);
+
+        // Al terminar la transacción se descarta la entrada anterior a la escritura
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clear();
+        adapter.buscarPorId(1L);
+        verify(jpaRepository, times(3)).findById(1L);
+    }
+
+    @Test
+    void ajustarStock_ConOtroAjusteDelProductoSinTerminar_DeberiaContarContencion() throws InterruptedException {
+        when(jpaRepository.ajustarStock(eq(1L), anyInt(), anyInt())).thenReturn(Optional.of(fila(10, 7, 3L)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        adapter.ajustarStock(1L, -3, 3);
+
+        // Otro hilo ajusta el mismo producto mientras la transacción sigue abierta
+        Thread otro = new Thread(() -> adapter.ajustarStock(1L, -1, 1));
+        otro.start();
+        otro.join();
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clear();
+        adapter.ajustarStock(1L, -1, 1);
+
+        assertEquals(1.0, registry.get("inventario.stock.contencion").tag("producto", "1").counter().count());
+        assertEquals(3, registry.get("inventario.stock.ajuste").timer().count());
+    }
+
+    @Test
+    void ajustarStock_SinFilaActualizada_DeberiaContarSoloLasSalidasRechazadas() {
+        when(jpaRepository.ajustarStock(eq(1L), anyInt(), anyInt())).thenReturn(Optional.empty());
+
+        adapter.ajustarStock(1L, -50, 50);
+        adapter.ajustarStock(1L, 5, 0);
+
+        assertEquals(1.0, registry.get("inventario.stock.ajustes.rechazados").counter().count());
+    }
+
+    @Test
+    void ajustarStock_OptimistaConVersionCambiada_DeberiaReleerYReintentar() {
+        adapter = nuevoAdapter(ControlConcurrencia.Estrategia.OPTIMISTA);
+        when(jpaRepository.leerStock(1L)).thenReturn(Optional.of(filaVersion(10, 0L, 4L)), Optional.of(filaVersion(9, 1L, 5L)));
+        when(jpaRepository.escribirStockSiNoCambio(1L, 7, 3L, 4L)).thenReturn(0);
+        when(jpaRepository.escribirStockSiNoCambio(1L, 6, 4L, 5L)).thenReturn(1);
+
+        AjusteStock ajuste = adapter.ajustarStock(1L, -3, 3).orElseThrow();
+
+        assertEquals(9, ajuste.getStockAnterior());
+        assertEquals(6, ajuste.getStock());
+        assertEquals(4L, ajuste.getUnidadesVendidas());
+        verify(jpaRepository, never()).ajustarStock(anyLong(), anyInt(), anyInt());
+        assertEquals(1.0, registry.get("inventario.concurrencia.reintentos").counter().count());
+    }
+
+    @Test
+    void ajustarStock_OptimistaSinStock_DeberiaRechazarSinEscribir() {
+        adapter = nuevoAdapter(ControlConcurrencia.Estrategia.OPTIMISTA);
+        when(jpaRepository.leerStock(1L)).thenReturn(Optional.of(filaVersion(2, 0L, 4L)));
+
+        assertTrue(adapter.ajustarStock(1L, -3, 3).isEmpty());
+        verify(jpaRepository, never()).escribirStockSiNoCambio(anyLong(), anyInt(), anyLong(), anyLong());
+        assertEquals(1.0, registry.get("inventario.stock.ajustes.rechazados").counter().count());
+    }
+
+    // Sin esperas entre reintentos
+    private ProductoJpaAdapter nuevoAdapter(ControlConcurrencia.Estrategia estrategia) {
+        ControlConcurrencia control = new ControlConcurrencia(mock(JdbcTemplate.class), registry, estrategia, 5000, 3, 0, 0);
+        return new ProductoJpaAdapter(jpaRepository, new ProductoMapperImpl(), control, registry, 100, 60_000);
+    }
+
+    private static JpaProductoRepository.FilaStockVersion filaVersion(int stock, long unidadesVendidas, long version) {
+        return new JpaProductoRepository.FilaStockVersion() {
+            @Override
+            public Integer getStock() {
+                return stock;
+            }
+
+            @Override
+            public Long getUnidadesVendidas() {
+                return unidadesVendidas;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
+    }
+
+    private static JpaProductoRepository.FilaAjusteStock fila(int stockAnterior, int stock, long unidadesVendidas) {
+        return new JpaProductoRepository.FilaAjusteStock() {
+            @Override
+            public Integer getStockAnterior() {
+                return stockAnterior;
+            }
+
+            @Override
+            public Integer getStock() {
+                return stock;
+            }
+
+            @Override
+            public Long getUnidadesVendidas() {
+                return unidadesVendidas;
+            }
+        };
+    }
+}
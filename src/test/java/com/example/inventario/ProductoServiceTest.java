@@ -1,11 +1,20 @@
 package com.example.inventario;
 
 import com.example.inventario.application.service.ProductoService;
+import com.example.inventario.application.service.RotacionDiferida;
 import com.example.inventario.application.service.StockService;
 import com.example.inventario.domain.exceptions.ProductoNotFoundException;
+import com.example.inventario.domain.model.AjusteStock;
+import com.example.inventario.domain.model.CursorKardex;
+import com.example.inventario.domain.model.CursorStockBajo;
+import com.example.inventario.domain.model.LineaKardex;
+import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Pagina;
 import com.example.inventario.domain.model.Producto;
-import com.example.inventario.domain.ports.out.MovimientoRepositoryPort;
+import com.example.inventario.domain.model.StockEnFecha;
 import com.example.inventario.domain.ports.out.ProductoRepositoryPort;
+import com.example.inventario.domain.ports.out.RegistrarAuditoriaStockPort;
+import com.example.inventario.domain.ports.out.StockHistoricoPort;
 import com.example.inventario.infrastructure.adapters.in.dto.MovimientoDTO;
 import com.example.inventario.infrastructure.adapters.in.dto.ResultadoOperacionDTO;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,8 +23,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -30,10 +41,16 @@ class ProductoServiceTest {
     private ProductoRepositoryPort productoRepositoryPort;
 
     @Mock
-    private MovimientoRepositoryPort movimientoRepositoryPort;
+    private StockService stockService;
 
     @Mock
-    private StockService stockService;
+    private RotacionDiferida rotacionDiferida;
+
+    @Mock
+    private RegistrarAuditoriaStockPort auditoriaStockPort;
+
+    @Mock
+    private StockHistoricoPort stockHistorico;
 
     @InjectMocks
     private ProductoService productoService;
@@ -93,10 +110,10 @@ class ProductoServiceTest {
 
     @Test
     void buscarProductos_ConCriterios_DeberiaRetornarLista() {
-        when(productoRepositoryPort.buscarPorCriterios("Tinta", "medias", "10001"))
+        when(productoRepositoryPort.buscarPorCriterios("Tinta", "medias", "10001", 50))
                 .thenReturn(List.of(producto));
 
-        List<Producto> resultados = productoService.buscarProductos("Tinta", "medias", "10001");
+        List<Producto> resultados = productoService.buscarProductos("Tinta", "medias", "10001", 50);
 
         assertFalse(resultados.isEmpty());
         assertEquals(1, resultados.size());
@@ -115,7 +132,7 @@ class ProductoServiceTest {
                 LocalDateTime.now()
         );
 
-        when(productoRepositoryPort.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
+        when(productoRepositoryPort.buscarPorIdParaModificar(PRODUCTO_ID)).thenReturn(Optional.of(producto));
         when(productoRepositoryPort.guardar(any(Producto.class))).thenReturn(productoActualizado);
 
         Producto resultado = productoService.actualizarProducto(PRODUCTO_ID, productoActualizado);
@@ -124,6 +141,72 @@ class ProductoServiceTest {
         assertEquals(BigDecimal.valueOf(25000), resultado.getPrecio());
     }
 
+    @Test
+    void actualizarProducto_SinVersion_DeberiaTomarLaLeidaYConservarStockEInventarioInicial() {
+        producto.setStock(33);
+        producto.setInventarioInicial(40);
+        producto.setUnidadesVendidas(7);
+        producto.setFactorDeRotacion(0.5);
+        producto.setVersion(7L);
+        Producto productoActualizado = new Producto(null, "Tinta", "prueba", BigDecimal.TEN, 12, "medias", "10001", null);
+
+        when(productoRepositoryPort.buscarPorIdParaModificar(PRODUCTO_ID)).thenReturn(Optional.of(producto));
+        when(productoRepositoryPort.guardar(any(Producto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Producto resultado = productoService.actualizarProducto(PRODUCTO_ID, productoActualizado);
+
+        assertEquals(PRODUCTO_ID, resultado.getId());
+        // El stock enviado (12) se ignora: sólo lo cambian los movimientos
+        assertEquals(33, resultado.getStock());
+        assertEquals(40, resultado.getInventarioInicial());
+        assertEquals(7, resultado.getUnidadesVendidas());
+        assertEquals(0.5, resultado.getFactorDeRotacion());
+        assertEquals(7L, resultado.getVersion());
+        verify(productoRepositoryPort, never()).buscarPorId(any());
+    }
+
+    @Test
+    void actualizarProducto_ConVersion_DeberiaGuardarLaDelCliente() {
+        producto.setVersion(7L);
+        Producto productoActualizado = new Producto(null, "Tinta", "prueba", BigDecimal.TEN, 12, "medias", "10001", null);
+        productoActualizado.setVersion(5L);
+
+        when(productoRepositoryPort.buscarPorIdParaModificar(PRODUCTO_ID)).thenReturn(Optional.of(producto));
+        when(productoRepositoryPort.guardar(any(Producto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        productoService.actualizarProducto(PRODUCTO_ID, productoActualizado);
+
+        // La versión antigua llega al guardado, que la rechaza por conflicto
+        verify(productoRepositoryPort).guardar(argThat(guardado -> guardado.getVersion() == 5L));
+    }
+
+    @Test
+    void actualizarProducto_SinStockMinimo_DeberiaConservarElGuardado() {
+        producto.setStockMinimo(25);
+        Producto productoActualizado = new Producto(null, "Tinta", "prueba", BigDecimal.TEN, 5, "medias", "10001", null);
+
+        when(productoRepositoryPort.buscarPorIdParaModificar(PRODUCTO_ID)).thenReturn(Optional.of(producto));
+        when(productoRepositoryPort.guardar(any(Producto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Producto resultado = productoService.actualizarProducto(PRODUCTO_ID, productoActualizado);
+
+        assertEquals(25, resultado.getStockMinimo());
+    }
+
+    @Test
+    void actualizarProducto_ConStockMinimo_DeberiaGuardarElEnviado() {
+        producto.setStockMinimo(25);
+        Producto productoActualizado = new Producto(null, "Tinta", "prueba", BigDecimal.TEN, 5, "medias", "10001", null);
+        productoActualizado.setStockMinimo(3);
+
+        when(productoRepositoryPort.buscarPorIdParaModificar(PRODUCTO_ID)).thenReturn(Optional.of(producto));
+        when(productoRepositoryPort.guardar(any(Producto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Producto resultado = productoService.actualizarProducto(PRODUCTO_ID, productoActualizado);
+
+        assertEquals(3, resultado.getStockMinimo());
+    }
+
     @Test
     void eliminarProducto_Existente_DeberiaEliminar() {
         when(productoRepositoryPort.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
@@ -136,19 +219,24 @@ class ProductoServiceTest {
     @Test
     void entradaStock_CantidadPositiva_DeberiaAumentarStock() {
         int cantidadEntrada = 5;
+        when(productoRepositoryPort.ajustarStock(PRODUCTO_ID, cantidadEntrada, 0)).thenReturn(Optional.of(new AjusteStock(5, 10, 0)));
         when(productoRepositoryPort.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
-        when(productoRepositoryPort.guardar(any(Producto.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Producto resultado = productoService.entradaStock(PRODUCTO_ID, cantidadEntrada);
 
         assertEquals(10, resultado.getStock()); // 5 inicial + 5 entrada
+        verify(productoRepositoryPort, never()).guardar(any(Producto.class));
+        // La auditoría usa el stock anterior y el nuevo que devolvió el UPDATE, sin otra lectura
+        verify(auditoriaStockPort).registrarLog(argThat(log ->
+                log.getCantidadAnterior() == 5 && log.getCantidadNueva() == 10 && "ENTRADA".equals(log.getOperacion())
+        ));
     }
 
    @Test
     void salidaStock_CantidadPositiva_DeberiaDisminuirStock() {
         int cantidadSalida = 3;
+        when(productoRepositoryPort.ajustarStock(PRODUCTO_ID, -cantidadSalida, cantidadSalida)).thenReturn(Optional.of(new AjusteStock(5, 2, 3)));
         when(productoRepositoryPort.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
-        when(productoRepositoryPort.guardar(any(Producto.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Producto resultado = productoService.salidaStock(PRODUCTO_ID, cantidadSalida);
 
@@ -157,19 +245,151 @@ class ProductoServiceTest {
 
     @Test
     void salidaStock_SinStockSuficiente_DeberiaLanzarExcepcion() {
+        when(productoRepositoryPort.ajustarStock(PRODUCTO_ID, -10, 10)).thenReturn(Optional.empty());
         when(productoRepositoryPort.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
 
         assertThrows(IllegalArgumentException.class, () -> productoService.salidaStock(PRODUCTO_ID, 10));
     }
 
+    @Test
+    void salidaStock_ProductoNoExistente_DeberiaLanzarExcepcion() {
+        when(productoRepositoryPort.ajustarStock(PRODUCTO_ID, -1, 1)).thenReturn(Optional.empty());
+        when(productoRepositoryPort.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.empty());
+
+        assertThrows(ProductoNotFoundException.class, () -> productoService.salidaStock(PRODUCTO_ID, 1));
+    }
+
     @Test
     void recalcularFactorDeRotacion_ConDatosValidos_DeberiaCalcular() {
+        producto.setInventarioInicial(15);
+        producto.setUnidadesVendidas(4);
         when(productoRepositoryPort.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
-        when(movimientoRepositoryPort.sumarCostoVentasPorProducto(PRODUCTO_ID)).thenReturn(1000.0);
-        when(productoRepositoryPort.guardar(any(Producto.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         Producto resultado = productoService.recalcularFactorDeRotacion(PRODUCTO_ID);
 
-        assertTrue(resultado.getFactorDeRotacion() > 0);
+        // 4 unidades * 20000 / ((15 + 5) / 2)
+        assertEquals(8000.0, resultado.getFactorDeRotacion());
+        verify(productoRepositoryPort).actualizarFactorDeRotacion(PRODUCTO_ID, resultado.getFactorDeRotacion());
+    }
+
+    @Test
+    void salidaStock_ConRotacionDiferida_DeberiaMarcarSinEscribirElFactor() {
+        producto.setFactorDeRotacion(1.5);
+        when(rotacionDiferida.isActiva()).thenReturn(true);
+        when(productoRepositoryPort.ajustarStock(PRODUCTO_ID, -1, 1)).thenReturn(Optional.of(new AjusteStock(5, 4, 1)));
+        when(productoRepositoryPort.buscarPorId(PRODUCTO_ID)).thenReturn(Optional.of(producto));
+
+        Producto resultado = productoService.salidaStock(PRODUCTO_ID, 1);
+
+        // Se devuelve el último factor calculado; el recálculo queda para el proceso en segundo plano
+        assertEquals(1.5, resultado.getFactorDeRotacion());
+        verify(rotacionDiferida).marcar(PRODUCTO_ID);
+        verify(productoRepositoryPort, never()).actualizarFactorDeRotacion(anyLong(), anyDouble());
+    }
+
+    @Test
+    void verificarStockMinimo_ConMinimoPropio_DeberiaUsarloComoUmbral() {
+        // @InjectMocks usa el constructor y no rellena el campo @Autowired
+        ReflectionTestUtils.setField(productoService, "stockService", stockService);
+        producto.setStockMinimo(3);
+
+        ResultadoOperacionDTO resultado = productoService.verificarStockMinimo(producto, new MovimientoDTO());
+
+        // 5 unidades no es stock bajo con mínimo 3, aunque sí lo sería con el mínimo por defecto
+        assertFalse(resultado.isStockBajo());
+        verify(stockService).verificarStockBajo(producto, 3);
+    }
+
+    @Test
+    void buscarProductosStockBajo_ConCursor_DeberiaContinuarDesdeEl() {
+        String cursor = new CursorStockBajo(7, 40L).codificar();
+        Pagina<Producto> pagina = new Pagina<>(List.of(producto), null);
+        when(productoRepositoryPort.buscarStockBajo(argThat(c -> c.getFaltante() == 7 && c.getId() == 40L), eq(20)))
+                .thenReturn(pagina);
+
+        assertSame(pagina, productoService.buscarProductosStockBajo(cursor, 20));
+    }
+
+    @Test
+    void buscarProductosStockBajo_ConLimiteCero_DeberiaLanzarExcepcion() {
+        assertThrows(IllegalArgumentException.class, () -> productoService.buscarProductosStockBajo(null, 0));
+        verifyNoInteractions(productoRepositoryPort);
+    }
+
+    @Test
+    void obtenerStockEnFecha_ProductoInexistente_DeberiaLanzarExcepcion() {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        when(stockHistorico.buscarStockAlCierre(99L, ayer)).thenReturn(Optional.empty());
+
+        assertThrows(ProductoNotFoundException.class, () -> productoService.obtenerStockEnFecha(99L, ayer));
+    }
+
+    @Test
+    void obtenerStockEnFecha_FechaFutura_DeberiaLanzarExcepcion() {
+        assertThrows(IllegalArgumentException.class,
+                () -> productoService.obtenerStockEnFecha(PRODUCTO_ID, LocalDate.now().plusDays(1)));
+        verifyNoInteractions(stockHistorico);
+    }
+
+    @Test
+    void obtenerStockCatalogoEnFecha_ConMasFilas_DeberiaDevolverCursorDelUltimo() {
+        LocalDate dia = LocalDate.of(2024, 12, 31);
+        List<StockEnFecha> filas = List.of(
+                new StockEnFecha(41L, "A", "a", dia, 3),
+                new StockEnFecha(42L, "B", "b", dia, 0),
+                new StockEnFecha(45L, "C", "c", dia, 7));
+        when(stockHistorico.buscarStockCatalogoAlCierre(dia, 40L, 3)).thenReturn(filas);
+
+        Pagina<StockEnFecha> pagina = productoService.obtenerStockCatalogoEnFecha(dia, "40", 2);
+
+        // Se pide una fila de más para saber si hay otra página, pero no se devuelve
+        assertEquals(2, pagina.getElementos().size());
+        assertEquals("42", pagina.getSiguienteCursor());
+    }
+
+    @Test
+    void obtenerStockCatalogoEnFecha_CursorNoNumerico_DeberiaLanzarExcepcion() {
+        assertThrows(IllegalArgumentException.class,
+                () -> productoService.obtenerStockCatalogoEnFecha(LocalDate.of(2024, 12, 31), "abc", 10));
+        verifyNoInteractions(stockHistorico);
+    }
+
+    @Test
+    void obtenerKardex_PrimeraPagina_DeberiaPartirDelSaldoDeAperturaYCodificarElSaldoEnElCursor() {
+        LocalDateTime desde = LocalDateTime.of(2025, 3, 1, 0, 0);
+        CursorKardex inicio = CursorKardex.inicio(desde, 40);
+        when(stockHistorico.buscarInicioKardex(PRODUCTO_ID, desde)).thenReturn(Optional.of(inicio));
+        when(stockHistorico.buscarKardex(PRODUCTO_ID, inicio, null, 3)).thenReturn(List.of(
+                new LineaKardex(7L, desde.plusHours(1), Movimiento.TipoMovimiento.ENTRADA, 10, null, 50),
+                new LineaKardex(9L, desde.plusHours(2), Movimiento.TipoMovimiento.SALIDA, 5, null, 45),
+                new LineaKardex(12L, desde.plusHours(3), Movimiento.TipoMovimiento.SALIDA, 1, null, 44)));
+
+        Pagina<LineaKardex> pagina = productoService.obtenerKardex(PRODUCTO_ID, desde, null, null, 2);
+
+        assertEquals(2, pagina.getElementos().size());
+        // La página siguiente continúa después del movimiento 9 con su saldo, sin recalcular la apertura
+        CursorKardex siguiente = CursorKardex.decodificar(pagina.getSiguienteCursor());
+        assertEquals(desde.plusHours(2), siguiente.getFecha());
+        assertEquals(9L, siguiente.getId());
+        assertEquals(45L, siguiente.getSaldo());
+    }
+
+    @Test
+    void obtenerKardex_ConCursor_NoDeberiaRecalcularLaApertura() {
+        CursorKardex cursor = new CursorKardex(LocalDateTime.of(2025, 3, 1, 2, 0), 9L, 45);
+        when(stockHistorico.buscarKardex(eq(PRODUCTO_ID), argThat(c -> c.getId() == 9L && c.getSaldo() == 45), isNull(), eq(11)))
+                .thenReturn(List.of());
+
+        Pagina<LineaKardex> pagina = productoService.obtenerKardex(PRODUCTO_ID, null, null, cursor.codificar(), 10);
+
+        assertFalse(pagina.hayMas());
+        verify(stockHistorico, never()).buscarInicioKardex(any(), any());
+    }
+
+    @Test
+    void obtenerKardex_ProductoInexistente_DeberiaLanzarExcepcion() {
+        when(stockHistorico.buscarInicioKardex(99L, null)).thenReturn(Optional.empty());
+
+        assertThrows(ProductoNotFoundException.class, () -> productoService.obtenerKardex(99L, null, null, null, 10));
     }
 }
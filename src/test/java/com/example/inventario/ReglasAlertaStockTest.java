@@ -0,0 +1,120 @@
+package com.example.inventario;
+
+import com.example.inventario.application.service.ReglasAlertaStock;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.model.VentasRecientes;
+import com.example.inventario.domain.ports.out.MovimientoRepositoryPort;
+import com.example.inventario.domain.ports.out.ProductoRepositoryPort;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReglasAlertaStockTest {
+
+    private static final long HORA = 60 * 60 * 1000L;
+    private static final long DIA = 24 * HORA;
+
+    @Mock
+    private ProductoRepositoryPort productoRepository;
+
+    @Mock
+    private MovimientoRepositoryPort movimientoRepository;
+
+    private SimpleMeterRegistry registry;
+    private ReglasAlertaStock reglas;
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        // Margen del 20 %, enfriamiento de 1 h, sin regla de días de cobertura
+        reglas = new ReglasAlertaStock(productoRepository, movimientoRepository, registry, 0.2, HORA, 0, DIA);
+        producto = new Producto(1L, "Tinta", "prueba", BigDecimal.TEN, 20, "medias", "10001", LocalDateTime.now());
+    }
+
+    @Test
+    void evaluar_VentasSeguidasBajoElMinimo_DeberiaAvisarUnaSolaVez() {
+        int avisos = 0;
+        for (int stock = 9; stock > 0; stock--) {
+            producto.setStock(stock);
+            avisos += reglas.evaluar(producto, 10, stock) ? 1 : 0;
+        }
+
+        assertEquals(1, avisos);
+        assertEquals(8.0, registry.get("inventario.alertas.suprimidas").counter().count());
+    }
+
+    @Test
+    void evaluar_ConHisteresis_NoDeberiaSalirDeLaAlertaHastaSuperarElMargen() {
+        producto.setStock(9);
+        assertTrue(reglas.evaluar(producto, 10, 0));
+
+        // 10 y 11 no llegan a la marca de recuperación (10 + 20 %): sigue siendo el mismo episodio
+        producto.setStock(11);
+        reglas.evaluar(producto, 10, 2 * HORA);
+        producto.setStock(9);
+        assertFalse(reglas.evaluar(producto, 10, 3 * HORA));
+
+        // Tras recuperarse, la siguiente bajada es un episodio nuevo
+        producto.setStock(12);
+        reglas.evaluar(producto, 10, 4 * HORA);
+        producto.setStock(9);
+        assertTrue(reglas.evaluar(producto, 10, 5 * HORA));
+    }
+
+    @Test
+    void evaluar_DentroDelEnfriamiento_DeberiaAvisarAlTerminarlo() {
+        producto.setStock(9);
+        assertTrue(reglas.evaluar(producto, 10, 0));
+        producto.setStock(15);
+        reglas.evaluar(producto, 10, 1_000);
+
+        // Vuelve a bajar enseguida: el aviso espera al final del enfriamiento
+        producto.setStock(9);
+        assertFalse(reglas.evaluar(producto, 10, 2_000));
+        producto.setStock(8);
+        assertTrue(reglas.evaluar(producto, 10, HORA + 1));
+    }
+
+    @Test
+    void evaluar_ConPocosDiasDeCobertura_DeberiaAvisarPorEncimaDelMinimo() {
+        reglas = new ReglasAlertaStock(productoRepository, movimientoRepository, registry, 0.2, HORA, 3, DIA);
+        producto.setStock(100);
+        reglas.evaluar(producto, 10, 0);
+
+        // 60 unidades vendidas en unos minutos: con 40 en stock quedan menos de 3 días al ritmo actual
+        producto.setStock(40);
+        producto.setUnidadesVendidas(60);
+        assertTrue(reglas.evaluar(producto, 10, 10 * 60 * 1000L));
+    }
+
+    @Test
+    void recuperarEstado_ConProductosYaBajos_NoDeberiaRepetirSuAviso() {
+        Producto bajo = new Producto(2L, "Papel", "prueba", BigDecimal.TEN, 3, "oficina", "10002", LocalDateTime.now());
+        when(movimientoRepository.buscarVentasDesde(any())).thenReturn(List.of(new VentasRecientes(1L, 5, 10, 40, 4)));
+        when(productoRepository.buscarStockBajo(isNull(), anyInt())).thenReturn(new Pagina<>(List.of(bajo), null));
+
+        reglas.recuperarEstado();
+
+        producto.setStock(4);
+        bajo.setStock(2);
+        assertFalse(reglas.evaluar(producto, 10, System.currentTimeMillis()));
+        assertFalse(reglas.evaluar(bajo, 10, System.currentTimeMillis()));
+        assertEquals(2.0, registry.get("inventario.alertas.activas").gauge().value());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.inventario;
+
+import com.example.inventario.application.service.ReporteService;
+import com.example.inventario.domain.model.CursorResumen;
+import com.example.inventario.domain.model.FiltroResumen;
+import com.example.inventario.domain.model.Pagina;
+import com.example.inventario.domain.model.ResumenDiario;
+import com.example.inventario.domain.ports.out.ResumenMovimientosPort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReporteServiceTest {
+
+    @Mock
+    private ResumenMovimientosPort resumenMovimientos;
+
+    private ReporteService reporteService;
+
+    @BeforeEach
+    void setUp() {
+        reporteService = new ReporteService(resumenMovimientos, 31);
+    }
+
+    @Test
+    void buscarMovimientosDiarios_ConCursor_DeberiaContinuarDespuesDeLaUltimaFila() {
+        LocalDate desde = LocalDate.of(2025, 3, 1);
+        LocalDate hasta = LocalDate.of(2025, 3, 31);
+        String cursor = new CursorResumen(LocalDate.of(2025, 3, 4), "Bebidas").codificar();
+        Pagina<ResumenDiario> pagina = new Pagina<>(List.of(), null);
+        when(resumenMovimientos.buscarPagina(any(), any(), eq(50))).thenReturn(pagina);
+
+        assertSame(pagina, reporteService.buscarMovimientosDiarios(
+                new FiltroResumen(null, null, desde, hasta, ResumenDiario.Agrupacion.CATEGORIA), cursor, 50));
+
+        verify(resumenMovimientos).buscarPagina(
+                argThat(f -> f.getDesde().equals(desde) && f.getHasta().equals(hasta)
+                        && f.getAgrupacion() == ResumenDiario.Agrupacion.CATEGORIA),
+                argThat(c -> c.getDia().equals(LocalDate.of(2025, 3, 4)) && "Bebidas".equals(c.getClave())),
+                eq(50));
+    }
+
+    @Test
+    void buscarMovimientosDiarios_RangoMayorQueElMaximo_DeberiaLanzarExcepcion() {
+        FiltroResumen filtro = new FiltroResumen(null, null, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 1), null);
+
+        assertThrows(IllegalArgumentException.class, () -> reporteService.buscarMovimientosDiarios(filtro, null, 50));
+        verifyNoInteractions(resumenMovimientos);
+    }
+
+    @Test
+    void reconstruirMovimientosDiarios_DeberiaIrMesAMes() {
+        when(resumenMovimientos.reconstruir(any(), any())).thenReturn(10);
+
+        assertEquals(30, reporteService.reconstruirMovimientosDiarios(LocalDate.of(2025, 1, 20), LocalDate.of(2025, 3, 5)));
+
+        InOrder orden = inOrder(resumenMovimientos);
+        orden.verify(resumenMovimientos).reconstruir(LocalDate.of(2025, 1, 20), LocalDate.of(2025, 1, 31));
+        orden.verify(resumenMovimientos).reconstruir(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28));
+        orden.verify(resumenMovimientos).reconstruir(LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 5));
+    }
+
+    @Test
+    void reconstruirMovimientosDiarios_FechasInvertidas_DeberiaLanzarExcepcion() {
+        assertThrows(IllegalArgumentException.class, () ->
+                reporteService.reconstruirMovimientosDiarios(LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 1)));
+        verify(resumenMovimientos, never()).reconstruir(any(), any());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.inventario;
+
+import com.example.inventario.application.service.RotacionDiferida;
+import com.example.inventario.domain.model.Producto;
+import com.example.inventario.domain.ports.out.ProductoRepositoryPort;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RotacionDiferidaTest {
+
+    @Mock
+    private ProductoRepositoryPort productoRepository;
+
+    private SimpleMeterRegistry registry;
+    private RotacionDiferida rotacionDiferida;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        // Ventana larga: en la prueba la cola se procesa a mano
+        rotacionDiferida = new RotacionDiferida(productoRepository, registry, true, 60_000);
+    }
+
+    @Test
+    void procesarPendientes_DeberiaRecalcularUnaVezPorProducto() {
+        Producto producto = new Producto(1L, "Tinta", "prueba", BigDecimal.TEN, 10, "medias", "10001", null);
+        producto.setInventarioInicial(30);
+        producto.setUnidadesVendidas(20);
+        when(productoRepository.buscarPorIdSinCache(1L)).thenReturn(Optional.of(producto));
+
+        rotacionDiferida.marcar(1L);
+        rotacionDiferida.marcar(1L);
+        rotacionDiferida.marcar(1L);
+        assertEquals(1.0, registry.get("inventario.rotacion.pendientes").gauge().value());
+
+        rotacionDiferida.procesarPendientes();
+
+        // 20 unidades * 10 / ((30 + 10) / 2)
+        verify(productoRepository, times(1)).actualizarFactorDeRotacion(1L, 10.0);
+        verify(productoRepository, never()).buscarPorId(anyLong());
+        assertEquals(0.0, registry.get("inventario.rotacion.pendientes").gauge().value());
+        assertEquals(1, registry.get("inventario.rotacion.retraso").timer().count());
+    }
+
+    @Test
+    void procesarPendientes_ProductoEliminado_NoDeberiaEscribir() {
+        when(productoRepository.buscarPorIdSinCache(2L)).thenReturn(Optional.empty());
+
+        rotacionDiferida.marcar(2L);
+        rotacionDiferida.procesarPendientes();
+
+        verify(productoRepository, never()).actualizarFactorDeRotacion(anyLong(), anyDouble());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.inventario;
+
+import com.example.inventario.domain.ports.observer.StockObserver;
+import com.example.inventario.infrastructure.adapters.out.StockSubjectAsincrono;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockSubjectAsincronoTest {
+
+    private SimpleMeterRegistry registry;
+    private StockSubjectAsincrono stockSubject;
+    private final CountDownLatch liberar = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        stockSubject = new StockSubjectAsincrono(registry, 2, 200);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        liberar.countDown();
+        stockSubject.close();
+    }
+
+    @Test
+    void notificar_ConObservadorBloqueado_NoDeberiaEsperarNiRetrasarAlResto() throws InterruptedException {
+        CountDownLatch recibido = new CountDownLatch(1);
+        stockSubject.agregarObserver(new ObservadorBloqueado());
+        stockSubject.agregarObserver(new ObservadorRapido(recibido));
+
+        long inicio = System.nanoTime();
+        stockSubject.notificarObservadores(1L, "Tinta", 3);
+
+        assertTrue(System.nanoTime() - inicio < TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(recibido.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void notificar_ConLaColaDelObservadorLlena_DeberiaDescartarYContar() throws InterruptedException {
+        ObservadorBloqueado bloqueado = new ObservadorBloqueado();
+        stockSubject.agregarObserver(bloqueado);
+
+        // Uno en curso, dos en cola y el resto descartados
+        stockSubject.notificarObservadores(1L, "Tinta", 0);
+        assertTrue(bloqueado.iniciado.await(1, TimeUnit.SECONDS));
+        for (int i = 1; i < 5; i++) {
+            stockSubject.notificarObservadores(1L, "Tinta", i);
+        }
+
+        assertEquals(2.0, registry.get("inventario.stock.eventos.descartados")
+                .tag("observador", "ObservadorBloqueado").counter().count());
+    }
+
+    @Test
+    void agregarObserver_ConDosDeLaMismaClase_DeberiaSepararSusMetricas() throws InterruptedException {
+        ObservadorBloqueado primero = new ObservadorBloqueado();
+        ObservadorBloqueado segundo = new ObservadorBloqueado();
+        stockSubject.agregarObserver(primero);
+        stockSubject.agregarObserver(segundo);
+
+        stockSubject.notificarObservadores(1L, "Tinta", 0);
+        assertTrue(primero.iniciado.await(1, TimeUnit.SECONDS));
+        assertTrue(segundo.iniciado.await(1, TimeUnit.SECONDS));
+        for (int i = 1; i < 4; i++) {
+            stockSubject.notificarObservadores(1L, "Tinta", i);
+        }
+
+        for (String nombre : new String[]{"ObservadorBloqueado", "ObservadorBloqueado-2"}) {
+            assertEquals(2.0, registry.get("inventario.stock.eventos.pendientes").tag("observador", nombre).gauge().value());
+            assertEquals(1.0, registry.get("inventario.stock.eventos.descartados").tag("observador", nombre).counter().count());
+        }
+    }
+
+    @Test
+    void notificar_ConObservadorQueSuperaElTiempoMaximo_DeberiaInterrumpirloYSeguir() throws InterruptedException {
+        CountDownLatch segundo = new CountDownLatch(2);
+        stockSubject.agregarObserver(new ObservadorBloqueado() {
+            @Override
+            public void notificarStockBajo(Long productoId, String productoNombre, int stock) {
+                segundo.countDown();
+                if (stock == 0) {
+                    super.notificarStockBajo(productoId, productoNombre, stock);
+                }
+            }
+        });
+
+        stockSubject.notificarObservadores(1L, "Tinta", 0);
+        stockSubject.notificarObservadores(1L, "Tinta", 1);
+
+        assertTrue(segundo.await(2, TimeUnit.SECONDS));
+        assertEquals(1.0, registry.get("inventario.stock.eventos.agotados").tag("observador", "observador").counter().count());
+    }
+
+    private class ObservadorBloqueado implements StockObserver {
+        private final CountDownLatch iniciado = new CountDownLatch(1);
+
+        @Override
+        public void notificarStockBajo(Long productoId, String productoNombre, int stock) {
+            iniciado.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private record ObservadorRapido(CountDownLatch recibido) implements StockObserver {
+        @Override
+        public void notificarStockBajo(Long productoId, String productoNombre, int stock) {
+            recibido.countDown();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.inventario.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Latencia de la búsqueda de productos sobre un catálogo generado, antes y después de los índices
+ * de migraciones.sql. El catálogo se inserta en producto dentro de una transacción que se deshace
+ * al final, así que la prueba usa la función buscar_productos y los índices reales.
+ *
+ * <ul>
+ *     <li>Antes: la consulta original (todas las coincidencias, sin orden) con los índices
+ *     desactivados en la sesión, es decir, un recorrido secuencial con ILIKE.</li>
+ *     <li>Después: buscar_productos, con los índices de prefijo y de trigramas, orden por relevancia y límite.</li>
+ * </ul>
+ *
+ * Ejecutar con: mvn -B test -Pbenchmark -Dtest=BusquedaProductosBenchmark
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class BusquedaProductosBenchmark {
+
+    private static final int PRODUCTOS = Integer.getInteger("benchmark.productos", 400_000);
+    private static final int CONSULTAS = Integer.getInteger("benchmark.consultas", 300);
+    private static final int CALENTAMIENTO = 30;
+    private static final int LIMITE = 50;
+
+    // IDs muy por encima de los reales: las filas nunca se confirman, pero no deben chocar
+    private static final long PRIMER_ID = 9_000_000_000_000L;
+
+    private static final String TIPOS = "'Tornillo','Tuerca','Arandela','Cable','Tinta','Papel','Cuaderno','Bombilla','Enchufe','Cinta',"
+            + "'Pintura','Brocha','Martillo','Taladro','Llave','Bisagra','Candado','Manguera','Pegamento','Lija',"
+            + "'Regleta','Interruptor','Grapadora','Carpeta','Rotulador','Sobre','Clavo','Taco','Destornillador','Alicate'";
+    private static final String MATERIALES = "'acero','inox','cobre','negro','blanco','azul','rojo','mate','brillante','reforzado',"
+            + "'plus','mini','latón','aluminio','plástico','madera','nylon','zincado','galvanizado','cromado'";
+    private static final String MARCAS = "'Ferrotek','Norvia','Kalder','Ibersa','Delmar','Orbix','Vantel','Quimsa','Tauro','Lumen',"
+            + "'Alpes','Brisa','Cenit','Duna','Ebro','Fénix','Giralda','Helios','Ícaro','Júcar','Kora','Lince','Miño','Nazarí','Olmo'";
+    private static final String CATEGORIAS = "'ferreteria','papeleria','electricidad','pintura','herramientas','hogar','oficina','jardin'";
+
+    // Texto de búsqueda tecleado por el usuario, de 3 caracteres en adelante, como en la búsqueda mientras
+    // se escribe: principios de nombre y también fragmentos de mitad del nombre (marca, material, medida)
+    private static final List<String> TEXTOS = List.of(
+            "tor", "torn", "tornill", "tornillo", "tornillo acero", "tuer", "tuerca inox",
+            "bomb", "bombilla", "bombilla blanco", "cable cobre", "tinta negro", "cinta",
+            "fenix", "Ferrotek", "Kalder 12", "llave", "martillo madera", "galvaniz", "cromado 75",
+            "xyz", "pegamento plus", "rotulador azul", "destornillador", "illo", "acero");
+
+    private static final String CONSULTA_ORIGINAL = "SELECT * FROM public.producto "
+            + "WHERE (?::text IS NULL OR nombre ILIKE '%' || ? || '%') "
+            + "AND (?::text IS NULL OR categoria = ?) "
+            + "AND (?::text IS NULL OR codigo = ?)";
+    private static final String CONSULTA_NUEVA = "SELECT * FROM public.buscar_productos(?, ?, ?, ?)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void busquedaSecuencialFrenteABusquedaIndexada() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                generarCatalogo(conn);
+
+                System.out.println();
+                System.out.printf("Catálogo de %d productos, %d consultas por caso%n", PRODUCTOS, CONSULTAS);
+                System.out.printf("%-22s %-34s %9s %9s %9s %9s %11s%n",
+                        "caso", "estrategia", "p50 ms", "p95 ms", "p99 ms", "máx ms", "filas/cons");
+                medir(conn, "nombre", false);
+                medir(conn, "nombre + categoría", true);
+            } finally {
+                conn.rollback();
+            }
+        }
+    }
+
+    private void generarCatalogo(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO public.producto (id, codigo, nombre, descripcion, categoria, precio, stock, "
+                    + "inventario_inicial, factor_de_rotacion, unidades_vendidas, fecha_creacion) "
+                    + "SELECT " + PRIMER_ID + " + g, 'BENCH-' || g, "
+                    + "(ARRAY[" + TIPOS + "])[1 + g % 30] || ' ' || (ARRAY[" + MATERIALES + "])[1 + (g / 30) % 20] || ' ' "
+                    + "|| (ARRAY[" + MARCAS + "])[1 + (g / 600) % 25] || ' ' || (g % 97) || 'mm', "
+                    + "'benchmark', (ARRAY[" + CATEGORIAS + "])[1 + (g / 7) % 8], (g % 500) + 0.99, 100, 100, 0, 0, now() "
+                    + "FROM generate_series(1, " + PRODUCTOS + ") g");
+            // ANALYZE ve las filas sin confirmar de la propia transacción; sus estadísticas también se deshacen
+            st.execute("ANALYZE public.producto");
+        }
+    }
+
+    private void medir(Connection conn, String caso, boolean conCategoria) throws SQLException {
+        double[] antes;
+        try (Statement st = conn.createStatement()) {
+            st.execute("SET LOCAL enable_indexscan = off");
+            st.execute("SET LOCAL enable_bitmapscan = off");
+        }
+        try (PreparedStatement ps = conn.prepareStatement(CONSULTA_ORIGINAL)) {
+            antes = ejecutar(ps, conCategoria, false);
+        }
+        try (Statement st = conn.createStatement()) {
+            st.execute("SET LOCAL enable_indexscan = on");
+            st.execute("SET LOCAL enable_bitmapscan = on");
+        }
+        double[] despues;
+        try (PreparedStatement ps = conn.prepareStatement(CONSULTA_NUEVA)) {
+            despues = ejecutar(ps, conCategoria, true);
+        }
+
+        imprimir(caso, "ILIKE secuencial, sin límite", antes);
+        imprimir(caso, "índices + relevancia, límite " + LIMITE, despues);
+        System.out.printf("%-22s %-34s %38.1fx%n", caso, "mejora p99", percentil(antes, 0.99) / percentil(despues, 0.99));
+    }
+
+    /**
+     * Lanza CALENTAMIENTO + CONSULTAS búsquedas con textos al azar (semilla fija, mismas búsquedas en
+     * las dos estrategias) leyendo todas las filas. Devuelve las latencias en ms y, en la última
+     * posición, la media de filas por consulta.
+     */
+    private double[] ejecutar(PreparedStatement ps, boolean conCategoria, boolean nueva) throws SQLException {
+        Random azar = new Random(42);
+        double[] latencias = new double[CONSULTAS + 1];
+        long filas = 0;
+        for (int i = 0; i < CALENTAMIENTO + CONSULTAS; i++) {
+            String texto = TEXTOS.get(azar.nextInt(TEXTOS.size()));
+            String categoria = conCategoria ? "ferreteria" : null;
+            if (nueva) {
+                ps.setString(1, texto);
+                ps.setString(2, categoria);
+                ps.setNull(3, Types.VARCHAR);
+                ps.setInt(4, LIMITE);
+            } else {
+                ps.setString(1, texto);
+                ps.setString(2, texto);
+                ps.setString(3, categoria);
+                ps.setString(4, categoria);
+                ps.setNull(5, Types.VARCHAR);
+                ps.setNull(6, Types.VARCHAR);
+            }
+
+            long inicio = System.nanoTime();
+            int leidas = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    leidas++;
+                }
+            }
+            if (i >= CALENTAMIENTO) {
+                latencias[i - CALENTAMIENTO] = (System.nanoTime() - inicio) / 1e6;
+                filas += leidas;
+            }
+        }
+        latencias[CONSULTAS] = (double) filas / CONSULTAS;
+        return latencias;
+    }
+
+    private void imprimir(String caso, String estrategia, double[] resultado) {
+        System.out.printf("%-22s %-34s %9.2f %9.2f %9.2f %9.2f %11.0f%n", caso, estrategia,
+                percentil(resultado, 0.50), percentil(resultado, 0.95), percentil(resultado, 0.99),
+                percentil(resultado, 1.0), resultado[CONSULTAS]);
+    }
+
+    private double percentil(double[] resultado, double p) {
+        double[] latencias = Arrays.copyOf(resultado, CONSULTAS);
+        Arrays.sort(latencias);
+        return latencias[Math.max(0, (int) Math.ceil(p * CONSULTAS) - 1)];
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.inventario.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Generador de carga HTTP para los benchmarks de extremo a extremo: un número fijo de clientes que,
+ * durante un tiempo fijo, lanzan peticiones y esperan cada respuesta antes de la siguiente, como un
+ * usuario o un servicio llamante con su propia conexión.
+ */
+final class CargaHttp {
+
+    // Estado registrado para las peticiones que no obtuvieron respuesta (tiempo agotado, conexión rechazada...)
+    static final int SIN_RESPUESTA = 0;
+
+    private final HttpClient cliente = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(8))
+            .build();
+
+    HttpClient cliente() {
+        return cliente;
+    }
+
+    /**
+     * Lanza las peticiones que devuelve "peticiones" (se llama una vez por petición y desde varios
+     * hilos) con "concurrencia" clientes durante "segundos". Las respuestas 4xx y 5xx cuentan como errores.
+     */
+    Resultado ejecutar(int concurrencia, int segundos, Supplier<HttpRequest> peticiones) throws Exception {
+        long inicioCarga = System.nanoTime();
+        long fin = inicioCarga + Duration.ofSeconds(segundos).toNanos();
+        ExecutorService clientes = Executors.newFixedThreadPool(concurrencia);
+        try {
+            List<Future<Resultado>> parciales = new ArrayList<>();
+            for (int i = 0; i < concurrencia; i++) {
+                parciales.add(clientes.submit(() -> {
+                    Resultado parcial = new Resultado();
+                    while (System.nanoTime() < fin) {
+                        HttpRequest peticion = peticiones.get();
+                        long inicio = System.nanoTime();
+                        try {
+                            int estado = cliente.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            parcial.registrar(System.nanoTime() - inicio, estado);
+                        } catch (Exception e) {
+                            parcial.registrar(System.nanoTime() - inicio, SIN_RESPUESTA);
+                        }
+                    }
+                    return parcial;
+                }));
+            }
+            Resultado total = new Resultado();
+            for (Future<Resultado> parcial : parciales) {
+                total.sumar(parcial.get());
+            }
+            total.nanos = System.nanoTime() - inicioCarga;
+            return total;
+        } finally {
+            clientes.shutdown();
+        }
+    }
+
+    static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    static HttpRequest post(String url, String cuerpo) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+    }
+
+    static HttpRequest put(String url, String cuerpo) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build();
+    }
+
+    /**
+     * Latencias y estados HTTP de todas las peticiones de una carga.
+     */
+    static final class Resultado {
+
+        private long[] latencias = new long[1024];
+        private int peticiones;
+        private int errores;
+        private long nanos;
+        private final Map<Integer, Integer> porEstado = new TreeMap<>();
+
+        private void registrar(long latencia, int estado) {
+            agregarLatencia(latencia);
+            porEstado.merge(estado, 1, Integer::sum);
+            if (estado == SIN_RESPUESTA || estado >= 400) {
+                errores++;
+            }
+        }
+
+        private void agregarLatencia(long latencia) {
+            if (peticiones == latencias.length) {
+                latencias = Arrays.copyOf(latencias, peticiones * 2);
+            }
+            latencias[peticiones++] = latencia;
+        }
+
+        private void sumar(Resultado otro) {
+            for (int i = 0; i < otro.peticiones; i++) {
+                agregarLatencia(otro.latencias[i]);
+            }
+            errores += otro.errores;
+            otro.porEstado.forEach((estado, veces) -> porEstado.merge(estado, veces, Integer::sum));
+        }
+
+        int peticiones() {
+            return peticiones;
+        }
+
+        int errores() {
+            return errores;
+        }
+
+        // Peticiones que terminaron con ese estado HTTP (SIN_RESPUESTA para las que no obtuvieron respuesta)
+        int conEstado(int estado) {
+            return porEstado.getOrDefault(estado, 0);
+        }
+
+        double porSegundo() {
+            return peticiones / (nanos / 1e9);
+        }
+
+        // Percentil de la latencia en ms (p entre 0 y 1)
+        double percentil(double p) {
+            if (peticiones == 0) {
+                return 0;
+            }
+            long[] ordenadas = Arrays.copyOf(latencias, peticiones);
+            Arrays.sort(ordenadas);
+            return ordenadas[Math.max(0, (int) Math.ceil(p * peticiones) - 1)] / 1e6;
+        }
+    }
+}
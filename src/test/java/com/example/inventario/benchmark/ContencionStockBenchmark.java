@@ -0,0 +1,192 @@
+package com.example.inventario.benchmark;
+
+import com.example.inventario.InventarioApplication;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Contención de stock con cada estrategia de control de concurrencia (app.concurrencia.estrategia).
+ * Cada estrategia arranca la aplicación completa en un puerto libre y recibe dos cargas iguales salvo
+ * en el reparto: todos los clientes sobre un mismo producto (el SKU más vendido) o repartidos entre
+ * muchos. La carga mezcla salidas y entradas de una unidad con ediciones de movimientos ya
+ * registrados del mismo producto, que son las que chocan entre sí.
+ *
+ * <p>Por cada carga informa del rendimiento, de las respuestas 400 (stock insuficiente: rechazos
+ * correctos), de las 409 (conflictos que el cliente debería reintentar), de los reintentos internos
+ * por cada 100 peticiones (inventario.concurrencia.reintentos) y de la corrección: al terminar, el
+ * stock, las unidades vendidas y el resumen diario de cada producto deben cuadrar con la suma de
+ * sus movimientos, y ningún stock puede ser negativo. Los productos se borran al terminar.
+ *
+ * Ejecutar con: mvn -B test -Pbenchmark -Dtest=ContencionStockBenchmark [-Dbenchmark.concurrencia=32]
+ * [-Dbenchmark.segundos=15] [-Dbenchmark.productos=100]
+ */
+class ContencionStockBenchmark {
+
+    private static final int CONCURRENCIA = Integer.getInteger("benchmark.concurrencia", 32);
+    private static final int SEGUNDOS = Integer.getInteger("benchmark.segundos", 15);
+    private static final int PRODUCTOS = Integer.getInteger("benchmark.productos", 100);
+    private static final int CALENTAMIENTO_SEGUNDOS = 3;
+    private static final int STOCK_INICIAL = 100;
+    private static final int MOVIMIENTOS_EDITABLES = 4;
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final Pattern ID_MOVIMIENTO = Pattern.compile("\"movimiento\":\\{\"id\":(\\d+)");
+
+    private final CargaHttp carga = new CargaHttp();
+
+    @Test
+    void pesimistaFrenteAOptimista() throws Exception {
+        System.out.println();
+        System.out.printf("%d clientes concurrentes, %d s por carga (45 %% salidas, 35 %% entradas, 20 %% ediciones de movimientos)%n",
+                CONCURRENCIA, SEGUNDOS);
+        System.out.printf("%-10s %-12s %9s %8s %8s %8s %7s %7s %7s %11s  %s%n", "estrategia", "reparto", "pet/s",
+                "p50 ms", "p99 ms", "2xx", "400", "409", "otros", "reint/100", "corrección");
+
+        medir("PESIMISTA");
+        medir("OPTIMISTA");
+    }
+
+    private void medir(String estrategia) throws Exception {
+        // Como argumentos: properties() sólo da valores por defecto y application.properties los taparía
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventarioApplication.class)
+                .run("--server.port=0", "--app.concurrencia.estrategia=" + estrategia, "--spring.jpa.show-sql=false")) {
+            String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+            JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+            MeterRegistry registry = contexto.getBean(MeterRegistry.class);
+
+            List<Long> creados = new ArrayList<>();
+            try {
+                Map<Long, List<Long>> unSku = crearProductos(base, estrategia, "U", 1, creados);
+                Map<Long, List<Long>> repartidos = crearProductos(base, estrategia, "R", PRODUCTOS, creados);
+
+                cargar(base, repartidos, CALENTAMIENTO_SEGUNDOS);
+                informar(estrategia, "1 SKU", base, unSku, jdbc, registry);
+                informar(estrategia, PRODUCTOS + " SKUs", base, repartidos, jdbc, registry);
+            } finally {
+                borrarProductos(jdbc, creados);
+            }
+        }
+    }
+
+    private void informar(String estrategia, String reparto, String base, Map<Long, List<Long>> productos,
+                          JdbcTemplate jdbc, MeterRegistry registry) throws Exception {
+        double reintentosAntes = reintentos(registry);
+        CargaHttp.Resultado resultado = cargar(base, productos, SEGUNDOS);
+        double reintentos = reintentos(registry) - reintentosAntes;
+
+        int correctas = 0;
+        for (int estado = 200; estado < 300; estado++) {
+            correctas += resultado.conEstado(estado);
+        }
+        int rechazadas = resultado.conEstado(400);
+        int conflictos = resultado.conEstado(409);
+        System.out.printf("%-10s %-12s %9.0f %8.2f %8.2f %8d %7d %7d %7d %11.2f  %s%n", estrategia, reparto,
+                resultado.porSegundo(), resultado.percentil(0.50), resultado.percentil(0.99), correctas, rechazadas,
+                conflictos, resultado.peticiones() - correctas - rechazadas - conflictos,
+                100.0 * reintentos / Math.max(1, resultado.peticiones()), comprobar(jdbc, productos.keySet()));
+    }
+
+    private static double reintentos(MeterRegistry registry) {
+        return registry.find("inventario.concurrencia.reintentos").counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    // Productos con sus movimientos editables: unas entradas iniciales que la carga irá modificando
+    private Map<Long, List<Long>> crearProductos(String base, String estrategia, String grupo, int cantidad,
+                                                 List<Long> creados) throws Exception {
+        String prefijo = "CS" + (System.currentTimeMillis() % 1_000_000_000L) + estrategia.charAt(0) + grupo;
+        Map<Long, List<Long>> productos = new LinkedHashMap<>();
+        for (int i = 0; i < cantidad; i++) {
+            String cuerpo = String.format("{\"codigo\":\"%s-%d\",\"nombre\":\"Contención %s %d\",\"descripcion\":\"benchmark\","
+                    + "\"precio\":1,\"stock\":%d,\"categoria\":\"benchmark\"}", prefijo, i, grupo, i, STOCK_INICIAL);
+            Long producto = crear(base + "/api/productos", cuerpo, ID);
+            creados.add(producto);
+
+            List<Long> movimientos = new ArrayList<>();
+            for (int j = 0; j < MOVIMIENTOS_EDITABLES; j++) {
+                movimientos.add(crear(base + "/api/movimientos",
+                        "{\"idProducto\":" + producto + ",\"tipo\":\"ENTRADA\",\"cantidad\":1}", ID_MOVIMIENTO));
+            }
+            productos.put(producto, movimientos);
+        }
+        return productos;
+    }
+
+    private Long crear(String url, String cuerpo, Pattern patronId) throws Exception {
+        HttpResponse<String> respuesta = carga.cliente().send(CargaHttp.post(url, cuerpo), HttpResponse.BodyHandlers.ofString());
+        Matcher id = patronId.matcher(respuesta.body());
+        if (respuesta.statusCode() != 201 || !id.find()) {
+            throw new IllegalStateException("No se pudo crear el dato de prueba: " + respuesta.body());
+        }
+        return Long.valueOf(id.group(1));
+    }
+
+    // 45 % salidas y 35 % entradas de una unidad; 20 % ediciones de un movimiento del mismo producto
+    private CargaHttp.Resultado cargar(String base, Map<Long, List<Long>> productos, int segundos) throws Exception {
+        List<Long> ids = new ArrayList<>(productos.keySet());
+        return carga.ejecutar(CONCURRENCIA, segundos, () -> {
+            ThreadLocalRandom azar = ThreadLocalRandom.current();
+            Long producto = ids.get(azar.nextInt(ids.size()));
+            int tirada = azar.nextInt(100);
+            if (tirada < 80) {
+                String tipo = tirada < 45 ? "SALIDA" : "ENTRADA";
+                return CargaHttp.post(base + "/api/movimientos",
+                        "{\"idProducto\":" + producto + ",\"tipo\":\"" + tipo + "\",\"cantidad\":1}");
+            }
+            List<Long> movimientos = productos.get(producto);
+            Long movimiento = movimientos.get(azar.nextInt(movimientos.size()));
+            String tipo = azar.nextBoolean() ? "ENTRADA" : "SALIDA";
+            return CargaHttp.put(base + "/api/movimientos/" + movimiento,
+                    "{\"idProducto\":" + producto + ",\"tipo\":\"" + tipo + "\",\"cantidad\":" + (1 + azar.nextInt(3)) + "}");
+        });
+    }
+
+    /**
+     * Compara cada producto con sus movimientos: stock = inventario inicial + entradas - salidas,
+     * unidades vendidas = salidas, y lo mismo en el resumen diario. Un cambio perdido o aplicado dos
+     * veces descuadra alguna de las tres.
+     */
+    private static String comprobar(JdbcTemplate jdbc, Collection<Long> productos) {
+        String ids = productos.stream().map(String::valueOf).collect(Collectors.joining(","));
+        Map<String, Object> fila = jdbc.queryForMap(
+                "SELECT count(*) FILTER (WHERE p.stock <> p.inventario_inicial + COALESCE(m.efecto, 0)"
+                        + " OR p.unidades_vendidas <> COALESCE(m.vendidas, 0)"
+                        + " OR COALESCE(r.efecto, 0) <> COALESCE(m.efecto, 0)) AS descuadrados,"
+                        + " count(*) FILTER (WHERE p.stock < 0) AS negativos"
+                        + " FROM public.producto p"
+                        + " LEFT JOIN (SELECT producto_id, SUM(CASE WHEN tipo = 'ENTRADA' THEN cantidad ELSE -cantidad END) AS efecto,"
+                        + " SUM(CASE WHEN tipo = 'SALIDA' THEN cantidad ELSE 0 END) AS vendidas"
+                        + " FROM public.movimiento WHERE producto_id IN (" + ids + ") GROUP BY producto_id) m ON m.producto_id = p.id"
+                        + " LEFT JOIN (SELECT producto_id, SUM(entradas - salidas) AS efecto FROM public.resumen_movimiento_diario"
+                        + " WHERE producto_id IN (" + ids + ") GROUP BY producto_id) r ON r.producto_id = p.id"
+                        + " WHERE p.id IN (" + ids + ")");
+        long descuadrados = ((Number) fila.get("descuadrados")).longValue();
+        long negativos = ((Number) fila.get("negativos")).longValue();
+        return descuadrados == 0 && negativos == 0 ? "correcta"
+                : String.format("INCORRECTA: %d productos descuadrados, %d con stock negativo", descuadrados, negativos);
+    }
+
+    private void borrarProductos(JdbcTemplate jdbc, List<Long> productos) {
+        for (Long id : productos) {
+            jdbc.update("DELETE FROM public.movimiento WHERE producto_id = ?", id);
+            jdbc.update("DELETE FROM public.stock_log WHERE producto_id = ?", id);
+            jdbc.update("DELETE FROM public.resumen_movimiento_diario WHERE producto_id = ?", id);
+            jdbc.update("DELETE FROM public.stock_diario WHERE producto_id = ?", id);
+            jdbc.update("DELETE FROM public.producto WHERE id = ?", id);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.inventario.benchmark;
+
+import com.example.inventario.InventarioApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rendimiento de la API con muchas peticiones concurrentes, con Tomcat sobre hilos de plataforma
+ * (el pool de server.tomcat.threads.max) y sobre hilos virtuales (spring.threads.virtual.enabled).
+ * Cada modo arranca la aplicación completa en un puerto libre contra la base configurada y recibe
+ * la misma carga: un número fijo de clientes que, durante un tiempo fijo, lanzan un 80 % de
+ * consultas de movimientos por producto y un 20 % de entradas de stock sobre un conjunto de
+ * productos creados para la prueba, que se borran al terminar.
+ *
+ * <p>Los hilos virtuales necesitan Java 21 o superior; en Java 17 sólo se mide el modo de plataforma.
+ * El pool de conexiones es el mismo en los dos modos (spring.datasource.hikari.maximum-pool-size).
+ *
+ * Ejecutar con: mvn -B test -Pbenchmark -Dtest=HilosVirtualesBenchmark [-Dbenchmark.concurrencia=400]
+ * [-Dbenchmark.segundos=20]
+ */
+class HilosVirtualesBenchmark {
+
+    private static final int CONCURRENCIA = Integer.getInteger("benchmark.concurrencia", 400);
+    private static final int SEGUNDOS = Integer.getInteger("benchmark.segundos", 20);
+    private static final int CALENTAMIENTO_SEGUNDOS = 5;
+    private static final int PRODUCTOS = 50;
+
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+
+    private final CargaHttp carga = new CargaHttp();
+
+    @Test
+    void hilosDePlataformaFrenteAHilosVirtuales() throws Exception {
+        System.out.println();
+        System.out.printf("%d clientes concurrentes, %d s por modo (80 %% GET movimientos, 20 %% POST entrada)%n", CONCURRENCIA, SEGUNDOS);
+        System.out.printf("%-12s %10s %9s %9s %9s %9s %8s%n", "modo", "pet/s", "p50 ms", "p95 ms", "p99 ms", "máx ms", "errores");
+
+        medir("plataforma", false);
+        if (Runtime.version().feature() >= 21) {
+            medir("virtuales", true);
+        } else {
+            System.out.printf("%-12s (requiere Java 21 o superior; JVM actual: %s)%n", "virtuales", Runtime.version());
+        }
+    }
+
+    private void medir(String modo, boolean virtuales) throws Exception {
+        // Como argumentos: properties() sólo da valores por defecto y application.properties los taparía
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(InventarioApplication.class)
+                .run("--server.port=0", "--spring.threads.virtual.enabled=" + virtuales, "--spring.jpa.show-sql=false")) {
+            String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+            List<Long> productos = crearProductos(base, modo);
+            try {
+                cargar(base, productos, CALENTAMIENTO_SEGUNDOS);
+                CargaHttp.Resultado resultado = cargar(base, productos, SEGUNDOS);
+                System.out.printf("%-12s %10.0f %9.2f %9.2f %9.2f %9.2f %8d%n", modo, resultado.porSegundo(),
+                        resultado.percentil(0.50), resultado.percentil(0.95), resultado.percentil(0.99),
+                        resultado.percentil(1.0), resultado.errores());
+            } finally {
+                borrarProductos(contexto.getBean(JdbcTemplate.class), productos);
+            }
+        }
+    }
+
+    private List<Long> crearProductos(String base, String modo) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String prefijo = "HV" + (System.currentTimeMillis() % 1_000_000_000L);
+        for (int i = 0; i < PRODUCTOS; i++) {
+            String cuerpo = String.format("{\"codigo\":\"%s-%s-%d\",\"nombre\":\"Carga %s %d\",\"descripcion\":\"benchmark\","
+                    + "\"precio\":1,\"stock\":100,\"categoria\":\"benchmark\"}", prefijo, modo.charAt(0), i, modo, i);
+            HttpResponse<String> respuesta = carga.cliente()
+                    .send(CargaHttp.post(base + "/api/productos", cuerpo), HttpResponse.BodyHandlers.ofString());
+            Matcher id = ID.matcher(respuesta.body());
+            if (respuesta.statusCode() != 201 || !id.find()) {
+                throw new IllegalStateException("No se pudo crear el producto de prueba: " + respuesta.body());
+            }
+            ids.add(Long.valueOf(id.group(1)));
+        }
+        return ids;
+    }
+
+    private void borrarProductos(JdbcTemplate jdbc, List<Long> productos) {
+        for (Long id : productos) {
+            jdbc.update("DELETE FROM public.movimiento WHERE producto_id = ?", id);
+            jdbc.update("DELETE FROM public.stock_log WHERE producto_id = ?", id);
+            jdbc.update("DELETE FROM public.producto WHERE id = ?", id);
+        }
+    }
+
+    // 80 % consultas de movimientos de un producto, 20 % entradas de stock
+    private CargaHttp.Resultado cargar(String base, List<Long> productos, int segundos) throws Exception {
+        return carga.ejecutar(CONCURRENCIA, segundos, () -> {
+            ThreadLocalRandom azar = ThreadLocalRandom.current();
+            Long producto = productos.get(azar.nextInt(productos.size()));
+            return azar.nextInt(100) < 80
+                    ? CargaHttp.get(base + "/api/movimientos?productoId=" + producto + "&limit=20")
+                    : CargaHttp.post(base + "/api/movimientos", "{\"idProducto\":" + producto + ",\"tipo\":\"ENTRADA\",\"cantidad\":1}");
+        });
+    }
+}
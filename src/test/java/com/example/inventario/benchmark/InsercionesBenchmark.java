@@ -0,0 +1,120 @@
+package com.example.inventario.benchmark;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Rendimiento de inserción en movimiento y stock_log antes y después de pasar de IDENTITY a
+ * secuencias "pooled" con lotes JDBC. Reproduce con JDBC el patrón de sentencias de cada
+ * estrategia contra las tablas reales, dentro de una transacción que se deshace al final.
+ *
+ * <ul>
+ *     <li>IDENTITY: un INSERT ... RETURNING id por fila; Hibernate no puede agrupar.</li>
+ *     <li>SEQUENCE pooled: un nextval por cada 50 filas y un executeBatch por bloque, que el
+ *     driver reescribe como un INSERT multi-fila (reWriteBatchedInserts).</li>
+ * </ul>
+ *
+ * Ejecutar con: mvn -B test -Pbenchmark -Dtest=InsercionesBenchmark
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class InsercionesBenchmark {
+
+    private static final int FILAS = Integer.getInteger("benchmark.filas", 20_000);
+    private static final int CALENTAMIENTO = 2_000;
+    private static final int BLOQUE = 50;
+
+    // IDs muy por encima de los reales: las filas nunca se confirman, pero no deben chocar
+    private static final long PRIMER_ID = 9_000_000_000_000L;
+
+    private static final String INSERTAR_MOVIMIENTO =
+            "INSERT INTO public.movimiento (id, producto_id, tipo, cantidad, descripcion, fecha) VALUES (%s, ?, 'ENTRADA', 1, 'benchmark', ?)";
+    private static final String INSERTAR_LOG =
+            "INSERT INTO public.stock_log (id, producto_id, cantidad_anterior, cantidad_nueva, operacion, fecha) VALUES (%s, ?, 0, 1, 'benchmark', ?)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void insercionesIdentityFrenteASecuenciaPorLotes() throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            // Las secuencias temporales y el producto de prueba desaparecen con el rollback final
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TEMP SEQUENCE bench_identity START WITH " + PRIMER_ID);
+                st.execute("CREATE TEMP SEQUENCE bench_pooled START WITH " + (PRIMER_ID + 100_000_000L)
+                        + " INCREMENT BY " + BLOQUE);
+                st.execute("INSERT INTO public.producto (id, codigo, nombre, stock, inventario_inicial, factor_de_rotacion) "
+                        + "VALUES (" + PRIMER_ID + ", 'BENCH-" + System.nanoTime() + "', 'benchmark', 0, 0, 0)");
+            }
+            try {
+                System.out.println();
+                System.out.printf("%-12s %-30s %12s %10s%n", "tabla", "estrategia", "filas/s", "mejora");
+                medir(conn, "movimiento", INSERTAR_MOVIMIENTO);
+                medir(conn, "stock_log", INSERTAR_LOG);
+            } finally {
+                conn.rollback();
+            }
+        }
+    }
+
+    private void medir(Connection conn, String tabla, String plantilla) throws SQLException {
+        insertarFilaAFila(conn, plantilla, CALENTAMIENTO);
+        insertarPorLotes(conn, plantilla, CALENTAMIENTO);
+
+        double identity = FILAS / insertarFilaAFila(conn, plantilla, FILAS);
+        double pooled = FILAS / insertarPorLotes(conn, plantilla, FILAS);
+
+        System.out.printf("%-12s %-30s %12.0f %10s%n", tabla, "IDENTITY (fila a fila)", identity, "");
+        System.out.printf("%-12s %-30s %12.0f %9.1fx%n", tabla, "SEQUENCE pooled + lotes de " + BLOQUE, pooled, pooled / identity);
+    }
+
+    /** Devuelve los segundos empleados. */
+    private double insertarFilaAFila(Connection conn, String plantilla, int filas) throws SQLException {
+        long inicio = System.nanoTime();
+        try (PreparedStatement ps = conn.prepareStatement(
+                String.format(plantilla, "nextval('bench_identity')") + " RETURNING id")) {
+            for (int i = 0; i < filas; i++) {
+                ps.setLong(1, PRIMER_ID);
+                ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                }
+            }
+        }
+        return (System.nanoTime() - inicio) / 1e9;
+    }
+
+    /** Devuelve los segundos empleados. */
+    private double insertarPorLotes(Connection conn, String plantilla, int filas) throws SQLException {
+        long inicio = System.nanoTime();
+        try (PreparedStatement secuencia = conn.prepareStatement("SELECT nextval('bench_pooled')");
+             PreparedStatement ps = conn.prepareStatement(String.format(plantilla, "?"))) {
+            for (int i = 0; i < filas; i += BLOQUE) {
+                long superior;
+                try (ResultSet rs = secuencia.executeQuery()) {
+                    rs.next();
+                    superior = rs.getLong(1);
+                }
+                int enBloque = Math.min(BLOQUE, filas - i);
+                for (int j = 0; j < enBloque; j++) {
+                    ps.setLong(1, superior - BLOQUE + 1 + j);
+                    ps.setLong(2, PRIMER_ID);
+                    ps.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        return (System.nanoTime() - inicio) / 1e9;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.inventario.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lanza los microbenchmarks JMH del paquete benchmark.jmh (mapeadores, observadores, lógica de stock
+ * y serialización JSON) y deja los resultados en JSON, el formato de JMH, para guardarlos con cada
+ * versión. Si se indica el JSON de una ejecución anterior, compara benchmark a benchmark y falla
+ * cuando alguno empeora más de la tolerancia y la diferencia supera el margen de error de ambas.
+ *
+ * Ejecutar con: mvn -B test -Pbenchmark -Dtest=JmhBenchmark
+ * [-Dbenchmark.jmh.incluir=MapeadoresJmh] [-Dbenchmark.jmh.resultado=target/jmh/resultados.json]
+ * [-Dbenchmark.jmh.base=jmh-anterior.json] [-Dbenchmark.jmh.tolerancia=0.15]
+ */
+class JmhBenchmark {
+
+    private static final String INCLUIR = System.getProperty("benchmark.jmh.incluir", "com\\.example\\.inventario\\.benchmark\\.jmh\\..*");
+    private static final String RESULTADO = System.getProperty("benchmark.jmh.resultado", "target/jmh/resultados.json");
+    private static final String BASE = System.getProperty("benchmark.jmh.base");
+    private static final double TOLERANCIA = Double.parseDouble(System.getProperty("benchmark.jmh.tolerancia", "0.15"));
+    private static final int ITERACIONES = Integer.getInteger("benchmark.jmh.iteraciones", 5);
+
+    @Test
+    void microbenchmarks() throws RunnerException, IOException {
+        Files.createDirectories(Path.of(RESULTADO).toAbsolutePath().getParent());
+        Options opciones = new OptionsBuilder()
+                .include(INCLUIR)
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(ITERACIONES)
+                .measurementTime(TimeValue.seconds(1))
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULTADO)
+                .build();
+        new Runner(opciones).run();
+        System.out.println("Resultados JMH en " + new File(RESULTADO).getAbsolutePath());
+
+        if (BASE != null) {
+            List<String> regresiones = comparar(leer(Path.of(BASE)), leer(Path.of(RESULTADO)));
+            assertTrue(regresiones.isEmpty(), "Regresiones respecto a " + BASE + ": " + regresiones);
+        }
+    }
+
+    private List<String> comparar(Map<String, double[]> base, Map<String, double[]> actual) {
+        List<String> regresiones = new ArrayList<>();
+        System.out.println();
+        System.out.printf("%-80s %14s %14s %9s%n", "benchmark", "base ns/op", "actual ns/op", "cambio");
+        actual.forEach((clave, medida) -> {
+            double[] anterior = base.get(clave);
+            if (anterior == null) {
+                System.out.printf("%-80s %14s %14.1f %9s%n", clave, "-", medida[0], "nuevo");
+                return;
+            }
+            double cambio = medida[0] / anterior[0] - 1;
+            boolean regresion = cambio > TOLERANCIA && medida[0] - medida[1] > anterior[0] + anterior[1];
+            System.out.printf("%-80s %14.1f %14.1f %+8.1f%%%s%n", clave, anterior[0], medida[0], cambio * 100, regresion ? " REGRESIÓN" : "");
+            if (regresion) {
+                regresiones.add(clave);
+            }
+        });
+        return regresiones;
+    }
+
+    /**
+     * Puntuación y error de cada benchmark, por nombre y parámetros.
+     */
+    private Map<String, double[]> leer(Path fichero) throws IOException {
+        Map<String, double[]> medidas = new LinkedHashMap<>();
+        for (JsonNode resultado : new ObjectMapper().readTree(fichero.toFile())) {
+            Map<String, String> parametros = new TreeMap<>();
+            resultado.path("params").fields().forEachRemaining(p -> parametros.put(p.getKey(), p.getValue().asText()));
+            String clave = resultado.get("benchmark").asText().replace("com.example.inventario.benchmark.jmh.", "")
+                    + (parametros.isEmpty() ? "" : " " + parametros);
+            JsonNode metrica = resultado.get("primaryMetric");
+            double error = metrica.get("scoreError").asDouble();
+            medidas.put(clave, new double[]{metrica.get("score").asDouble(), Double.isNaN(error) ? 0 : error});
+        }
+        return medidas;
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.inventario.benchmark;
+
+import com.example.inventario.InventarioApplication;
+import com.example.inventario.infrastructure.config.ContadorSentenciasJdbc;
+import com.example.inventario.infrastructure.config.ParticionesMensuales;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Rendimiento de extremo a extremo: arranca la aplicación completa contra una base PostgreSQL local
+ * dedicada (inventario_bench por defecto, se crea si no existe y se vacía en cada ejecución), carga un
+ * catálogo y un histórico de movimientos del tamaño indicado y mide varios escenarios por HTTP:
+ * búsqueda de productos, movimientos sobre unos pocos productos muy activos (calientes) y sobre
+ * productos al azar (fríos), listados, exportación y una mezcla de todo. De cada escenario, tras un
+ * calentamiento, se anotan peticiones por segundo, percentiles de latencia, errores, sentencias SQL
+ * por petición, recolecciones de basura y memoria reservada por petición en los hilos de Tomcat.
+ * El resumen sale por consola y en JSON (target/e2e/resultados.json), para comparar versiones.
+ *
+ * <p>Si no hay PostgreSQL en la URL indicada la prueba se omite: el esquema usa funciones plpgsql,
+ * pg_trgm e índices parciales, así que una base en memoria no mediría lo mismo.
+ *
+ * Ejecutar con: mvn -B test -Pbenchmark -Dtest=RendimientoE2EBenchmark
+ * [-Dbenchmark.e2e.url=jdbc:postgresql://localhost:5432/inventario_bench] [-Dbenchmark.e2e.usuario=remoto]
+ * [-Dbenchmark.e2e.clave=] [-Dbenchmark.e2e.productos=100000] [-Dbenchmark.e2e.movimientos=1000000]
+ * [-Dbenchmark.e2e.concurrencia=32] [-Dbenchmark.e2e.segundos=20] [-Dbenchmark.e2e.calentamiento=5]
+ * [-Dbenchmark.e2e.escenarios=busqueda,movimientos-calientes] [-Dbenchmark.e2e.resultado=target/e2e/resultados.json]
+ */
+class RendimientoE2EBenchmark {
+
+    private static final String URL = System.getProperty("benchmark.e2e.url", "jdbc:postgresql://localhost:5432/inventario_bench");
+    private static final String USUARIO = System.getProperty("benchmark.e2e.usuario", "remoto");
+    private static final String CLAVE = System.getProperty("benchmark.e2e.clave", "");
+    private static final int PRODUCTOS = Integer.getInteger("benchmark.e2e.productos", 100_000);
+    private static final int MOVIMIENTOS = Integer.getInteger("benchmark.e2e.movimientos", 1_000_000);
+    private static final int CONCURRENCIA = Integer.getInteger("benchmark.e2e.concurrencia", 32);
+    private static final int SEGUNDOS = Integer.getInteger("benchmark.e2e.segundos", 20);
+    private static final int CALENTAMIENTO_SEGUNDOS = Integer.getInteger("benchmark.e2e.calentamiento", 5);
+    private static final String ESCENARIOS = System.getProperty("benchmark.e2e.escenarios",
+            "busqueda,movimientos-calientes,movimientos-frios,listados,exportacion,mixta");
+    private static final String RESULTADO = System.getProperty("benchmark.e2e.resultado", "target/e2e/resultados.json");
+
+    // Los primeros IDs del catálogo concentran la mitad del histórico y de los movimientos nuevos
+    private static final int CALIENTES = 10;
+    private static final int FILAS_EXPORTACION = 5000;
+    private static final String[] NOMBRES = {"Tornillo", "Tuerca", "Arandela", "Cable", "Tinta", "Papel", "Cinta", "Broca"};
+
+    private static ConfigurableApplicationContext contexto;
+    private static ContadorSentenciasJdbc contador;
+    private static String base;
+    private static long ultimoMovimiento;
+
+    private final CargaHttp carga = new CargaHttp();
+
+    @BeforeAll
+    static void arrancar() {
+        crearBaseSiFalta();
+        // Como argumentos: properties() sólo da valores por defecto y application.properties los taparía
+        contexto = new SpringApplicationBuilder(InventarioApplication.class)
+                // Tantas exportaciones simultáneas como clientes tiene su escenario
+                .run("--server.port=0", "--spring.jpa.show-sql=false", "--app.movimientos.export.maximo-simultaneas=4",
+                        "--spring.datasource.url=" + URL, "--spring.datasource.username=" + USUARIO, "--spring.datasource.password=" + CLAVE,
+                        "--app.datasource.jdbc-url=" + URL, "--app.datasource.username=" + USUARIO, "--app.datasource.password=" + CLAVE);
+        base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+        contador = contexto.getBean(ContadorSentenciasJdbc.class);
+        cargarDatos(contexto.getBean(JdbcTemplate.class), contexto.getBean(ParticionesMensuales.class));
+    }
+
+    @AfterAll
+    static void parar() {
+        if (contexto != null) {
+            contexto.close();
+        }
+    }
+
+    @Test
+    void escenarios() throws Exception {
+        Map<String, Supplier<HttpRequest>> disponibles = new LinkedHashMap<>();
+        disponibles.put("busqueda", this::busqueda);
+        disponibles.put("movimientos-calientes", () -> movimiento(producto(true)));
+        disponibles.put("movimientos-frios", () -> movimiento(producto(false)));
+        disponibles.put("listados", this::listado);
+        disponibles.put("exportacion", () -> CargaHttp.get(base + "/api/movimientos/export?despuesDeId=" + (ultimoMovimiento - FILAS_EXPORTACION)));
+        disponibles.put("mixta", this::mixta);
+
+        System.out.println();
+        System.out.printf("%d productos, %d movimientos; %d clientes, %d s por escenario%n", PRODUCTOS, MOVIMIENTOS, CONCURRENCIA, SEGUNDOS);
+        System.out.printf("%-22s %9s %9s %9s %9s %9s %8s %9s %6s %8s %10s%n", "escenario", "pet/s", "p50 ms", "p95 ms",
+                "p99 ms", "máx ms", "errores", "sql/pet", "gc", "gc ms", "KB/pet");
+
+        List<Map<String, Object>> resultados = new ArrayList<>();
+        for (String nombre : ESCENARIOS.split(",")) {
+            Supplier<HttpRequest> peticiones = disponibles.get(nombre.trim());
+            if (peticiones == null) {
+                throw new IllegalArgumentException("Escenario desconocido: " + nombre + " (disponibles: " + disponibles.keySet() + ")");
+            }
+            // La exportación devuelve miles de filas por petición: con pocos clientes basta para saturar
+            int concurrencia = nombre.trim().equals("exportacion") ? Math.min(4, CONCURRENCIA) : CONCURRENCIA;
+            resultados.add(medir(nombre.trim(), concurrencia, peticiones));
+        }
+
+        Map<String, Object> informe = new LinkedHashMap<>();
+        informe.put("productos", PRODUCTOS);
+        informe.put("movimientos", MOVIMIENTOS);
+        informe.put("concurrencia", CONCURRENCIA);
+        informe.put("segundos", SEGUNDOS);
+        informe.put("java", Runtime.version().toString());
+        informe.put("procesadores", Runtime.getRuntime().availableProcessors());
+        informe.put("escenarios", resultados);
+        Files.createDirectories(Path.of(RESULTADO).toAbsolutePath().getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(RESULTADO), informe);
+        System.out.println("Resultados en " + new File(RESULTADO).getAbsolutePath());
+    }
+
+    private Map<String, Object> medir(String nombre, int concurrencia, Supplier<HttpRequest> peticiones) throws Exception {
+        carga.ejecutar(concurrencia, CALENTAMIENTO_SEGUNDOS, peticiones);
+
+        long[] gcAntes = recolecciones();
+        Map<Long, Long> memoriaAntes = memoriaReservadaTomcat();
+        long sentenciasAntes = contador.totalGlobal();
+        CargaHttp.Resultado resultado = carga.ejecutar(concurrencia, SEGUNDOS, peticiones);
+        long sentencias = contador.totalGlobal() - sentenciasAntes;
+        long[] gc = recolecciones();
+        long memoria = memoriaReservadaDesde(memoriaAntes);
+
+        int total = Math.max(1, resultado.peticiones());
+        Map<String, Object> fila = new LinkedHashMap<>();
+        fila.put("escenario", nombre);
+        fila.put("concurrencia", concurrencia);
+        fila.put("peticiones", resultado.peticiones());
+        fila.put("errores", resultado.errores());
+        fila.put("peticionesPorSegundo", resultado.porSegundo());
+        fila.put("p50Ms", resultado.percentil(0.50));
+        fila.put("p95Ms", resultado.percentil(0.95));
+        fila.put("p99Ms", resultado.percentil(0.99));
+        fila.put("maxMs", resultado.percentil(1.0));
+        fila.put("sentenciasSqlPorPeticion", (double) sentencias / total);
+        fila.put("recolecciones", gc[0] - gcAntes[0]);
+        fila.put("recoleccionMs", gc[1] - gcAntes[1]);
+        fila.put("bytesReservadosPorPeticion", memoria / total);
+
+        System.out.printf("%-22s %9.0f %9.2f %9.2f %9.2f %9.2f %8d %9.2f %6d %8d %10.1f%n", nombre, resultado.porSegundo(),
+                resultado.percentil(0.50), resultado.percentil(0.95), resultado.percentil(0.99), resultado.percentil(1.0),
+                resultado.errores(), (double) sentencias / total, gc[0] - gcAntes[0], gc[1] - gcAntes[1], memoria / 1024.0 / total);
+        return fila;
+    }
+
+    private HttpRequest busqueda() {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        // Mitad por palabra (muchas coincidencias, se corta en el límite) y mitad por prefijo con número
+        String texto = NOMBRES[azar.nextInt(NOMBRES.length)] + (azar.nextBoolean() ? "" : "%20" + (1 + azar.nextInt(99)));
+        return CargaHttp.get(base + "/api/productos?nombre=" + texto + "&limit=50");
+    }
+
+    private HttpRequest movimiento(long producto) {
+        String tipo = ThreadLocalRandom.current().nextBoolean() ? "ENTRADA" : "SALIDA";
+        return CargaHttp.post(base + "/api/movimientos", "{\"idProducto\":" + producto + ",\"tipo\":\"" + tipo + "\",\"cantidad\":1}");
+    }
+
+    private HttpRequest listado() {
+        return switch (ThreadLocalRandom.current().nextInt(3)) {
+            case 0 -> CargaHttp.get(base + "/api/movimientos?productoId=" + producto(ThreadLocalRandom.current().nextBoolean()) + "&limit=100");
+            case 1 -> CargaHttp.get(base + "/api/movimientos?limit=100");
+            default -> CargaHttp.get(base + "/api/productos/stock-bajo?limit=100");
+        };
+    }
+
+    // 40 % búsquedas, 30 % listados y 30 % movimientos, la mitad sobre productos calientes
+    private HttpRequest mixta() {
+        int tirada = ThreadLocalRandom.current().nextInt(100);
+        if (tirada < 40) {
+            return busqueda();
+        }
+        if (tirada < 70) {
+            return listado();
+        }
+        return movimiento(producto(tirada < 85));
+    }
+
+    private static long producto(boolean caliente) {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        return caliente ? 1 + azar.nextInt(CALIENTES) : CALIENTES + 1 + azar.nextInt(PRODUCTOS - CALIENTES);
+    }
+
+    private static String nombreBase() {
+        return URL.substring(URL.lastIndexOf('/') + 1).replaceAll("\\?.*", "");
+    }
+
+    private static void crearBaseSiFalta() {
+        String nombreBase = nombreBase();
+        String administracion = URL.substring(0, URL.lastIndexOf('/') + 1) + "postgres";
+        try (Connection conexion = DriverManager.getConnection(administracion, USUARIO, CLAVE);
+             Statement sentencia = conexion.createStatement()) {
+            try (ResultSet existe = sentencia.executeQuery("SELECT 1 FROM pg_database WHERE datname = '" + nombreBase.replace("'", "''") + "'")) {
+                if (!existe.next()) {
+                    sentencia.execute("CREATE DATABASE \"" + nombreBase + "\"");
+                }
+            }
+        } catch (SQLException e) {
+            Assumptions.abort("PostgreSQL no disponible en " + administracion + " (" + e.getMessage() + "); se omite el benchmark");
+        }
+    }
+
+    /**
+     * Vacía la base y genera los datos en el propio servidor. El stock de los productos calientes es
+     * enorme para que las salidas nunca fallen; uno de cada 25 productos queda por debajo de su mínimo.
+     */
+    private static void cargarDatos(JdbcTemplate jdbc, ParticionesMensuales particiones) {
+        // Nunca vaciar otra base que la del benchmark
+        String conectada = jdbc.queryForObject("SELECT current_database()", String.class);
+        if (!nombreBase().equals(conectada)) {
+            throw new IllegalStateException("La aplicación está conectada a " + conectada + " y no a " + nombreBase());
+        }
+        long inicio = System.nanoTime();
+        // Con las tablas derivadas: instantáneas o resúmenes de una ejecución anterior no cuadrarían con los datos nuevos
+        jdbc.execute("TRUNCATE public.movimiento, public.stock_log, public.stock_diario, public.resumen_movimiento_diario,"
+                + " public.producto");
+        String nombres = "ARRAY['" + String.join("','", NOMBRES) + "']";
+        jdbc.update("INSERT INTO public.producto (id, codigo, nombre, descripcion, categoria, precio, stock, inventario_inicial,"
+                + " factor_de_rotacion, unidades_vendidas, stock_minimo, fecha_creacion)"
+                + " SELECT g, 'E2E-' || g, (" + nombres + ")[1 + g % " + NOMBRES.length + "] || ' ' || g, 'benchmark', 'categoria-' || g % 50,"
+                + " 1 + (g % 1000) / 10.0, s.stock, s.stock, 0, 0, CASE WHEN g % 25 = 0 THEN 400 ELSE 10 END, now() - interval '90 days'"
+                + " FROM generate_series(1, ?) g"
+                + " CROSS JOIN LATERAL (SELECT CASE WHEN g <= ? THEN 1000000000 ELSE 20 + (g * 7919) % 300 END AS stock) s",
+                PRODUCTOS, CALIENTES);
+        jdbc.update("INSERT INTO public.movimiento (id, tipo, cantidad, descripcion, fecha, producto_id)"
+                + " SELECT g, CASE WHEN g % 3 = 0 THEN 'ENTRADA' ELSE 'SALIDA' END, 1 + g % 5, 'benchmark',"
+                + " now() - interval '90 days' + (g::double precision / ?) * interval '90 days',"
+                + " CASE WHEN g % 2 = 0 THEN 1 + g % ? ELSE 1 + (g * 2654435761) % ? END"
+                + " FROM generate_series(1, ?) g",
+                MOVIMIENTOS, CALIENTES, PRODUCTOS, MOVIMIENTOS);
+        jdbc.update("UPDATE public.producto p SET unidades_vendidas = v.total"
+                + " FROM (SELECT producto_id, SUM(cantidad) AS total FROM public.movimiento WHERE tipo = 'SALIDA' GROUP BY producto_id) v"
+                + " WHERE p.id = v.producto_id");
+        // El resumen diario del histórico generado, como lo calcula migraciones/004-resumen-movimientos.sql
+        jdbc.update("INSERT INTO public.resumen_movimiento_diario (dia, producto_id, entradas, salidas)"
+                + " SELECT fecha::date, producto_id, SUM(CASE WHEN tipo = 'ENTRADA' THEN cantidad ELSE 0 END),"
+                + " SUM(CASE WHEN tipo = 'SALIDA' THEN cantidad ELSE 0 END)"
+                + " FROM public.movimiento GROUP BY fecha::date, producto_id");
+        // El histórico recién insertado cae en _resto si su mes no tenía partición
+        particiones.mantener();
+        jdbc.execute("ANALYZE public.producto");
+        jdbc.execute("ANALYZE public.movimiento");
+        // Las secuencias ya se ajustaron al arrancar, con las tablas vacías (ver migraciones.sql)
+        for (String tabla : List.of("producto", "movimiento", "stock_log")) {
+            jdbc.queryForObject("SELECT setval('public." + tabla + "_seq', (SELECT COALESCE(MAX(id), 0) FROM public." + tabla + ") + 50)", Long.class);
+        }
+        ultimoMovimiento = MOVIMIENTOS;
+        System.out.printf("Datos cargados en %.1f s%n", (System.nanoTime() - inicio) / 1e9);
+    }
+
+    // Número y tiempo (ms) acumulados de recolecciones de todos los recolectores
+    private static long[] recolecciones() {
+        long[] total = new long[2];
+        for (GarbageCollectorMXBean recolector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total[0] += Math.max(0, recolector.getCollectionCount());
+            total[1] += Math.max(0, recolector.getCollectionTime());
+        }
+        return total;
+    }
+
+    /**
+     * Bytes reservados hasta ahora por cada hilo de Tomcat. Sólo se miden los hilos que atienden
+     * peticiones, no los del generador de carga, que comparte la JVM.
+     */
+    private static Map<Long, Long> memoriaReservadaTomcat() {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] ids = Thread.getAllStackTraces().keySet().stream()
+                .filter(hilo -> hilo.getName().startsWith("http-nio-"))
+                .mapToLong(Thread::getId)
+                .toArray();
+        long[] bytes = hilos.getThreadAllocatedBytes(ids);
+        Map<Long, Long> memoria = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (bytes[i] >= 0) {
+                memoria.put(ids[i], bytes[i]);
+            }
+        }
+        return memoria;
+    }
+
+    // Los hilos creados durante la medida cuentan desde cero
+    private static long memoriaReservadaDesde(Map<Long, Long> antes) {
+        return memoriaReservadaTomcat().entrySet().stream()
+                .mapToLong(hilo -> hilo.getValue() - antes.getOrDefault(hilo.getKey(), 0L))
+                .sum();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.inventario.benchmark.jmh;
+
+import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Producto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos de entrada de los microbenchmarks, generados siempre igual para que las ejecuciones sean comparables.
+ */
+final class Datos {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2025, 1, 15, 10, 30);
+
+    private Datos() {
+    }
+
+    static Producto producto(long id) {
+        Producto producto = new Producto(id, "Tornillo acero Ferrotek " + id + "mm", "Tornillo de acero zincado",
+                BigDecimal.valueOf(1 + id % 500, 2), (int) (id % 40), "ferreteria", "COD-" + id, FECHA);
+        producto.setInventarioInicial(100);
+        producto.setUnidadesVendidas(id % 1000);
+        return producto;
+    }
+
+    static List<Producto> productos(int cantidad) {
+        List<Producto> productos = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            productos.add(producto(i));
+        }
+        return productos;
+    }
+
+    static List<Movimiento> movimientos(int cantidad) {
+        List<Movimiento> movimientos = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            Movimiento.TipoMovimiento tipo = i % 3 == 0 ? Movimiento.TipoMovimiento.SALIDA : Movimiento.TipoMovimiento.ENTRADA;
+            movimientos.add(new Movimiento((long) i, producto(i % 500 + 1), tipo, i % 20 + 1, FECHA.plusMinutes(i), "lote " + i));
+        }
+        return movimientos;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.inventario.benchmark.jmh;
+
+import com.example.inventario.domain.model.Movimiento;
+import com.example.inventario.domain.model.Producto;
+import com.example.inventario.infrastructure.adapters.in.dto.MovimientoDTO;
+import com.example.inventario.infrastructure.adapters.in.dto.ProductoDTO;
+import com.example.inventario.infrastructure.config.mapper.MovimientoMapper;
+import com.example.inventario.infrastructure.config.mapper.MovimientoMapperImpl;
+import com.example.inventario.infrastructure.config.mapper.ProductoMapper;
+import com.example.inventario.infrastructure.config.mapper.ProductoMapperImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Conversiones de MapStruct del camino de las peticiones: un elemento y listas completas, como las
+ * páginas de movimientos y los resultados de búsqueda de productos.
+ */
+@State(Scope.Benchmark)
+public class MapeadoresJmh {
+
+    @Param({"100", "10000"})
+    public int tamano;
+
+    private final MovimientoMapper movimientoMapper = new MovimientoMapperImpl();
+    private final ProductoMapper productoMapper = new ProductoMapperImpl();
+
+    private Movimiento movimiento;
+    private MovimientoDTO movimientoDto;
+    private Producto producto;
+    private ProductoDTO productoDto;
+    private List<Movimiento> movimientos;
+    private List<Producto> productos;
+
+    @Setup
+    public void preparar() {
+        movimientos = Datos.movimientos(tamano);
+        productos = Datos.productos(tamano);
+        movimiento = movimientos.get(0);
+        producto = productos.get(0);
+        movimientoDto = movimientoMapper.domainToDto(movimiento);
+        productoDto = productoMapper.entityToDto(producto);
+    }
+
+    @Benchmark
+    public MovimientoDTO movimientoDomainToDto() {
+        return movimientoMapper.domainToDto(movimiento);
+    }
+
+    @Benchmark
+    public Movimiento movimientoDtoToDomain() {
+        return movimientoMapper.dtoToDomain(movimientoDto);
+    }
+
+    @Benchmark
+    public List<MovimientoDTO> movimientoDomainListToDtoList() {
+        return movimientoMapper.domainListToDtoList(movimientos);
+    }
+
+    @Benchmark
+    public ProductoDTO productoEntityToDto() {
+        return productoMapper.entityToDto(producto);
+    }
+
+    @Benchmark
+    public Producto productoDtoToEntity() {
+        return productoMapper.dtoToEntity(productoDto);
+    }
+
+    // Copia que devuelve cada acierto de la caché de productos
+    @Benchmark
+    public Producto productoToDomain() {
+        return productoMapper.toDomain(producto);
+    }
+
+    @Benchmark
+    public List<ProductoDTO> productoEntitiesToDtos() {
+        return productoMapper.entitiesToDtos(productos);
+    }
+}
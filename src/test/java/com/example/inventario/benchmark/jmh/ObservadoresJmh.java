@@ -0,0 +1,66 @@
+package com.example.inventario.benchmark.jmh;
+
+import com.example.inventario.domain.ports.observer.StockObserver;
+import com.example.inventario.domain.ports.observer.StockSubject;
+import com.example.inventario.infrastructure.adapters.out.StockSubjectAsincrono;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Coste para quien notifica: el StockSubject síncrono recorre los observadores en el mismo hilo; el
+ * asíncrono sólo encola en el carril de cada uno (con observadores lentos, descarta con la cola llena).
+ */
+@State(Scope.Benchmark)
+public class ObservadoresJmh {
+
+    @Param({"1", "4"})
+    public int observadores;
+
+    private StockSubject sincrono;
+    private StockSubjectAsincrono asincrono;
+
+    @Setup
+    public void preparar() {
+        sincrono = new StockSubject();
+        asincrono = new StockSubjectAsincrono(new SimpleMeterRegistry(), 1000, 2000);
+        for (int i = 0; i < observadores; i++) {
+            StockObserver observer = new ObservadorContador();
+            sincrono.agregarObserver(observer);
+            asincrono.agregarObserver(observer);
+        }
+    }
+
+    @TearDown
+    public void cerrar() throws InterruptedException {
+        asincrono.close();
+    }
+
+    @Benchmark
+    public void notificarSincrono(Blackhole blackhole) {
+        sincrono.notificarObservadores(1L, "Tinta", 3);
+        blackhole.consume(sincrono);
+    }
+
+    @Benchmark
+    public void notificarAsincrono(Blackhole blackhole) {
+        asincrono.notificarObservadores(1L, "Tinta", 3);
+        blackhole.consume(asincrono);
+    }
+
+    // Cada instancia es un observador distinto, con su propio carril en el asíncrono
+    private static final class ObservadorContador implements StockObserver {
+
+        private volatile long avisos;
+
+        @Override
+        public void notificarStockBajo(Long productoId, String productoNombre, int stock) {
+            avisos++;
+        }
+    }
+}
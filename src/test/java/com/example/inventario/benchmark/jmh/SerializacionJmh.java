@@ -0,0 +1,59 @@
+package com.example.inventario.benchmark.jmh;
+
+import com.example.inventario.infrastructure.adapters.in.dto.ProductoDTO;
+import com.example.inventario.infrastructure.adapters.in.dto.ResultadoOperacionDTO;
+import com.example.inventario.infrastructure.config.mapper.MovimientoMapperImpl;
+import com.example.inventario.infrastructure.config.mapper.ProductoMapperImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serialización JSON de las respuestas, con un ObjectMapper configurado como el de Spring MVC.
+ * Se mide en bytes, que es lo que escribe el conversor HTTP.
+ */
+@State(Scope.Benchmark)
+public class SerializacionJmh {
+
+    @Param({"100", "10000"})
+    public int tamano;
+
+    private ObjectWriter writer;
+    private List<ProductoDTO> productos;
+    private List<ResultadoOperacionDTO> resultados;
+
+    @Setup
+    public void preparar() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        productos = new ProductoMapperImpl().entitiesToDtos(Datos.productos(tamano));
+
+        MovimientoMapperImpl movimientoMapper = new MovimientoMapperImpl();
+        resultados = new ArrayList<>(tamano);
+        Datos.movimientos(tamano).forEach(movimiento -> {
+            ResultadoOperacionDTO resultado = new ResultadoOperacionDTO();
+            resultado.setMovimiento(movimientoMapper.domainToDto(movimiento));
+            resultado.setStockBajo(movimiento.getProducto().esStockBajo());
+            resultado.setCantidad(movimiento.getProducto().getStock());
+            resultado.setNombreProducto(movimiento.getProducto().getNombre());
+            resultados.add(resultado);
+        });
+    }
+
+    @Benchmark
+    public byte[] productosDto() throws JsonProcessingException {
+        return writer.writeValueAsBytes(productos);
+    }
+
+    @Benchmark
+    public byte[] resultadosOperacion() throws JsonProcessingException {
+        return writer.writeValueAsBytes(resultados);
+    }
+}
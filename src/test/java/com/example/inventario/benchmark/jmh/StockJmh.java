@@ -0,0 +1,53 @@
+package com.example.inventario.benchmark.jmh;
+
+import com.example.inventario.application.service.ReglasAlertaStock;
+import com.example.inventario.domain.model.Producto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Lógica de stock que se ejecuta en cada movimiento: umbral, rotación y reglas de alerta.
+ */
+@State(Scope.Benchmark)
+public class StockJmh {
+
+    private Producto producto;
+    private ReglasAlertaStock reglas;
+    private long instante;
+
+    @Setup
+    public void preparar() {
+        producto = Datos.producto(7);
+        // Sin repositorios: sólo se usan al recuperar el estado al arrancar
+        reglas = new ReglasAlertaStock(null, null, new SimpleMeterRegistry(), 0.2, 3_600_000, 3, 86_400_000);
+    }
+
+    @Benchmark
+    public boolean esStockBajo() {
+        return producto.esStockBajo();
+    }
+
+    @Benchmark
+    public boolean esStockBajoConUmbral() {
+        return producto.esStockBajo(10);
+    }
+
+    @Benchmark
+    public double calcularFactorDeRotacion() {
+        return producto.calcularFactorDeRotacion();
+    }
+
+    @Benchmark
+    public double costoVentas() {
+        return producto.getCostoVentas();
+    }
+
+    // Producto ya en alerta: el caso frecuente, que sólo suprime el aviso
+    @Benchmark
+    public boolean evaluarReglasAlerta() {
+        return reglas.evaluar(producto, 10, instante++);
+    }
+}